@@ -0,0 +1,76 @@
+package com.example.sse.bench;
+
+import com.example.sse.config.ConfigManager;
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.SurveyData;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixtures shaped like production payloads.
+ */
+public final class BenchmarkData {
+    public static final long USER_ID = 42L;
+    public static final String SESSION_ID = "bench-session";
+
+    private BenchmarkData() {
+    }
+
+    public static List<CommentData> comments(int count) {
+        List<CommentData> comments = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            CommentData comment = new CommentData();
+            comment.setId((long) i);
+            comment.setUserMasterId(1000L + (i % 97));
+            comment.setFirstName("First" + i);
+            comment.setLastName("Last" + i);
+            comment.setProfileImage("https://cdn.example.com/profile/" + i + ".jpg");
+            comment.setComment("Benchmark comment number " + i + " with a realistic amount of question text?");
+            comment.setCommentApproveStatus(1);
+            comment.setStatus("3");
+            comment.setTypeId(SESSION_ID);
+            comment.setType("session");
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    public static List<SurveyData> surveys(int count) {
+        List<SurveyData> surveys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            surveys.add(new SurveyData((long) i, 1, i % 2, 0L));
+        }
+        return surveys;
+    }
+
+    /**
+     * Same shape as SSEServlet.fetchDataProduction builds.
+     */
+    public static Map<String, Object> mainData(int commentCount) {
+        Map<String, Object> mainData = new HashMap<>();
+        mainData.put("comment_data", comments(commentCount));
+        mainData.put("survey_data", surveys(5));
+        mainData.put("session_status", "live");
+        return mainData;
+    }
+
+    /**
+     * Token signed with the configured jwt.secret, user id nested like the
+     * production issuer does it.
+     */
+    public static String token() {
+        String secret = ConfigManager.getInstance().getProperty("jwt.secret");
+        return Jwts.builder()
+                .claim("userdetail", Map.of("user_master_id", (int) USER_ID))
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.sse.bench;
+
+import com.example.sse.cache.CacheProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map-backed CacheProvider stand-in so benchmarks measure our code, not the
+ * network. TTLs are ignored - entries live for the whole benchmark.
+ */
+public class InMemoryCacheProvider implements CacheProvider {
+    private final ConcurrentHashMap<String, String> store = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String get(String key) {
+        return store.get(key);
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String json = store.get(key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, clazz);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void setObject(String key, Object value, long ttlSeconds) {
+        setObject(key, value);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        store.put(key, value);
+    }
+
+    @Override
+    public void set(String key, String value, long ttlSeconds) {
+        store.put(key, value);
+    }
+
+    @Override
+    public void setObject(String key, Object value) {
+        try {
+            store.put(key, objectMapper.writeValueAsString(value));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return store.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        store.remove(key);
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public void flushByPattern(String pattern) {
+        String prefix = pattern.endsWith("*") ? pattern.substring(0, pattern.length() - 1) : pattern;
+        store.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public void close() {
+        store.clear();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return 0;
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return 0;
+    }
+}
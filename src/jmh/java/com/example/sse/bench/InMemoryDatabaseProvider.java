@@ -0,0 +1,34 @@
+package com.example.sse.bench;
+
+import com.example.sse.database.DatabaseProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DatabaseProvider stand-in for benchmarks of cache-hit paths. Reports healthy
+ * so services initialize, but refuses connections - a benchmark that reaches
+ * the database is measuring the wrong thing.
+ */
+public class InMemoryDatabaseProvider implements DatabaseProvider {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        throw new SQLException("In-memory stand-in has no JDBC connections");
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    @Override
+    public String getDbUrl() {
+        return "jdbc:in-memory";
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.sse.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ObjectMapper.writeValueAsString of the mainData map built on every L3 miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PayloadSerializationBenchmark {
+
+    @Param({ "50", "500" })
+    public int commentCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, Object> mainData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mainData = BenchmarkData.mainData(commentCount);
+    }
+
+    @Benchmark
+    public String writeMainData() throws Exception {
+        return objectMapper.writeValueAsString(mainData);
+    }
+}
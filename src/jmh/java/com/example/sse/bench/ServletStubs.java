@@ -0,0 +1,81 @@
+package com.example.sse.bench;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Minimal request/response stand-ins built with dynamic proxies - only the
+ * methods the SSE servlet touches do anything, output goes to a null sink.
+ */
+public final class ServletStubs {
+
+    private ServletStubs() {
+    }
+
+    public static HttpServletRequest request(Map<String, String> parameters) {
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                ServletStubs.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getParameter" -> parameters.get((String) args[0]);
+                    case "getHeader", "getPathInfo" -> null;
+                    case "isAsyncSupported" -> false;
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    public static HttpServletResponse response() {
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                ServletStubs.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getWriter" -> new PrintWriter(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+                    case "getOutputStream" -> new NullServletOutputStream();
+                    case "isCommitted" -> false;
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    static final class NullServletOutputStream extends ServletOutputStream {
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Blocking stub");
+        }
+
+        @Override
+        public void write(int b) {
+            // Discard
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // Discard
+        }
+    }
+}
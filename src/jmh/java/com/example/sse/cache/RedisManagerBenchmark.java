@@ -0,0 +1,54 @@
+package com.example.sse.cache;
+
+import com.example.sse.bench.BenchmarkData;
+import com.example.sse.model.DataModels.UserStatus;
+import com.example.sse.util.JsonCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization half of RedisManager.getObject, without the network round
+ * trip: a small bean (user status) and a cached comment list, read untyped
+ * (list of maps) and through the typed List<CommentData> codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RedisManagerBenchmark {
+
+    @Param({ "50", "500" })
+    public int commentCount;
+
+    private RedisManager redisManager;
+    private String userStatusJson;
+    private String commentsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redisManager = new RedisManager(null, "bench__");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        userStatusJson = objectMapper.writeValueAsString(new UserStatus("3", "IN"));
+        commentsJson = objectMapper.writeValueAsString(BenchmarkData.comments(commentCount));
+    }
+
+    @Benchmark
+    public UserStatus getObjectUserStatus() throws Exception {
+        return redisManager.decodeObject(userStatusJson, JsonCodecs.USER_STATUS);
+    }
+
+    @Benchmark
+    public List<?> getObjectCommentList() throws Exception {
+        return redisManager.decodeObject(commentsJson, JsonCodecs.of(List.class));
+    }
+
+    @Benchmark
+    public List<?> getObjectTypedCommentList() throws Exception {
+        return redisManager.decodeObject(commentsJson, JsonCodecs.COMMENT_LIST);
+    }
+}
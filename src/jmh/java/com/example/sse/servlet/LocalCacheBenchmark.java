@@ -0,0 +1,63 @@
+package com.example.sse.servlet;
+
+import com.example.sse.cache.LocalCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet L1 cache under contention. For puts the key space (1024 x 4 KB) is
+ * larger than the 2 MB budget, so they regularly go through admission and
+ * eviction; gets read a separate cache that holds every key, so they measure
+ * the hit path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class LocalCacheBenchmark {
+    private static final int KEY_SPACE = 1024;
+
+    private final SSEServlet servlet = new SSEServlet();
+    private final LocalCache<String, SSEServlet.LocalCacheEntry<String>> cache = new LocalCache<>(
+            "bench", 2L << 20, 512, (key, entry) -> key.length() + entry.value.length());
+    private final LocalCache<String, SSEServlet.LocalCacheEntry<String>> warmCache = new LocalCache<>(
+            "bench-warm", 16L << 20, KEY_SPACE, (key, entry) -> key.length() + entry.value.length());
+    private final String[] keys = new String[KEY_SPACE];
+    private final String payload = "x".repeat(4096);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = "session:" + i;
+            servlet.putToLocalCache(warmCache, keys[i], payload, 3_600_000, 3_600_000);
+        }
+        for (String key : keys) {
+            if (servlet.getFromLocalCache(warmCache, key) == null) {
+                throw new IllegalStateException("Warm cache is missing " + key);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = ThreadLocalRandom.current().nextInt(KEY_SPACE);
+
+        String nextKey(String[] keys) {
+            return keys[next++ & (KEY_SPACE - 1)];
+        }
+    }
+
+    @Benchmark
+    public void putUnderContention(Cursor cursor) {
+        servlet.putToLocalCache(cache, cursor.nextKey(keys), payload, 60_000, 120_000);
+    }
+
+    @Benchmark
+    public Object getUnderContention(Cursor cursor) {
+        return servlet.getFromLocalCache(warmCache, cursor.nextKey(keys));
+    }
+}
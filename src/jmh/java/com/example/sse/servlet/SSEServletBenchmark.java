@@ -0,0 +1,71 @@
+package com.example.sse.servlet;
+
+import com.example.sse.bench.BenchmarkData;
+import com.example.sse.bench.InMemoryCacheProvider;
+import com.example.sse.bench.InMemoryDatabaseProvider;
+import com.example.sse.bench.ServletStubs;
+import com.example.sse.cache.CacheProviderFactory;
+import com.example.sse.database.DatabaseProviderFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L1 hit path of handleMainSSEProduction, end to end through doGet.
+ * Setup primes L1 via an L2 hit on the in-memory cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SSEServletBenchmark {
+
+    @Param({ "50", "500" })
+    public int commentCount;
+
+    private SSEServlet servlet;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryCacheProvider cache = new InMemoryCacheProvider();
+        CacheProviderFactory.setInstance(cache);
+        DatabaseProviderFactory.setInstance(new InMemoryDatabaseProvider());
+
+        String payload = new ObjectMapper().writeValueAsString(BenchmarkData.mainData(commentCount));
+        cache.set("sse:data:session:" + BenchmarkData.SESSION_ID, payload);
+
+        servlet = new SSEServlet();
+        servlet.init();
+
+        request = ServletStubs.request(Map.of(
+                "token", BenchmarkData.token(),
+                "type_id", BenchmarkData.SESSION_ID,
+                "type", "session"));
+        response = ServletStubs.response();
+
+        // L2 hit fills L1, the second request must already be an L1 hit
+        servlet.doGet(request, response);
+        servlet.doGet(request, response);
+        Object hits = servlet.getProductionStats().get("cache_hits");
+        if (!Long.valueOf(2).equals(hits)) {
+            throw new IllegalStateException("L1 not primed, cache_hits=" + hits);
+        }
+    }
+
+    @Benchmark
+    public void l1Hit() throws Exception {
+        servlet.doGet(request, response);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        servlet.destroy();
+    }
+}
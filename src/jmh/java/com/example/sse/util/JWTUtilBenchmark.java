@@ -0,0 +1,34 @@
+package com.example.sse.util;
+
+import com.example.sse.bench.BenchmarkData;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full token path used on every L2/L3 request: signature check plus user id
+ * extraction from the nested userdetail claim.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JWTUtilBenchmark {
+
+    private JWTUtil jwtUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = JWTUtil.getInstance();
+        token = BenchmarkData.token();
+    }
+
+    @Benchmark
+    public Long validateAndGetUserId() throws Exception {
+        Claims claims = jwtUtil.validateToken(token);
+        return jwtUtil.getUserId(claims);
+    }
+}
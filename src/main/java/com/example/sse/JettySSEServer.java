@@ -2,9 +2,13 @@ package com.example.sse;
 
 import com.example.sse.servlet.SSEServlet;
 import com.example.sse.servlet.ProductionHealthServlet;
+import com.example.sse.util.BackendExecutors;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
@@ -28,8 +32,8 @@ public class JettySSEServer {
         // Get port
         int port = Integer.parseInt(System.getenv().getOrDefault("PORT", "8080"));
 
-        // Create simple server - no complex configuration
-        server = new Server(port);
+        // Create simple server - no complex configuration unless virtual threads are on
+        server = createServer(port);
 
         // Simple servlet context
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
@@ -53,14 +57,44 @@ public class JettySSEServer {
         }
     }
 
+    /**
+     * Default: plain Jetty server. With server.virtual.threads.enabled, the
+     * QueuedThreadPool keeps its small platform pool for selectors/acceptors and
+     * dispatches blocking servlet work onto virtual threads.
+     */
+    private Server createServer(int port) {
+        if (!BackendExecutors.isVirtualThreadsEnabled()) {
+            return new Server(port);
+        }
+
+        if (!VirtualThreads.areSupported()) {
+            logger.warn("⚠️ Virtual threads requested but not supported by this runtime - using platform threads");
+            return new Server(port);
+        }
+
+        QueuedThreadPool threadPool = new QueuedThreadPool();
+        threadPool.setName("jetty-qtp");
+        threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+
+        Server virtualServer = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(virtualServer);
+        connector.setPort(port);
+        virtualServer.addConnector(connector);
+
+        logger.info("🧵 Jetty request handling on virtual threads");
+        return virtualServer;
+    }
+
     private void addSimpleServlets(ServletContextHandler context) {
         try {
             // Ultra-simple health check
             context.addServlet(new ServletHolder(new ProductionHealthServlet()), "/health");
             context.addServlet(new ServletHolder(new ProductionHealthServlet()), "/");
 
-            // Main SSE servlet
-            context.addServlet(new ServletHolder(new SSEServlet()), "/api/sse/*");
+            // Main SSE servlet (async for long-lived streaming mode)
+            ServletHolder sseHolder = new ServletHolder(new SSEServlet());
+            sseHolder.setAsyncSupported(true);
+            context.addServlet(sseHolder, "/api/sse/*");
 
             logger.info("Simple servlets added successfully");
 
@@ -89,6 +123,7 @@ public class JettySSEServer {
         logger.info("=== SIMPLE SSE ENDPOINTS ===");
         logger.info("🏥 Health: http://localhost:{}/health", port);
         logger.info("🔄 SSE Main: http://localhost:{}/api/sse?token=...&type_id=...&type=...", port);
+        logger.info("📡 SSE Stream: http://localhost:{}/api/sse?token=...&type_id=...&type=...&stream=true", port);
         logger.info("📊 SSE Status: http://localhost:{}/api/sse/session-status?session_id=...", port);
         logger.info("=============================");
     }
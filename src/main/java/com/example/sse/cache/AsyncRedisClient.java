@@ -0,0 +1,554 @@
+package com.example.sse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minimal non-blocking Redis (RESP2) client for the hot read/write path.
+ *
+ * One TCP connection driven by a single selector thread carries every
+ * command. Callers get a CompletableFuture right away and replies are
+ * matched to commands in order (Redis answers a connection's commands
+ * FIFO), so any number of concurrent commands are pipelined without a
+ * pooled connection or a blocked thread per command. Futures complete on
+ * the selector thread - callers hop to their own executor before doing real
+ * work.
+ *
+ * The connection is opened lazily, authenticated and SELECTed before any
+ * queued command is written, and re-opened with backoff after a failure;
+ * commands arriving during the backoff fail at once so callers fall through
+ * to the next tier. A command without a reply within the command timeout
+ * fails every outstanding command and drops the connection, since later
+ * replies could no longer be matched to their commands.
+ */
+final class AsyncRedisClient implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRedisClient.class);
+
+    private static final long SELECT_TIMEOUT_MS = 50;
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final int INITIAL_READ_BUFFER = 64 * 1024;
+    private static final int MAX_READ_BUFFER = 64 * 1024 * 1024;
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    // Parser sentinels - a RESP null is a valid reply, so neither can be null
+    // (package-private for tests)
+    static final Object INCOMPLETE = new Object();
+    static final Object NIL = new Object();
+
+    private enum State {
+        DISCONNECTED, CONNECTING, CONNECTED
+    }
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int database;
+    private final long connectTimeoutMs;
+    private final long commandTimeoutNanos;
+    private final int maxPending;
+
+    // Guarded by lock: commands not yet (fully) written and commands awaiting
+    // a reply, both in send order
+    private final Object lock = new Object();
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean(false);
+    private volatile boolean closed;
+    private volatile State state = State.DISCONNECTED;
+    private volatile Selector selector;
+    private Thread ioThread;
+
+    // Selector thread only
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private long connectDeadline;
+    private long reconnectNotBefore;
+    private long backoffMs = MIN_BACKOFF_MS;
+
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder failedCommands = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param password         empty or null for no AUTH
+     * @param connectTimeoutMs TCP connect timeout
+     * @param commandTimeoutMs reply timeout per command
+     * @param maxPending       commands in flight before new ones are rejected
+     */
+    AsyncRedisClient(String host, int port, String password, int database, long connectTimeoutMs,
+            long commandTimeoutMs, int maxPending) {
+        this.host = host;
+        this.port = port;
+        this.password = password != null && !password.trim().isEmpty() ? password.trim() : null;
+        this.database = database;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.commandTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, commandTimeoutMs));
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Send one command. Completes with String (simple or bulk reply), Long,
+     * List (array reply) or null; an error reply completes exceptionally.
+     */
+    CompletableFuture<Object> send(String... args) {
+        return sendAll(List.<String[]>of(args)).get(0);
+    }
+
+    /**
+     * Send commands back to back, one future per command in the same order.
+     */
+    List<CompletableFuture<Object>> sendAll(List<String[]> batch) {
+        List<CompletableFuture<Object>> futures = new ArrayList<>(batch.size());
+        List<ByteBuffer> encoded = new ArrayList<>(batch.size());
+        for (String[] command : batch) {
+            futures.add(new CompletableFuture<>());
+            encoded.add(encode(command));
+        }
+
+        if (closed) {
+            failAll(futures, new IOException("Redis client closed"));
+            return futures;
+        }
+
+        synchronized (lock) {
+            if (pending.size() + batch.size() > maxPending) {
+                failAll(futures, new IOException("Too many pending Redis commands (" + pending.size() + ")"));
+                return futures;
+            }
+            long deadline = System.nanoTime() + commandTimeoutNanos;
+            for (int i = 0; i < batch.size(); i++) {
+                pending.add(new Pending(futures.get(i), deadline, false));
+                writeQueue.add(encoded.get(i));
+            }
+        }
+        commands.add(batch.size());
+
+        ensureStarted();
+        if (wakeupRequested.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+        return futures;
+    }
+
+    boolean isConnected() {
+        return state == State.CONNECTED;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        synchronized (lock) {
+            stats.put("pending", pending.size());
+        }
+        stats.put("commands", commands.sum());
+        stats.put("failed_commands", failedCommands.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("connects", connects.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Selector current = selector;
+        if (current != null) {
+            current.wakeup();
+        }
+    }
+
+    private void ensureStarted() {
+        if (selector != null) {
+            return;
+        }
+        synchronized (this) {
+            if (selector != null) {
+                return;
+            }
+            try {
+                selector = Selector.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open selector for Redis client", e);
+            }
+            ioThread = new Thread(this::run, "prod-redis-nio");
+            ioThread.setDaemon(true);
+            ioThread.start();
+        }
+    }
+
+    // === Selector thread ===
+
+    private void run() {
+        logger.info("🔌 Async Redis client started for {}:{}", host, port);
+        while (!closed) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                wakeupRequested.set(false);
+
+                if (state == State.DISCONNECTED && hasQueuedWrites()) {
+                    if (System.currentTimeMillis() < reconnectNotBefore) {
+                        failOutstanding(new IOException("Redis unavailable, reconnecting"));
+                    } else {
+                        connect();
+                    }
+                }
+
+                if (key != null && key.isValid()) {
+                    if (key.isConnectable()) {
+                        finishConnect();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        readReplies();
+                    }
+                    if (key.isValid() && state == State.CONNECTED) {
+                        writeQueued();
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                checkTimeouts();
+            } catch (IOException | RuntimeException e) {
+                failConnection(e);
+            }
+        }
+
+        failConnection(new IOException("Redis client closed"));
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Selector close failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasQueuedWrites() {
+        synchronized (lock) {
+            return !writeQueue.isEmpty();
+        }
+    }
+
+    private void connect() throws IOException {
+        connects.increment();
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        state = State.CONNECTING;
+        connectDeadline = System.currentTimeMillis() + connectTimeoutMs;
+        if (channel.connect(new InetSocketAddress(host, port))) {
+            key = channel.register(selector, 0);
+            onConnected();
+        } else {
+            key = channel.register(selector, SelectionKey.OP_CONNECT);
+        }
+    }
+
+    private void finishConnect() throws IOException {
+        if (channel.finishConnect()) {
+            onConnected();
+        }
+    }
+
+    private void onConnected() {
+        // Handshake goes ahead of everything queued while we were connecting
+        synchronized (lock) {
+            long deadline = System.nanoTime() + commandTimeoutNanos;
+            if (database != 0) {
+                writeQueue.addFirst(encode("SELECT", Integer.toString(database)));
+                pending.addFirst(new Pending(new CompletableFuture<>(), deadline, true));
+            }
+            if (password != null) {
+                writeQueue.addFirst(encode("AUTH", password));
+                pending.addFirst(new Pending(new CompletableFuture<>(), deadline, true));
+            }
+        }
+        state = State.CONNECTED;
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        logger.debug("Async Redis connection established to {}:{}", host, port);
+    }
+
+    private void writeQueued() throws IOException {
+        boolean drained;
+        synchronized (lock) {
+            if (!writeQueue.isEmpty()) {
+                ByteBuffer[] buffers = writeQueue.toArray(new ByteBuffer[0]);
+                channel.write(buffers);
+                while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining()) {
+                    writeQueue.poll();
+                }
+            }
+            drained = writeQueue.isEmpty();
+        }
+        // Socket buffer full: wait for OP_WRITE instead of spinning
+        key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void readReplies() throws IOException {
+        while (true) {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                throw new EOFException("Redis closed the connection");
+            }
+            if (read == 0) {
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                int start = readBuffer.position();
+                Object reply = parse(readBuffer);
+                if (reply == INCOMPLETE) {
+                    readBuffer.position(start);
+                    break;
+                }
+                dispatch(reply == NIL ? null : reply);
+            }
+            readBuffer.compact();
+
+            if (!readBuffer.hasRemaining()) {
+                // One reply larger than the buffer
+                if (readBuffer.capacity() >= MAX_READ_BUFFER) {
+                    throw new IOException("Redis reply exceeds " + MAX_READ_BUFFER + " bytes");
+                }
+                ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        }
+    }
+
+    private void dispatch(Object reply) throws IOException {
+        Pending next;
+        synchronized (lock) {
+            next = pending.poll();
+        }
+        if (next == null) {
+            throw new IOException("Redis reply without a pending command");
+        }
+
+        if (reply instanceof ErrorReply error) {
+            if (next.handshake) {
+                throw new IOException("Redis handshake failed: " + error.message);
+            }
+            failedCommands.increment();
+            next.future.completeExceptionally(new RedisErrorException(error.message));
+        } else {
+            backoffMs = MIN_BACKOFF_MS;
+            next.future.complete(reply);
+        }
+    }
+
+    private void checkTimeouts() throws IOException {
+        if (state == State.CONNECTING && System.currentTimeMillis() > connectDeadline) {
+            throw new SocketTimeoutException("Redis connect timed out after " + connectTimeoutMs + "ms");
+        }
+        Pending oldest;
+        synchronized (lock) {
+            oldest = pending.peek();
+        }
+        if (oldest != null && System.nanoTime() - oldest.deadline > 0) {
+            timeouts.increment();
+            throw new IOException(new TimeoutException("Redis reply timed out"));
+        }
+    }
+
+    /**
+     * Drop the connection and fail everything outstanding; the next command
+     * reconnects once the backoff has passed.
+     */
+    private void failConnection(Throwable cause) {
+        boolean wasConnected = state != State.DISCONNECTED;
+        state = State.DISCONNECTED;
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Channel close failed: {}", e.getMessage());
+            }
+            channel = null;
+        }
+        readBuffer.clear();
+
+        int failed = failOutstanding(cause);
+        if (wasConnected && !closed) {
+            reconnectNotBefore = System.currentTimeMillis() + backoffMs;
+            logger.warn("🔌 Async Redis connection to {}:{} failed ({} commands failed), retry in {}ms: {}",
+                    host, port, failed, backoffMs, describe(cause));
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        }
+    }
+
+    private int failOutstanding(Throwable cause) {
+        List<Pending> failed;
+        synchronized (lock) {
+            failed = new ArrayList<>(pending);
+            pending.clear();
+            writeQueue.clear();
+        }
+        Throwable error = cause instanceof ClosedChannelException ? new IOException("Redis connection closed")
+                : cause;
+        for (Pending command : failed) {
+            command.future.completeExceptionally(error);
+        }
+        failedCommands.add(failed.size());
+        return failed.size();
+    }
+
+    private static String describe(Throwable cause) {
+        Throwable root = cause.getCause() != null ? cause.getCause() : cause;
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    private static void failAll(List<CompletableFuture<Object>> futures, Throwable error) {
+        for (CompletableFuture<Object> future : futures) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    // === RESP encoding / parsing ===
+
+    static ByteBuffer encode(String... args) {
+        byte[][] parts = new byte[args.length][];
+        int size = 16;
+        for (int i = 0; i < args.length; i++) {
+            parts[i] = args[i].getBytes(StandardCharsets.UTF_8);
+            size += parts[i].length + 16;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) '*').put(ascii(args.length)).put(CRLF);
+        for (byte[] part : parts) {
+            buffer.put((byte) '$').put(ascii(part.length)).put(CRLF).put(part).put(CRLF);
+        }
+        return buffer.flip();
+    }
+
+    private static byte[] ascii(int value) {
+        return Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * One reply starting at the buffer's position, INCOMPLETE if it has not
+     * fully arrived yet (the caller rewinds), NIL for a RESP null.
+     */
+    static Object parse(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return INCOMPLETE;
+        }
+        byte type = buffer.get();
+        String line = readLine(buffer);
+        if (line == null) {
+            return INCOMPLETE;
+        }
+
+        switch (type) {
+            case '+':
+                return line;
+            case '-':
+                return new ErrorReply(line);
+            case ':':
+                return Long.parseLong(line);
+            case '$': {
+                int length = Integer.parseInt(line);
+                if (length < 0) {
+                    return NIL;
+                }
+                if (buffer.remaining() < length + 2) {
+                    return INCOMPLETE;
+                }
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                buffer.position(buffer.position() + 2);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case '*': {
+                int count = Integer.parseInt(line);
+                if (count < 0) {
+                    return NIL;
+                }
+                List<Object> elements = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Object element = parse(buffer);
+                    if (element == INCOMPLETE) {
+                        return INCOMPLETE;
+                    }
+                    elements.add(element == NIL ? null : element);
+                }
+                return elements;
+            }
+            default:
+                throw new IOException("Unexpected RESP type byte: " + (char) type);
+        }
+    }
+
+    private static String readLine(ByteBuffer buffer) {
+        int start = buffer.position();
+        for (int i = start; i < buffer.limit() - 1; i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                byte[] bytes = new byte[i - start];
+                buffer.get(bytes);
+                buffer.position(i + 2);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static final class Pending {
+        final CompletableFuture<Object> future;
+        final long deadline;
+        final boolean handshake;
+
+        Pending(CompletableFuture<Object> future, long deadline, boolean handshake) {
+            this.future = future;
+            this.deadline = deadline;
+            this.handshake = handshake;
+        }
+    }
+
+    private static final class ErrorReply {
+        final String message;
+
+        ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Error reply from Redis for one command (the connection stays usable).
+     */
+    static final class RedisErrorException extends RuntimeException {
+        RedisErrorException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.sse.cache;
+
+import com.example.sse.util.JsonCodec;
+import com.example.sse.util.JsonCodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micro-batching front for a CacheProvider.
+ *
+ * Reads and writes issued by concurrent requests are queued and flushed
+ * together once the batch window (a few hundred microseconds) has passed or
+ * the batch is full: all queued reads go out as one getManyWithTtl call (a
+ * single Redis pipeline) and queued writes as one setMany per TTL. Duplicate
+ * keys within a batch are read once and every waiter gets the same value.
+ *
+ * Flushes go through the provider's async API, so with a non-blocking
+ * transport no thread waits for Redis; waiters are completed on the executor,
+ * never on the transport's IO thread. Callers get CompletableFutures and
+ * should wait with a timeout; a failed flush completes all of its futures
+ * exceptionally.
+ */
+public class CacheBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(CacheBatcher.class);
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "prod-redis-batch-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final CacheProvider provider;
+    private final Executor executor;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<PendingRead> reads = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<PendingWrite> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedOps = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    /**
+     * @param provider     backing cache
+     * @param executor     runs the flushes and completes waiters
+     * @param windowMicros how long to wait for more operations; 0 flushes on the next executor turn
+     * @param maxBatchSize operations per flush; reaching it flushes immediately
+     */
+    public CacheBatcher(CacheProvider provider, Executor executor, long windowMicros, int maxBatchSize) {
+        this.provider = provider;
+        this.executor = executor;
+        this.windowMicros = Math.max(0, windowMicros);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Completes with null right away while the provider's circuit breaker is
+     * open, so the caller moves on to the next tier.
+     */
+    public CompletableFuture<CachedValue> getWithTtl(String key) {
+        if (!provider.isCallPermitted()) {
+            shortCircuited.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<CachedValue> future = new CompletableFuture<>();
+        reads.add(new PendingRead(key, future));
+        onQueued();
+        return future;
+    }
+
+    public CompletableFuture<String> get(String key) {
+        return getWithTtl(key).thenApply(cached -> cached != null ? cached.getValue() : null);
+    }
+
+    public <T> CompletableFuture<T> getObject(String key, Class<T> clazz) {
+        return getObject(key, JsonCodecs.of(clazz));
+    }
+
+    /**
+     * JSON-decoded value; decoding runs on the flushing thread.
+     */
+    public <T> CompletableFuture<T> getObject(String key, JsonCodec<T> codec) {
+        return get(key).thenApply(json -> {
+            if (json == null) {
+                return null;
+            }
+            try {
+                return codec.read(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Fire-and-forget write, sent with the next batch.
+     */
+    public void set(String key, String value, long ttlSeconds) {
+        if (!provider.isCallPermitted()) {
+            shortCircuited.increment();
+            return; // Best effort - dropped while the breaker is open
+        }
+        writes.add(new PendingWrite(key, value, ttlSeconds));
+        onQueued();
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.sum();
+        long opCount = batchedOps.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batchCount);
+        stats.put("batched_ops", opCount);
+        stats.put("avg_batch_size", batchCount == 0 ? 0.0 : (double) opCount / batchCount);
+        stats.put("queued", queued.get());
+        stats.put("short_circuited", shortCircuited.sum());
+        stats.put("window_micros", windowMicros);
+        return stats;
+    }
+
+    private void onQueued() {
+        if (queued.incrementAndGet() >= maxBatchSize) {
+            if (flushScheduled.compareAndSet(false, true)) {
+                submitFlush();
+            }
+            return;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            if (windowMicros == 0) {
+                submitFlush();
+            } else {
+                timer.schedule(this::submitFlush, windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+
+    private void submitFlush() {
+        try {
+            executor.execute(this::flush);
+        } catch (RuntimeException e) {
+            logger.error("Could not submit cache batch flush", e);
+            flushScheduled.set(false);
+        }
+    }
+
+    private void flush() {
+        // Reset first: anything queued from here on schedules its own flush
+        flushScheduled.set(false);
+
+        try {
+            flushWrites();
+            flushReads();
+        } finally {
+            if (queued.get() > 0 && flushScheduled.compareAndSet(false, true)) {
+                submitFlush();
+            }
+        }
+    }
+
+    private void flushReads() {
+        Map<String, List<CompletableFuture<CachedValue>>> byKey = new LinkedHashMap<>();
+        int count = 0;
+        PendingRead read;
+        while (count < maxBatchSize && (read = reads.poll()) != null) {
+            queued.decrementAndGet();
+            byKey.computeIfAbsent(read.key, k -> new ArrayList<>(1)).add(read.future);
+            count++;
+        }
+        if (byKey.isEmpty()) {
+            return;
+        }
+
+        batches.increment();
+        batchedOps.add(count);
+
+        List<String> keys = new ArrayList<>(byKey.keySet());
+        CompletionStage<List<CachedValue>> batch;
+        try {
+            batch = provider.getManyWithTtlAsync(keys);
+        } catch (RuntimeException e) {
+            batch = CompletableFuture.failedFuture(e);
+        }
+        batch.whenCompleteAsync((values, error) -> {
+            if (error != null) {
+                logger.warn("Cache batch read of {} keys failed: {}", keys.size(), error.getMessage());
+                for (List<CompletableFuture<CachedValue>> futures : byKey.values()) {
+                    for (CompletableFuture<CachedValue> future : futures) {
+                        future.completeExceptionally(error);
+                    }
+                }
+                return;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                CachedValue value = values.get(i);
+                for (CompletableFuture<CachedValue> future : byKey.get(keys.get(i))) {
+                    future.complete(value);
+                }
+            }
+        }, executor);
+    }
+
+    private void flushWrites() {
+        // Later writes to the same key win, as they would sent one by one
+        Map<Long, Map<String, String>> byTtl = new LinkedHashMap<>();
+        int count = 0;
+        PendingWrite write;
+        while ((write = writes.poll()) != null) {
+            queued.decrementAndGet();
+            byTtl.computeIfAbsent(write.ttlSeconds, ttl -> new LinkedHashMap<>()).put(write.key, write.value);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        batches.increment();
+        batchedOps.add(count);
+
+        for (Map.Entry<Long, Map<String, String>> group : byTtl.entrySet()) {
+            int size = group.getValue().size();
+            try {
+                provider.setManyAsync(group.getValue(), group.getKey()).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        logger.warn("Cache batch write of {} keys failed: {}", size, error.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Cache batch write of {} keys failed: {}", size, e.getMessage());
+            }
+        }
+    }
+
+    private static final class PendingRead {
+        final String key;
+        final CompletableFuture<CachedValue> future;
+
+        PendingRead(String key, CompletableFuture<CachedValue> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+    private static final class PendingWrite {
+        final String key;
+        final String value;
+        final long ttlSeconds;
+
+        PendingWrite(String key, String value, long ttlSeconds) {
+            this.key = key;
+            this.value = value;
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+}
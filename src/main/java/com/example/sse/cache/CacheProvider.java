@@ -1,9 +1,26 @@
 package com.example.sse.cache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
 public interface CacheProvider {
 
     String get(String key);
 
+    /**
+     * Value with its remaining TTL, or null if absent. Providers that cannot
+     * read the TTL report CachedValue.NO_EXPIRY.
+     */
+    default CachedValue getWithTtl(String key) {
+        String value = get(key);
+        return value != null ? new CachedValue(value, CachedValue.NO_EXPIRY) : null;
+    }
+
     <T> T getObject(String key, Class<T> clazz);
 
     void setObject(String key, Object value, long ttlSeconds);
@@ -18,8 +35,102 @@ public interface CacheProvider {
 
     void delete(String key);
 
+    // === Batch operations - one round trip where the provider supports it ===
+
+    /**
+     * Values in key order, null for missing keys.
+     */
+    default List<String> getMany(List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    /**
+     * Values with remaining TTLs in key order, null for missing keys.
+     */
+    default List<CachedValue> getManyWithTtl(List<String> keys) {
+        List<CachedValue> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(getWithTtl(key));
+        }
+        return values;
+    }
+
+    default void setMany(Map<String, String> entries, long ttlSeconds) {
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            set(entry.getKey(), entry.getValue(), ttlSeconds);
+        }
+    }
+
+    default void deleteMany(Collection<String> keys) {
+        for (String key : keys) {
+            delete(key);
+        }
+    }
+
+    // === Asynchronous operations ===
+    // The defaults run the blocking call on the caller's thread and return a
+    // completed stage; providers with a non-blocking transport override them
+    // and complete on their IO thread, so dependents should not block or do
+    // heavy work without switching to their own executor.
+
+    default CompletionStage<String> getAsync(String key) {
+        return completed(() -> get(key));
+    }
+
+    default CompletionStage<Void> setAsync(String key, String value, long ttlSeconds) {
+        return completed(() -> {
+            set(key, value, ttlSeconds);
+            return null;
+        });
+    }
+
+    /**
+     * Values in key order, null for missing keys.
+     */
+    default CompletionStage<List<String>> getManyAsync(List<String> keys) {
+        return completed(() -> getMany(keys));
+    }
+
+    default CompletionStage<List<CachedValue>> getManyWithTtlAsync(List<String> keys) {
+        return completed(() -> getManyWithTtl(keys));
+    }
+
+    default CompletionStage<Void> setManyAsync(Map<String, String> entries, long ttlSeconds) {
+        return completed(() -> {
+            setMany(entries, ttlSeconds);
+            return null;
+        });
+    }
+
+    private static <T> CompletionStage<T> completed(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     boolean isHealthy();
 
+    /**
+     * False while the provider's circuit breaker is open - callers should
+     * skip this tier instead of waiting for it.
+     */
+    default boolean isCallPermitted() {
+        return true;
+    }
+
+    /**
+     * Circuit breaker and bulkhead state, empty if the provider has none.
+     */
+    default Map<String, Object> getGuardStats() {
+        return Map.of();
+    }
+
     void flushByPattern(String pattern);
 
     void close();
@@ -1,7 +1,12 @@
 package com.example.sse.cache;
 
+import com.example.sse.config.ConfigManager;
+import com.example.sse.util.BackendExecutors;
+
 public class CacheProviderFactory {
     private static CacheProvider instance;
+    private static CacheBatcher batcher;
+    private static InvalidationBus invalidationBus;
 
     public static synchronized CacheProvider getInstance() {
         if (instance == null) {
@@ -12,5 +17,47 @@ public class CacheProviderFactory {
 
     public static synchronized void setInstance(CacheProvider customInstance) {
         instance = customInstance;
+        batcher = null;
+        if (invalidationBus != null) {
+            invalidationBus.close();
+            invalidationBus = null;
+        }
+    }
+
+    /**
+     * Redis pub/sub when the provider is Redis (and cache.invalidation.pubsub.enabled
+     * is not false), otherwise in-process only.
+     */
+    public static synchronized InvalidationBus getInvalidationBus() {
+        if (invalidationBus == null) {
+            CacheProvider provider = getInstance();
+            boolean pubSub = ConfigManager.getInstance().getBooleanProperty("cache.invalidation.pubsub.enabled", true);
+            if (pubSub && provider instanceof RedisManager redisManager) {
+                invalidationBus = new RedisInvalidationBus(redisManager,
+                        ConfigManager.getInstance().getProperty("cache.invalidation.channel", "cache:invalidation"));
+            } else {
+                invalidationBus = new LocalInvalidationBus();
+            }
+        }
+        return invalidationBus;
+    }
+
+    public static synchronized void setInvalidationBus(InvalidationBus customBus) {
+        invalidationBus = customBus;
+    }
+
+    /**
+     * Shared micro-batcher over the current provider, so lookups from the
+     * servlet and the data service land in the same pipelines.
+     */
+    public static synchronized CacheBatcher getBatcher() {
+        if (batcher == null) {
+            ConfigManager config = ConfigManager.getInstance();
+            batcher = new CacheBatcher(getInstance(),
+                    BackendExecutors.create("prod-redis-batch", 2, BackendExecutors.redisConcurrency()),
+                    config.getLongProperty("redis.batch.window.micros", 200),
+                    config.getIntProperty("redis.batch.max.size", 64));
+        }
+        return batcher;
     }
-}
\ No newline at end of file
+}
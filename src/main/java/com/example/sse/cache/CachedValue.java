@@ -0,0 +1,37 @@
+package com.example.sse.cache;
+
+/**
+ * A cached string together with its remaining time to live, so callers can
+ * tell a fresh entry from one that is close to expiry.
+ */
+public final class CachedValue {
+    public static final long NO_EXPIRY = -1;
+
+    private final String value;
+    private final long remainingTtlMs;
+
+    public CachedValue(String value, long remainingTtlMs) {
+        this.value = value;
+        this.remainingTtlMs = remainingTtlMs;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Remaining TTL in milliseconds, or NO_EXPIRY if the key has none / the
+     * provider cannot tell.
+     */
+    public long getRemainingTtlMs() {
+        return remainingTtlMs;
+    }
+
+    /**
+     * Milliseconds since the entry was written, given the TTL it was written
+     * with; 0 when the remaining TTL is unknown.
+     */
+    public long getAgeMs(long writtenTtlMs) {
+        return remainingTtlMs < 0 ? 0 : Math.max(0, writtenTtlMs - remainingTtlMs);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sse.cache;
+
+/**
+ * Broadcasts cache invalidations to the local (L1) caches of every instance.
+ *
+ * A message is a tag naming what changed (a topic, a session, a user) rather
+ * than a concrete cache key, so each subscriber maps it onto its own keys.
+ * publish() notifies this instance's listeners immediately (local = true) and
+ * then every other instance (local = false). ALL asks subscribers to drop
+ * everything - sent when messages may have been missed.
+ */
+public interface InvalidationBus {
+    String ALL = "*";
+
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * @param tag   what changed
+         * @param local true on the instance that published it - the place to
+         *              clear shared (L2) entries once rather than on every node
+         */
+        void onInvalidate(String tag, boolean local);
+    }
+
+    void publish(String tag);
+
+    void subscribe(Listener listener);
+
+    default void close() {
+        // Nothing to release by default
+    }
+
+    static String topicTag(String type, String typeId) {
+        return "topic:" + type + ":" + typeId;
+    }
+
+    static String sessionTag(String sessionId) {
+        return "session:" + sessionId;
+    }
+
+    static String userTag(Long userId) {
+        return "user:" + userId;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.sse.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-process (L1) cache with W-TinyLFU eviction.
+ *
+ * - Capacity is a weight budget (roughly bytes), not an entry count, so a few
+ *   large topic payloads cannot crowd out the heap.
+ * - New entries land in a small LRU window; when the cache is full a window
+ *   entry is only admitted to the main segmented LRU if a count-min sketch
+ *   says it is used more often than the entry it would replace. One-off keys
+ *   (a scan over many topics, a stream of random tokens) therefore cannot
+ *   flush the hot set.
+ * - Per-entry TTLs are tracked in a timer wheel, so expiry never scans the map.
+ * - Reads are lock-free: they are recorded in a lossy buffer and replayed into
+ *   the policy by whichever thread next takes the eviction lock.
+ */
+public class LocalCache<K, V> {
+
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final int WHEEL_BUCKETS = 1024;
+    private static final long WHEEL_TICK_MS = 1000;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte DEAD = 3;
+
+    private final String name;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+    private final FrequencySketch sketch;
+    private final TimerWheel<K, V> timerWheel;
+
+    // Guarded by evictionLock
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param name            label used in stats
+     * @param maximumWeight   total weight budget
+     * @param expectedEntries rough number of entries at capacity (sizes the sketch)
+     * @param weigher         weight of one entry, in the same unit as maximumWeight
+     */
+    public LocalCache(String name, long maximumWeight, long expectedEntries, Weigher<? super K, ? super V> weigher) {
+        this.name = name;
+        this.maximumWeight = Math.max(1, maximumWeight);
+        this.windowMaximum = Math.max(1, (long) (this.maximumWeight * WINDOW_PERCENT));
+        this.protectedMaximum = (long) ((this.maximumWeight - windowMaximum) * PROTECTED_PERCENT);
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.timerWheel = new TimerWheel<>(WHEEL_BUCKETS, WHEEL_TICK_MS, System.currentTimeMillis());
+    }
+
+    /**
+     * Value for key, or null if absent or past its TTL.
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (node.expiresAt <= now) {
+            misses.increment();
+            tryMaintenance(now);
+            return null;
+        }
+
+        hits.increment();
+        if (readBuffer.offer(node) == ReadBuffer.FULL) {
+            tryMaintenance(now);
+        }
+        return node.value;
+    }
+
+    /**
+     * Insert or replace. Entries heavier than the whole budget are not cached.
+     */
+    public void put(K key, V value, long ttlMs) {
+        int weight = Math.max(0, weigher.weigh(key, value));
+        long now = System.currentTimeMillis();
+        Node<K, V> node = new Node<>(key, value, weight, now + ttlMs);
+
+        evictionLock.lock();
+        try {
+            Node<K, V> previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+
+            if (weight > maximumWeight) {
+                data.remove(key, node);
+                node.queue = DEAD;
+                return;
+            }
+
+            sketch.increment(key);
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowWeight += weight;
+            totalWeight += weight;
+            timerWheel.schedule(node);
+
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    unlink(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long weight() {
+        return totalWeight;
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("entries", data.size());
+        stats.put("weight", totalWeight);
+        stats.put("max_weight", maximumWeight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    private void tryMaintenance(long now) {
+        if (evictionLock.tryLock()) {
+            try {
+                maintenance(now);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void maintenance(long now) {
+        readBuffer.drainTo(this::onAccess);
+        timerWheel.advance(now, this::expire);
+        evictEntries();
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == DEAD) {
+            return;
+        }
+
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToBack(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            protectedWeight += node.weight;
+            demoteFromProtected();
+        } else {
+            protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedQueue.pollFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedWeight -= demoted.weight;
+            demoted.queue = PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    /**
+     * Overflowing window entries become candidates at the tail of probation;
+     * while over budget, the candidate and the probation LRU victim compete on
+     * sketch frequency and the less frequent one is dropped.
+     */
+    private void evictEntries() {
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            if (candidate == null) {
+                break;
+            }
+            windowWeight -= candidate.weight;
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+
+        while (totalWeight > maximumWeight) {
+            Node<K, V> victim = probation.peekFirst();
+            Node<K, V> candidate = probation.peekLast();
+
+            if (victim == null) {
+                victim = protectedQueue.peekFirst();
+                if (victim == null) {
+                    victim = window.peekFirst();
+                }
+                if (victim == null) {
+                    return;
+                }
+                evict(victim);
+            } else if (victim == candidate
+                    || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictions.increment();
+    }
+
+    private void expire(Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+        expirations.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> {
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        totalWeight -= node.weight;
+        timerWheel.deschedule(node);
+        node.queue = DEAD;
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long expiresAt;
+        volatile byte queue = DEAD;
+
+        Node<K, V> prev;
+        Node<K, V> next;
+        Node<K, V> wheelPrev;
+        Node<K, V> wheelNext;
+
+        Node(K key, V value, int weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Intrusive doubly-linked LRU list (head = least recently used).
+     */
+    private static final class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> peekLast() {
+            return tail;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+    }
+}
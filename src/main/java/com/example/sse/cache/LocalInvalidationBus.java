@@ -0,0 +1,38 @@
+package com.example.sse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process invalidation bus: delivers to this instance's listeners only.
+ * Used when there is no Redis and as the stand-in for tests; the Redis bus
+ * builds on it for local delivery.
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(LocalInvalidationBus.class);
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String tag) {
+        deliver(tag, true);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    protected void deliver(String tag, boolean local) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onInvalidate(tag, local);
+            } catch (RuntimeException e) {
+                logger.warn("Invalidation listener failed for {}: {}", tag, e.getMessage());
+            }
+        }
+    }
+}
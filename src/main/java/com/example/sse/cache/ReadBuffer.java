@@ -0,0 +1,81 @@
+package com.example.sse.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy, striped buffer of cache reads waiting to be applied to the eviction
+ * policy. Readers never block: if their stripe is full or contended the read
+ * is simply not recorded, which only makes the LRU/LFU bookkeeping slightly
+ * less precise. Drained by whoever holds the eviction lock.
+ */
+final class ReadBuffer<E> {
+    static final int SUCCESS = 0;
+    static final int FAILED = 1;
+    static final int FULL = 2;
+
+    private static final int STRIPE_SIZE = 32;
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = STRIPE_SIZE / 2;
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())) * 2;
+        this.stripes = (Stripe<E>[]) new Stripe<?>[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * @return SUCCESS, FAILED (dropped) or FULL (dropped or half full - drain soon)
+     */
+    int offer(E element) {
+        Stripe<E> stripe = stripes[(int) Thread.currentThread().threadId() & stripeMask];
+        long head = stripe.readCounter;
+        long tail = stripe.writeCounter.get();
+        long size = tail - head;
+
+        if (size >= STRIPE_SIZE) {
+            return FULL;
+        }
+        if (!stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            return FAILED;
+        }
+
+        stripe.buffer.lazySet((int) (tail & STRIPE_MASK), element);
+        return size + 1 >= DRAIN_THRESHOLD ? FULL : SUCCESS;
+    }
+
+    /**
+     * Caller must hold the eviction lock (single consumer).
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            while (head < tail) {
+                int index = (int) (head & STRIPE_MASK);
+                E element = stripe.buffer.get(index);
+                if (element == null) {
+                    break; // Slot claimed but not yet published
+                }
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(element);
+                head++;
+            }
+            stripe.readCounter = head;
+        }
+    }
+
+    private static final class Stripe<E> {
+        final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.sse.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.UUID;
+
+/**
+ * Invalidation bus over Redis pub/sub.
+ *
+ * Messages are "&lt;node id&gt;|&lt;tag&gt;" on one channel; a node skips its own
+ * messages because publish() already delivered them locally. The
+ * subscription runs on a dedicated connection (not one of the small pool's)
+ * in a daemon thread that reconnects with backoff. Messages sent while it
+ * was disconnected are lost, so after a reconnect subscribers get ALL.
+ */
+public class RedisInvalidationBus extends LocalInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(RedisInvalidationBus.class);
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private final RedisManager redisManager;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile boolean closed;
+    private volatile JedisPubSub subscription;
+
+    public RedisInvalidationBus(RedisManager redisManager, String channel) {
+        this.redisManager = redisManager;
+        this.channel = redisManager.prefixedChannel(channel);
+
+        Thread subscriber = new Thread(this::subscribeLoop, "prod-invalidation-" + nodeId);
+        subscriber.setDaemon(true);
+        subscriber.start();
+        logger.info("📣 Invalidation bus on channel {} (node {})", this.channel, nodeId);
+    }
+
+    @Override
+    public void publish(String tag) {
+        deliver(tag, true);
+        redisManager.publish(channel, nodeId + "|" + tag);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        JedisPubSub current = subscription;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+    }
+
+    private void subscribeLoop() {
+        long backoffMs = 500;
+        boolean reconnect = false;
+
+        while (!closed) {
+            boolean resubscribed = reconnect;
+            JedisPubSub pubSub = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String subscribedChannel, int subscribedChannels) {
+                    if (resubscribed) {
+                        logger.info("📣 Invalidation bus resubscribed - dropping local caches");
+                        deliver(ALL, false);
+                    }
+                }
+
+                @Override
+                public void onMessage(String messageChannel, String message) {
+                    int separator = message.indexOf('|');
+                    if (separator <= 0 || message.regionMatches(0, nodeId, 0, separator)
+                            && separator == nodeId.length()) {
+                        return; // Malformed, or our own - already delivered locally
+                    }
+                    deliver(message.substring(separator + 1), false);
+                }
+            };
+            subscription = pubSub;
+
+            try (Jedis jedis = redisManager.openDedicatedConnection()) {
+                backoffMs = 500;
+                jedis.subscribe(pubSub, channel); // Blocks until unsubscribed or disconnected
+            } catch (Exception e) {
+                if (closed) {
+                    break;
+                }
+                logger.warn("📣 Invalidation subscription lost, retrying in {}ms: {}", backoffMs, e.getMessage());
+                sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+            reconnect = true;
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
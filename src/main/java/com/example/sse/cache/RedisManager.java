@@ -2,23 +2,69 @@ package com.example.sse.cache;
 
 import com.example.sse.config.ConfigManager;
 import com.example.sse.exception.ServiceException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sse.util.BackendExecutors;
+import com.example.sse.util.BackendGuard;
+import com.example.sse.util.BackendHealth;
+import com.example.sse.util.JsonCodec;
+import com.example.sse.util.JsonCodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 public class RedisManager implements CacheProvider {
     private static final Logger logger = LoggerFactory.getLogger(RedisManager.class);
     private static RedisManager instance;
     private JedisPool jedisPool;
-    private final ObjectMapper objectMapper;
+    // Non-blocking transport behind the *Async methods; null falls back to the
+    // pooled client on the caller's thread
+    private AsyncRedisClient asyncClient;
     private String cachePrefix;
+    // Every value written is encoded and every value read decoded here, so
+    // callers and the batcher only see plain strings
+    private final ValueCodec codec = VersionedValueCodec.fromConfig();
+
+    // Kept for dedicated (non-pooled) connections such as pub/sub subscriptions
+    private String host;
+    private int port;
+    private String password;
+    private int database;
+    private int timeout;
+
+    // Outcomes of real calls feed the passive health state
+    private final BackendHealth health = BackendHealth.cache();
+    private final BackendGuard guard = BackendGuard.fromConfig("redis", "redis",
+            BackendExecutors.redisConcurrency(), 200, 50);
+    // The async transport is not limited by the pool: same breaker, its own
+    // cap on pipelines in flight (redis.async.max.inflight)
+    private BackendGuard asyncGuard;
 
     private RedisManager() {
         initializeRedisPool();
-        objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Pre-built pool, no connection test - for benchmarks and tests that only
+     * exercise (de)serialization.
+     */
+    RedisManager(JedisPool jedisPool, String cachePrefix) {
+        this.jedisPool = jedisPool;
+        this.cachePrefix = cachePrefix;
     }
 
     public static synchronized RedisManager getInstance() {
@@ -34,12 +80,6 @@ public class RedisManager implements CacheProvider {
         // Check if running in Cloud Run environment
         boolean isCloudRun = System.getenv("REDIS_HOST") != null;
 
-        String host;
-        int port;
-        String password;
-        int database;
-        int timeout;
-
         if (isCloudRun) {
             // Cloud Run environment - use environment variables
             host = System.getenv("REDIS_HOST");
@@ -110,41 +150,138 @@ public class RedisManager implements CacheProvider {
             logger.error("Failed to initialize Redis pool", e);
             throw new ServiceException(ServiceException.ServiceType.CACHE, "Redis initialization failed", e);
         }
+
+        if (config.getBooleanProperty("redis.async.enabled", true)) {
+            asyncClient = new AsyncRedisClient(host, port, password, database, timeout,
+                    config.getLongProperty("redis.async.command.timeout", timeout),
+                    config.getIntProperty("redis.async.max.pending", 10000));
+            asyncGuard = guard.withBulkhead("redis-async",
+                    config.getIntProperty("redis.async.max.inflight", 256), 0);
+            logger.info("Async Redis transport enabled (single pipelined connection)");
+        }
     }
 
     private String prefixKey(String key) {
         return cachePrefix + key;
     }
 
-    @Override
-    public String get(String key) {
-        String prefixedKey = prefixKey(key);
+    /**
+     * Run one Redis command under the circuit breaker and bulkhead. While the
+     * breaker is open or the bulkhead is full the command is not sent and
+     * fallback is returned immediately, so callers fall through to the next
+     * tier instead of waiting on the pool.
+     */
+    private <T> T execute(String errorMessage, Object errorArg, Function<Jedis, T> command, T fallback) {
+        BackendGuard.Permit permit = guard.tryAcquire();
+        if (permit == null) {
+            return fallback;
+        }
         try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.get(prefixedKey);
+            T result = command.apply(jedis);
+            permit.success();
+            health.recordSuccess();
+            return result;
         } catch (Exception e) {
-            logger.error("Error getting value from Redis for key: {}", prefixedKey, e);
-            return null;
+            permit.failure();
+            health.recordFailure(e);
+            logger.error(errorMessage, errorArg, e);
+            return fallback;
         }
     }
 
+    /**
+     * Send commands as one pipeline on the async transport under the same
+     * breaker as execute(), but not its bulkhead - that is sized for the
+     * Jedis pool, while the async transport multiplexes one connection. Its
+     * own in-flight limit is never waited on: a full limit or open breaker
+     * completes with fallback at once, and so does any failure, after it has
+     * been recorded. One permit covers the whole pipeline. Completes on the
+     * transport's IO thread.
+     */
+    private <T> CompletionStage<T> executeAsync(String errorMessage, Object errorArg, List<String[]> commands,
+            Function<List<Object>, T> mapper, T fallback) {
+        BackendGuard.Permit permit = asyncGuard.tryAcquireNow();
+        if (permit == null) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+
+        List<CompletableFuture<Object>> replies = asyncClient.sendAll(commands);
+        return CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).handle((ignored, error) -> {
+            try {
+                if (error != null) {
+                    throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                }
+                List<Object> values = new ArrayList<>(replies.size());
+                for (CompletableFuture<Object> reply : replies) {
+                    values.add(reply.join());
+                }
+                T result = mapper.apply(values);
+                permit.success();
+                health.recordSuccess();
+                return result;
+            } catch (Throwable e) {
+                permit.failure();
+                health.recordFailure(e);
+                logger.error(errorMessage, errorArg, e);
+                return fallback;
+            }
+        });
+    }
+
+    /**
+     * False while the Redis circuit breaker is open.
+     */
+    @Override
+    public boolean isCallPermitted() {
+        return guard.isCallPermitted();
+    }
+
+    @Override
+    public Map<String, Object> getGuardStats() {
+        Map<String, Object> stats = guard.stats();
+        if (asyncGuard != null) {
+            Map<String, Object> async = asyncGuard.stats();
+            stats.put("async_bulkhead_max_concurrent", async.get("bulkhead_max_concurrent"));
+            stats.put("async_bulkhead_in_use", async.get("bulkhead_in_use"));
+            stats.put("async_bulkhead_rejections", async.get("bulkhead_rejections"));
+        }
+        return stats;
+    }
+
+    @Override
+    public String get(String key) {
+        String prefixedKey = prefixKey(key);
+        return execute("Error getting value from Redis for key: {}", prefixedKey,
+                jedis -> codec.decode(jedis.get(prefixedKey)), null);
+    }
+
+    /**
+     * GET and PTTL in one pipelined round trip.
+     */
+    @Override
+    public CachedValue getWithTtl(String key) {
+        String prefixedKey = prefixKey(key);
+        return execute("Error getting value with TTL from Redis for key: {}", prefixedKey, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            Response<String> value = pipeline.get(prefixedKey);
+            Response<Long> ttl = pipeline.pttl(prefixedKey);
+            pipeline.sync();
+            return toCachedValue(value.get(), ttl.get());
+        }, null);
+    }
+
     @Override
     public void set(String key, String value) {
         String prefixedKey = prefixKey(key);
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.set(prefixedKey, value);
-        } catch (Exception e) {
-            logger.error("Error setting value in Redis for key: {}", prefixedKey, e);
-        }
+        execute("Error setting value in Redis for key: {}", prefixedKey,
+                jedis -> jedis.set(prefixedKey, codec.encode(value)), null);
     }
 
     @Override
     public void set(String key, String value, long ttlSeconds) {
         String prefixedKey = prefixKey(key);
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.setex(prefixedKey, (int) ttlSeconds, value);
-        } catch (Exception e) {
-            logger.error("Error setting value with TTL in Redis for key: {}", prefixedKey, e);
-        }
+        execute("Error setting value with TTL in Redis for key: {}", prefixedKey,
+                jedis -> jedis.setex(prefixedKey, (int) ttlSeconds, codec.encode(value)), null);
     }
 
     @Override
@@ -152,7 +289,7 @@ public class RedisManager implements CacheProvider {
         try {
             String json = get(key);
             if (json != null) {
-                return objectMapper.readValue(json, clazz);
+                return decodeObject(json, JsonCodecs.of(clazz));
             }
         } catch (Exception e) {
             logger.error("Error deserializing object from Redis for key: {}", prefixKey(key), e);
@@ -160,10 +297,14 @@ public class RedisManager implements CacheProvider {
         return null;
     }
 
+    <T> T decodeObject(String json, JsonCodec<T> codec) throws IOException {
+        return codec.read(json);
+    }
+
     @Override
     public void setObject(String key, Object value) {
         try {
-            String json = objectMapper.writeValueAsString(value);
+            String json = JsonCodecs.mapper().writeValueAsString(value);
             set(key, json);
         } catch (Exception e) {
             logger.error("Error serializing object to Redis for key: {}", prefixKey(key), e);
@@ -173,7 +314,7 @@ public class RedisManager implements CacheProvider {
     @Override
     public void setObject(String key, Object value, long ttlSeconds) {
         try {
-            String json = objectMapper.writeValueAsString(value);
+            String json = JsonCodecs.mapper().writeValueAsString(value);
             set(key, json, ttlSeconds);
         } catch (Exception e) {
             logger.error("Error serializing object with TTL to Redis for key: {}", prefixKey(key), e);
@@ -183,22 +324,223 @@ public class RedisManager implements CacheProvider {
     @Override
     public boolean exists(String key) {
         String prefixedKey = prefixKey(key);
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.exists(prefixedKey);
-        } catch (Exception e) {
-            logger.error("Error checking existence in Redis for key: {}", prefixedKey, e);
-            return false;
-        }
+        return execute("Error checking existence in Redis for key: {}", prefixedKey,
+                jedis -> jedis.exists(prefixedKey), false);
     }
 
     @Override
     public void delete(String key) {
         String prefixedKey = prefixKey(key);
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.del(prefixedKey);
-        } catch (Exception e) {
-            logger.error("Error deleting key from Redis: {}", prefixedKey, e);
+        execute("Error deleting key from Redis: {}", prefixedKey, jedis -> jedis.del(prefixedKey), null);
+    }
+
+    /**
+     * Single MGET.
+     */
+    @Override
+    public List<String> getMany(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
         }
+        return execute("Error getting {} values from Redis", keys.size(),
+                jedis -> decodeAll(jedis.mget(prefixKeys(keys))), Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * GET + PTTL for every key in one pipeline.
+     */
+    @Override
+    public List<CachedValue> getManyWithTtl(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return execute("Error getting {} values with TTL from Redis", keys.size(), jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<String>> values = new ArrayList<>(keys.size());
+            List<Response<Long>> ttls = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                String prefixedKey = prefixKey(key);
+                values.add(pipeline.get(prefixedKey));
+                ttls.add(pipeline.pttl(prefixedKey));
+            }
+            pipeline.sync();
+
+            List<CachedValue> results = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                results.add(toCachedValue(values.get(i).get(), ttls.get(i).get()));
+            }
+            return results;
+        }, Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * SETEX for every entry in one pipeline.
+     */
+    @Override
+    public void setMany(Map<String, String> entries, long ttlSeconds) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        execute("Error setting {} values in Redis", entries.size(), jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                pipeline.setex(prefixKey(entry.getKey()), ttlSeconds, codec.encode(entry.getValue()));
+            }
+            pipeline.sync();
+            return null;
+        }, null);
+    }
+
+    /**
+     * Single multi-key DEL.
+     */
+    @Override
+    public void deleteMany(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        execute("Error deleting {} keys from Redis", keys.size(), jedis -> jedis.del(prefixKeys(keys)), null);
+    }
+
+    // === Asynchronous operations - non-blocking transport when enabled ===
+
+    @Override
+    public CompletionStage<String> getAsync(String key) {
+        if (asyncClient == null) {
+            return CacheProvider.super.getAsync(key);
+        }
+        String prefixedKey = prefixKey(key);
+        return executeAsync("Error getting value from Redis for key: {}", prefixedKey,
+                List.<String[]>of(new String[] { "GET", prefixedKey }), values -> codec.decode((String) values.get(0)), null);
+    }
+
+    @Override
+    public CompletionStage<Void> setAsync(String key, String value, long ttlSeconds) {
+        if (asyncClient == null) {
+            return CacheProvider.super.setAsync(key, value, ttlSeconds);
+        }
+        String prefixedKey = prefixKey(key);
+        return executeAsync("Error setting value with TTL in Redis for key: {}", prefixedKey,
+                List.<String[]>of(new String[] { "SETEX", prefixedKey, Long.toString(ttlSeconds), codec.encode(value) }),
+                values -> null, null);
+    }
+
+    /**
+     * Single MGET.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletionStage<List<String>> getManyAsync(List<String> keys) {
+        if (asyncClient == null) {
+            return CacheProvider.super.getManyAsync(keys);
+        }
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        String[] command = new String[keys.size() + 1];
+        command[0] = "MGET";
+        System.arraycopy(prefixKeys(keys), 0, command, 1, keys.size());
+        return executeAsync("Error getting {} values from Redis", keys.size(), List.<String[]>of(command),
+                values -> decodeAll((List<String>) (List<?>) values.get(0)), Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * GET + PTTL for every key in one pipeline.
+     */
+    @Override
+    public CompletionStage<List<CachedValue>> getManyWithTtlAsync(List<String> keys) {
+        if (asyncClient == null) {
+            return CacheProvider.super.getManyWithTtlAsync(keys);
+        }
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        List<String[]> commands = new ArrayList<>(keys.size() * 2);
+        for (String key : keys) {
+            String prefixedKey = prefixKey(key);
+            commands.add(new String[] { "GET", prefixedKey });
+            commands.add(new String[] { "PTTL", prefixedKey });
+        }
+        return executeAsync("Error getting {} values with TTL from Redis", keys.size(), commands, values -> {
+            List<CachedValue> results = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                results.add(toCachedValue((String) values.get(2 * i), (Long) values.get(2 * i + 1)));
+            }
+            return results;
+        }, Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * SETEX for every entry in one pipeline.
+     */
+    @Override
+    public CompletionStage<Void> setManyAsync(Map<String, String> entries, long ttlSeconds) {
+        if (asyncClient == null) {
+            return CacheProvider.super.setManyAsync(entries, ttlSeconds);
+        }
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String ttl = Long.toString(ttlSeconds);
+        List<String[]> commands = new ArrayList<>(entries.size());
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            commands.add(new String[] { "SETEX", prefixKey(entry.getKey()), ttl, codec.encode(entry.getValue()) });
+        }
+        return executeAsync("Error setting {} values in Redis", entries.size(), commands, values -> null, null);
+    }
+
+    private CachedValue toCachedValue(String stored, Long ttlMs) {
+        String value = codec.decode(stored);
+        if (value == null) {
+            return null;
+        }
+        return new CachedValue(value, ttlMs != null && ttlMs >= 0 ? ttlMs : CachedValue.NO_EXPIRY);
+    }
+
+    /**
+     * PUBLISH under the same breaker as other commands.
+     */
+    void publish(String channel, String message) {
+        execute("Error publishing to Redis channel: {}", channel, jedis -> jedis.publish(channel, message), null);
+    }
+
+    /**
+     * New connection outside the pool with no read timeout, for blocking
+     * subscriptions. The caller closes it.
+     */
+    Jedis openDedicatedConnection() {
+        DefaultJedisClientConfig.Builder clientConfig = DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(timeout)
+                .socketTimeoutMillis(0)
+                .database(database);
+        if (password != null && !password.trim().isEmpty()) {
+            clientConfig.password(password.trim());
+        }
+        return new Jedis(host, port, clientConfig.build());
+    }
+
+    /**
+     * Channel names get the same environment prefix as keys.
+     */
+    String prefixedChannel(String channel) {
+        return prefixKey(channel);
+    }
+
+    private List<String> decodeAll(List<String> stored) {
+        List<String> values = new ArrayList<>(stored.size());
+        for (String value : stored) {
+            values.add(codec.decode(value));
+        }
+        return values;
+    }
+
+    private String[] prefixKeys(Collection<String> keys) {
+        String[] prefixed = new String[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            prefixed[i++] = prefixKey(key);
+        }
+        return prefixed;
     }
 
     @Override
@@ -207,13 +549,17 @@ public class RedisManager implements CacheProvider {
             String response = jedis.ping();
             return "PONG".equals(response);
         } catch (Exception e) {
-            logger.error("Redis health check failed", e);
+            // Probed periodically while Redis is down - keep it to one line
+            logger.warn("Redis health check failed: {}", e.getMessage());
             return false;
         }
     }
 
     @Override
     public void close() {
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
         if (jedisPool != null && !jedisPool.isClosed()) {
             jedisPool.close();
             logger.info("Redis pool closed");
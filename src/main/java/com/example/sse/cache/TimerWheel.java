@@ -0,0 +1,82 @@
+package com.example.sse.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for {@link LocalCache} expiry.
+ *
+ * Each node sits in the bucket of the tick it expires in - or of the wheel's
+ * current tick if that has already passed, so a node that is due when it is
+ * scheduled is not parked in a bucket the wheel will only come back to a
+ * revolution later. Advancing the wheel visits the buckets from its current
+ * tick up to the new one, so expiring entries costs O(expired) instead of a
+ * scan over the whole map. Nodes further out than one revolution stay in
+ * their bucket until their own round comes up.
+ *
+ * Not thread-safe - only touched under the cache's eviction lock.
+ */
+final class TimerWheel<K, V> {
+    private final long tickMs;
+    private final int mask;
+    private final LocalCache.Node<K, V>[] buckets;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(int size, long tickMs, long now) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2));
+        this.tickMs = tickMs;
+        this.mask = capacity - 1;
+        this.buckets = (LocalCache.Node<K, V>[]) new LocalCache.Node<?, ?>[capacity];
+        for (int i = 0; i < capacity; i++) {
+            LocalCache.Node<K, V> sentinel = new LocalCache.Node<>(null, null, 0, 0);
+            sentinel.wheelPrev = sentinel;
+            sentinel.wheelNext = sentinel;
+            buckets[i] = sentinel;
+        }
+        this.currentTick = now / tickMs;
+    }
+
+    void schedule(LocalCache.Node<K, V> node) {
+        long tick = Math.max(node.expiresAt / tickMs, currentTick);
+        LocalCache.Node<K, V> sentinel = buckets[(int) (tick & mask)];
+        node.wheelPrev = sentinel.wheelPrev;
+        node.wheelNext = sentinel;
+        sentinel.wheelPrev.wheelNext = node;
+        sentinel.wheelPrev = node;
+    }
+
+    void deschedule(LocalCache.Node<K, V> node) {
+        if (node.wheelNext != null) {
+            node.wheelPrev.wheelNext = node.wheelNext;
+            node.wheelNext.wheelPrev = node.wheelPrev;
+            node.wheelNext = null;
+            node.wheelPrev = null;
+        }
+    }
+
+    /**
+     * Hand every node whose expiry time has passed to onExpired. The callback
+     * is expected to deschedule the node.
+     */
+    void advance(long now, Consumer<LocalCache.Node<K, V>> onExpired) {
+        long nowTick = now / tickMs;
+        if (nowTick <= currentTick) {
+            return;
+        }
+
+        // The current tick's bucket too: nodes due within it (or clamped to it) are still there
+        long steps = Math.min(nowTick - currentTick + 1, buckets.length);
+        for (long i = 0; i < steps; i++) {
+            LocalCache.Node<K, V> sentinel = buckets[(int) ((currentTick + i) & mask)];
+            LocalCache.Node<K, V> node = sentinel.wheelNext;
+            while (node != sentinel) {
+                LocalCache.Node<K, V> next = node.wheelNext;
+                if (node.expiresAt <= now) {
+                    onExpired.accept(node);
+                }
+                node = next;
+            }
+        }
+        currentTick = nowTick;
+    }
+}
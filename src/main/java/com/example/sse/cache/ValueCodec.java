@@ -0,0 +1,18 @@
+package com.example.sse.cache;
+
+/**
+ * Stored form of cache values. The provider encodes every value it writes
+ * and decodes every value it reads, so callers only ever see the original
+ * strings.
+ *
+ * decode must accept anything an older or differently configured instance
+ * may have written: untagged values (plain JSON, status strings) come back
+ * unchanged, and tagged values of an unknown version come back as null,
+ * which callers treat as a cache miss.
+ */
+public interface ValueCodec {
+
+    String encode(String value);
+
+    String decode(String stored);
+}
@@ -0,0 +1,121 @@
+package com.example.sse.cache;
+
+import com.example.sse.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Version-tagged codec: values of at least thresholdBytes are deflated and
+ * stored as "~Z1:&lt;length&gt;:&lt;base64&gt;", smaller ones (and anything that
+ * would not get smaller) as they are. Values stay strings because every
+ * Redis path here - pooled, pipelined and async - is string-typed; base64
+ * costs a third of the compressed size, which JSON payloads easily repay.
+ *
+ * Tagged values are decoded whether or not compression is enabled for
+ * writing. Compression is off by default: switch it on only once every
+ * instance reading the same Redis runs a build with this codec.
+ */
+public final class VersionedValueCodec implements ValueCodec {
+    private static final Logger logger = LoggerFactory.getLogger(VersionedValueCodec.class);
+
+    private static final String TAG_PREFIX = "~Z";
+    private static final String DEFLATE_TAG = "~Z1:";
+
+    private final boolean compress;
+    private final int thresholdBytes;
+    private final int level;
+
+    public VersionedValueCodec(boolean compress, int thresholdBytes, int level) {
+        this.compress = compress;
+        this.thresholdBytes = Math.max(0, thresholdBytes);
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    public static VersionedValueCodec fromConfig() {
+        ConfigManager config = ConfigManager.getInstance();
+        return new VersionedValueCodec(
+                config.getBooleanProperty("redis.codec.compress.enabled", false),
+                config.getIntProperty("redis.codec.compress.threshold", 2048),
+                config.getIntProperty("redis.codec.compress.level", Deflater.BEST_SPEED));
+    }
+
+    @Override
+    public String encode(String value) {
+        // length() never exceeds the UTF-8 size, so short values skip the encoding
+        if (!compress || value == null || value.length() < thresholdBytes) {
+            return value;
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        String encoded = DEFLATE_TAG + raw.length + ":" + Base64.getEncoder().encodeToString(deflate(raw));
+        return encoded.length() < raw.length ? encoded : value;
+    }
+
+    @Override
+    public String decode(String stored) {
+        if (stored == null || !stored.startsWith(TAG_PREFIX)) {
+            return stored;
+        }
+        if (!stored.startsWith(DEFLATE_TAG)) {
+            logger.debug("Unknown cache value format: {}", stored.substring(0, Math.min(8, stored.length())));
+            return null;
+        }
+
+        try {
+            int separator = stored.indexOf(':', DEFLATE_TAG.length());
+            int length = Integer.parseInt(stored, DEFLATE_TAG.length(), separator, 10);
+            byte[] compressed = Base64.getDecoder().decode(stored.substring(separator + 1));
+            return new String(inflate(compressed, length), StandardCharsets.UTF_8);
+        } catch (RuntimeException | DataFormatException e) {
+            logger.warn("Corrupt compressed cache value: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, raw.length / 4)];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            return Arrays.copyOf(buffer, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[length];
+            int size = 0;
+            while (size < length) {
+                int n = inflater.inflate(raw, size, length - size);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != length) {
+                throw new DataFormatException("expected " + length + " bytes, got " + size);
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+}
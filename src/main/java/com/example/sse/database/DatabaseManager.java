@@ -2,6 +2,10 @@ package com.example.sse.database;
 
 import com.example.sse.config.ConfigManager;
 import com.example.sse.exception.ServiceException;
+import com.example.sse.util.BackendExecutors;
+import com.example.sse.util.BackendGuard;
+import com.example.sse.util.BackendHealth;
+import com.example.sse.util.Deadline;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
@@ -9,6 +13,9 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,6 +36,13 @@ public class DatabaseManager implements DatabaseProvider {
     private final AtomicLong connectionErrors = new AtomicLong(0);
     private volatile long initTime = 0;
 
+    // Connection acquisition outcomes feed the passive health state
+    private final BackendHealth health = BackendHealth.database();
+
+    // Circuit breaker + bulkhead; a permit is held until the connection is closed
+    private final BackendGuard guard = BackendGuard.fromConfig("database", "db",
+            BackendExecutors.databaseConcurrency(), 1000, 500);
+
     // Environment Detection
     public static final boolean IS_CLOUD_RUN = System.getenv("K_SERVICE") != null ||
             System.getenv("GAE_APPLICATION") != null ||
@@ -286,6 +300,11 @@ public class DatabaseManager implements DatabaseProvider {
         config.addDataSourceProperty("elideSetAutoCommits", "true");
         config.addDataSourceProperty("maintainTimeStats", "false");
         config.addDataSourceProperty("useLocalSessionState", "true");
+        // Session snapshots send their statements in one round trip. Every
+        // query here is parameterized, so this opens no injection path
+        if (ConfigManager.getInstance().getBooleanProperty("mysql.cms.allow.multi.queries", true)) {
+            config.addDataSourceProperty("allowMultiQueries", "true");
+        }
 
         // Timeouts
         config.addDataSourceProperty("connectTimeout", IS_CLOUD_RUN ? "10000" : "5000");
@@ -395,6 +414,18 @@ public class DatabaseManager implements DatabaseProvider {
             throw new SQLException("Database connection pool is not available");
         }
 
+        // Nobody is waiting for the result any more - don't take a connection
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            throw new SQLTimeoutException("Request deadline passed before getting a connection");
+        }
+
+        // Fail fast instead of queueing on the pool while MySQL is struggling
+        BackendGuard.Permit permit = guard.tryAcquire();
+        if (permit == null) {
+            throw new SQLTransientConnectionException("Database unavailable: " + guard);
+        }
+
         long requestId = connectionRequests.incrementAndGet();
         long startTime = System.currentTimeMillis();
 
@@ -405,6 +436,7 @@ public class DatabaseManager implements DatabaseProvider {
             if (conn == null) {
                 throw new SQLException("Failed to obtain connection from pool");
             }
+            health.recordSuccess();
 
             // Log slow connection acquisitions
             if (getTime > 100) {
@@ -413,15 +445,30 @@ public class DatabaseManager implements DatabaseProvider {
                 logger.debug("⚡ Fast connection: {}ms (request #{})", getTime, requestId);
             }
 
-            return conn;
+            return GuardedConnection.wrap(conn, permit);
 
         } catch (SQLException e) {
+            permit.failure();
             connectionErrors.incrementAndGet();
+            health.recordFailure(e);
             logger.error("❌ Failed to get connection (request #{}): {}", requestId, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * False while the database circuit breaker is open.
+     */
+    @Override
+    public boolean isCallPermitted() {
+        return guard.isCallPermitted();
+    }
+
+    @Override
+    public Map<String, Object> getGuardStats() {
+        return guard.stats();
+    }
+
     @Override
     public boolean isHealthy() {
         if (!initialized || dataSource == null || dataSource.isClosed()) {
@@ -429,7 +476,8 @@ public class DatabaseManager implements DatabaseProvider {
             return false;
         }
 
-        try (Connection connection = getConnection()) {
+        // Straight from the pool: a probe must not be refused by the bulkhead or an open breaker
+        try (Connection connection = dataSource.getConnection()) {
             if (connection == null || connection.isClosed()) {
                 logger.debug("Database health check failed - Connection not available");
                 return false;
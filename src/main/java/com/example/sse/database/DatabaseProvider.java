@@ -2,6 +2,7 @@ package com.example.sse.database;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Updated DatabaseProvider interface with connection pool support
@@ -17,6 +18,21 @@ public interface DatabaseProvider {
      */
     boolean isHealthy();
 
+    /**
+     * False while the circuit breaker is open - callers should skip the
+     * database and serve cached or fallback data instead
+     */
+    default boolean isCallPermitted() {
+        return true;
+    }
+
+    /**
+     * Circuit breaker and bulkhead state (if supported)
+     */
+    default Map<String, Object> getGuardStats() {
+        return Map.of();
+    }
+
     /**
      * Get the number of active connections
      */
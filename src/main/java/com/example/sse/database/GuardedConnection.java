@@ -0,0 +1,112 @@
+package com.example.sse.database;
+
+import com.example.sse.util.BackendGuard;
+import com.example.sse.util.Deadline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+
+/**
+ * Connection handed out under a {@link BackendGuard} permit.
+ *
+ * The permit (bulkhead slot) is held for as long as the caller holds the
+ * connection and is returned on close(), reporting the whole borrow as one
+ * call to the circuit breaker: slow if the connection was held long, failed
+ * if any statement hit a connection-level or transient error (timeouts,
+ * lost connections). Plain query errors such as bad SQL say nothing about
+ * the backend's health and are not counted.
+ *
+ * Statements created while a {@link Deadline} is bound to the thread get the
+ * remaining time as their query timeout and stay registered with the deadline
+ * until closed, so a caller that gives up can cancel them.
+ */
+final class GuardedConnection implements InvocationHandler {
+    private final Connection delegate;
+    private final BackendGuard.Permit permit;
+    private volatile boolean failed;
+
+    private GuardedConnection(Connection delegate, BackendGuard.Permit permit) {
+        this.delegate = delegate;
+        this.permit = permit;
+    }
+
+    static Connection wrap(Connection delegate, BackendGuard.Permit permit) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new GuardedConnection(delegate, permit));
+    }
+
+    static boolean isBackendFailure(Throwable error) {
+        if (error instanceof SQLTransientException
+                || error instanceof SQLRecoverableException
+                || error instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        if (error instanceof SQLException sqlError) {
+            String state = sqlError.getSQLState();
+            return state != null && state.startsWith("08"); // Connection exception class
+        }
+        return false;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            try {
+                delegate.close();
+            } finally {
+                if (failed) {
+                    permit.failure();
+                } else {
+                    permit.success();
+                }
+            }
+            return null;
+        }
+
+        Object result = call(delegate, method, args);
+        if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                applyDeadline(statement, deadline);
+            }
+            // Statement, PreparedStatement and CallableStatement all report back here
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { method.getReturnType() }, (p, m, a) -> {
+                        if (deadline != null && "close".equals(m.getName()) && m.getParameterCount() == 0) {
+                            deadline.unregister(statement);
+                        }
+                        return call(statement, m, a);
+                    });
+        }
+        return result;
+    }
+
+    private void applyDeadline(Statement statement, Deadline deadline) throws SQLException {
+        if (!deadline.register(statement)) {
+            statement.close();
+            throw new SQLTimeoutException("Request deadline passed before the query started");
+        }
+        statement.setQueryTimeout(deadline.queryTimeoutSeconds());
+    }
+
+    private Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (isBackendFailure(cause)) {
+                failed = true;
+            }
+            throw cause;
+        }
+    }
+}
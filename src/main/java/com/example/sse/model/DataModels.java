@@ -3,6 +3,7 @@ package com.example.sse.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
+import java.util.Map;
 
 public class DataModels {
 
@@ -307,6 +308,92 @@ public class DataModels {
         }
     }
 
+    /**
+     * Everything a streaming topic (type + type_id) needs for one refresh,
+     * independent of the viewing user. Per-user fields are derived from it:
+     * own unapproved comments are filtered out of {@code comments} and
+     * is_answered comes from {@code answersByUser}.
+     */
+    public static class TopicSnapshot {
+        private final List<CommentData> comments;
+        private final List<SurveyData> surveys;
+        private final Map<Long, Map<Long, Long>> answersByUser;
+        private final long answerWatermark;
+        private final long answersLoadedAt;
+        private final String sessionStatus;
+
+        public TopicSnapshot(List<CommentData> comments, List<SurveyData> surveys,
+                Map<Long, Map<Long, Long>> answersByUser, long answerWatermark, long answersLoadedAt,
+                String sessionStatus) {
+            this.comments = comments;
+            this.surveys = surveys;
+            this.answersByUser = answersByUser;
+            this.answerWatermark = answerWatermark;
+            this.answersLoadedAt = answersLoadedAt;
+            this.sessionStatus = sessionStatus;
+        }
+
+        /** The topic's comment window ordered by id, approved or not */
+        public List<CommentData> getComments() {
+            return comments;
+        }
+
+        /** Session polls with is_answered = 0 */
+        public List<SurveyData> getSurveys() {
+            return surveys;
+        }
+
+        /**
+         * user_master_id -> (survey_id -> answer id); read-only, and the same
+         * instance as the previous snapshot's while no answer changed
+         */
+        public Map<Long, Map<Long, Long>> getAnswersByUser() {
+            return answersByUser;
+        }
+
+        /** Highest cme_survey_user_answer id in answersByUser */
+        public long getAnswerWatermark() {
+            return answerWatermark;
+        }
+
+        /** When answersByUser was last loaded in full rather than extended */
+        public long getAnswersLoadedAt() {
+            return answersLoadedAt;
+        }
+
+        public String getSessionStatus() {
+            return sessionStatus;
+        }
+    }
+
+    /**
+     * One user's view of a session: visible comments, polls with that user's
+     * is_answered, and the session status.
+     */
+    public static class SessionData {
+        private final List<CommentData> comments;
+        private final List<SurveyData> surveys;
+        private final String sessionStatus;
+
+        public SessionData(List<CommentData> comments, List<SurveyData> surveys, String sessionStatus) {
+            this.comments = comments;
+            this.surveys = surveys;
+            this.sessionStatus = sessionStatus;
+        }
+
+        public List<CommentData> getComments() {
+            return comments;
+        }
+
+        public List<SurveyData> getSurveys() {
+            return surveys;
+        }
+
+        public String getSessionStatus() {
+            return sessionStatus;
+        }
+    }
+
     public static class ErrorResponse {
         private String message;
         private int code;
@@ -0,0 +1,201 @@
+package com.example.sse.service;
+
+import com.example.sse.database.DatabaseProvider;
+import com.example.sse.model.DataModels.RegionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * The whole master_country table held in memory, indexed by iso and by
+ * country_id.
+ *
+ * The table is small and almost never changes, so it is loaded once at
+ * startup and lookups are plain map reads against an immutable snapshot -
+ * no Redis, no database, no health checks. A lookup on a snapshot older than
+ * the refresh interval starts one reload on a background thread (no timer,
+ * so an idle instance does no work) and still answers from the current
+ * snapshot. A reload swaps in a new snapshot only if the rows changed, and
+ * the snapshot version counts those changes.
+ *
+ * RegionInfo instances handed out are shared and must be treated as
+ * read-only.
+ */
+final class CountryIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CountryIndex.class);
+
+    // Ordered, so the checksum over the rows only changes when they do
+    private static final String ALL_COUNTRIES_SQL = "SELECT country_id, iso, time_zone FROM master_country " +
+            "ORDER BY country_id";
+
+    // Retry delay after a failed load, so a down database is not hammered
+    private static final long RETRY_INTERVAL_MS = 5000;
+
+    private static final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prod-refdata");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Supplier<DatabaseProvider> databaseProvider;
+    private final long refreshIntervalMs;
+
+    private volatile Snapshot snapshot; // null until the first successful load
+    private volatile long nextLoadAt; // 0 - due right away
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder unchangedLoads = new LongAdder();
+    private final LongAdder failedLoads = new LongAdder();
+
+    CountryIndex(Supplier<DatabaseProvider> databaseProvider, long refreshIntervalMs) {
+        this.databaseProvider = databaseProvider;
+        this.refreshIntervalMs = Math.max(1000, refreshIntervalMs);
+    }
+
+    /**
+     * False until the table has been loaded once; callers fall back to their
+     * own lookup until then.
+     */
+    boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Region for an ISO code (case-insensitive, like the column), or null if
+     * the table has no such country or is not loaded yet.
+     */
+    RegionInfo byIso(String iso) {
+        Snapshot current = current();
+        return current != null && iso != null ? current.byIso.get(iso.trim().toUpperCase(Locale.ROOT)) : null;
+    }
+
+    RegionInfo byCountryId(String countryId) {
+        Snapshot current = current();
+        return current != null && countryId != null ? current.byCountryId.get(countryId.trim()) : null;
+    }
+
+    /**
+     * Load the table now on the calling thread; false if it could not be read.
+     */
+    synchronized boolean load() {
+        DatabaseProvider provider = databaseProvider.get();
+        if (provider == null) {
+            return false;
+        }
+
+        Map<String, RegionInfo> byIso = new HashMap<>();
+        Map<String, RegionInfo> byCountryId = new HashMap<>();
+        CRC32 checksum = new CRC32();
+        try (Connection conn = provider.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(ALL_COUNTRIES_SQL)) {
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                String countryId = rs.getString("country_id");
+                String iso = rs.getString("iso");
+                String timeZone = rs.getString("time_zone");
+
+                RegionInfo region = new RegionInfo(timeZone);
+                if (iso != null) {
+                    byIso.put(iso.trim().toUpperCase(Locale.ROOT), region);
+                }
+                if (countryId != null) {
+                    byCountryId.put(countryId.trim(), region);
+                }
+                checksum.update((countryId + "|" + iso + "|" + timeZone + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (SQLException e) {
+            failedLoads.increment();
+            nextLoadAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+            logger.warn("Error loading master_country: {}", e.getMessage());
+            return false;
+        }
+
+        loads.increment();
+        long now = System.currentTimeMillis();
+        nextLoadAt = now + refreshIntervalMs;
+        Snapshot previous = snapshot;
+        long contentHash = checksum.getValue();
+        if (previous != null && previous.contentHash == contentHash) {
+            unchangedLoads.increment();
+            snapshot = previous.reloadedAt(now);
+            return true;
+        }
+
+        long version = previous != null ? previous.version + 1 : 1;
+        snapshot = new Snapshot(version, contentHash, now, Map.copyOf(byIso), Map.copyOf(byCountryId));
+        logger.info("master_country loaded: {} countries (version {})", byCountryId.size(), version);
+        return true;
+    }
+
+    Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        stats.put("version", current != null ? current.version : 0);
+        stats.put("countries", current != null ? current.byCountryId.size() : 0);
+        stats.put("age_ms", current != null ? System.currentTimeMillis() - current.loadedAt : -1);
+        stats.put("loads", loads.sum());
+        stats.put("unchanged_loads", unchangedLoads.sum());
+        stats.put("failed_loads", failedLoads.sum());
+        return stats;
+    }
+
+    /**
+     * Current snapshot; starts a background reload when one is due.
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (System.currentTimeMillis() >= nextLoadAt && refreshing.compareAndSet(false, true)) {
+            try {
+                refresher.execute(() -> {
+                    try {
+                        load();
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.set(false);
+            }
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final long contentHash;
+        final long loadedAt;
+        final Map<String, RegionInfo> byIso;
+        final Map<String, RegionInfo> byCountryId;
+
+        Snapshot(long version, long contentHash, long loadedAt, Map<String, RegionInfo> byIso,
+                Map<String, RegionInfo> byCountryId) {
+            this.version = version;
+            this.contentHash = contentHash;
+            this.loadedAt = loadedAt;
+            this.byIso = byIso;
+            this.byCountryId = byCountryId;
+        }
+
+        Snapshot reloadedAt(long time) {
+            return new Snapshot(version, contentHash, time, byIso, byCountryId);
+        }
+    }
+}
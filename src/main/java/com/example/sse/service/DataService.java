@@ -2,10 +2,17 @@ package com.example.sse.service;
 
 import com.example.sse.model.DataModels.CommentData;
 import com.example.sse.model.DataModels.RegionInfo;
+import com.example.sse.model.DataModels.SessionData;
 import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.model.DataModels.TopicSnapshot;
 import com.example.sse.model.DataModels.UserStatus;
+import com.example.sse.util.Deadline;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface DataService {
     boolean isInitialized();
@@ -14,6 +21,10 @@ public interface DataService {
 
     boolean isRedisReady();
 
+    /**
+     * Status served from the in-process cache when present; the returned
+     * instance may be shared and must not be modified.
+     */
     UserStatus getUserStatus(Long userId);
 
     RegionInfo getRegionInfo(String regionCode);
@@ -22,11 +33,67 @@ public interface DataService {
 
     List<SurveyData> getStreamingPolls(String sessionId, Long userId);
 
+    /**
+     * The latest comments visible to the user - at most comments.tail.size
+     * of them, ordered by id.
+     */
     List<CommentData> getComments(Long userId, String typeId, String type);
 
+    /**
+     * Comments appended to out as a UTF-8 JSON array, without building the
+     * array as a byte[] first. Without beforeId this is the tail window of
+     * getComments; with it, the page of (at most as many) comments just older
+     * than that knwlg_session_qna_id. With incremental comments (the default)
+     * they are written straight from the topic comment cache's rows;
+     * otherwise the array is read from Redis as-is or streamed row by row
+     * from the database. Writes an empty array if the comments cannot be
+     * loaded; only a failing out throws.
+     */
+    void writeCommentsJson(Long userId, String typeId, String type, Long beforeId, OutputStream out)
+            throws IOException;
+
     void invalidateUserCache(Long userId);
 
     void invalidateSessionCache(String sessionId, Long userId);
 
+    void invalidateTopicCache(String typeId, String type);
+
     String getSessionStatus(String sessionId);
+
+    /**
+     * Shared view of a topic for the stream broadcaster. Poll answers are
+     * carried over from previous (the topic's last snapshot, or null) and
+     * only newer ones are loaded, with a full reload now and then.
+     */
+    TopicSnapshot getTopicSnapshot(String typeId, String type, TopicSnapshot previous);
+
+    /**
+     * Comments, polls and status of a session as seen by one user. Parts not
+     * found in the cache are loaded together on one connection.
+     */
+    SessionData getSessionData(Long userId, String sessionId);
+
+    // === Deadline-bound asynchronous variants ===
+    // Run on the caller's executor with the deadline bound to the worker
+    // thread; they fail with TimeoutException when it passes, and the
+    // statements still running for them are cancelled.
+
+    default CompletableFuture<List<CommentData>> getCommentsAsync(Long userId, String typeId, String type,
+            Deadline deadline, Executor executor) {
+        return deadline.supplyAsync(() -> getComments(userId, typeId, type), executor);
+    }
+
+    default CompletableFuture<List<SurveyData>> getStreamingPollsAsync(String sessionId, Long userId,
+            Deadline deadline, Executor executor) {
+        return deadline.supplyAsync(() -> getStreamingPolls(sessionId, userId), executor);
+    }
+
+    default CompletableFuture<SessionData> getSessionDataAsync(Long userId, String sessionId, Deadline deadline,
+            Executor executor) {
+        return deadline.supplyAsync(() -> getSessionData(userId, sessionId), executor);
+    }
+
+    default CompletableFuture<String> getSessionStatusAsync(String sessionId, Deadline deadline, Executor executor) {
+        return deadline.supplyAsync(() -> getSessionStatus(sessionId), executor);
+    }
 }
@@ -1,23 +1,45 @@
 package com.example.sse.service;
 
+import com.example.sse.cache.CacheBatcher;
 import com.example.sse.cache.CacheProvider;
 import com.example.sse.cache.CacheProviderFactory;
+import com.example.sse.cache.InvalidationBus;
 import com.example.sse.config.ConfigManager;
 import com.example.sse.database.DatabaseProvider;
 import com.example.sse.database.DatabaseProviderFactory;
 import com.example.sse.model.DataModels.CommentData;
 import com.example.sse.model.DataModels.RegionInfo;
+import com.example.sse.model.DataModels.SessionData;
 import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.model.DataModels.TopicSnapshot;
 import com.example.sse.model.DataModels.UserStatus;
+import com.example.sse.util.BackendHealth;
+import com.example.sse.util.Deadline;
+import com.example.sse.util.JsonCodec;
+import com.example.sse.util.JsonCodecs;
+import com.example.sse.util.SingleFlight;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class DataServiceImpl implements DataService {
     private static final Logger logger = LoggerFactory.getLogger(DataServiceImpl.class);
@@ -26,11 +48,98 @@ public class DataServiceImpl implements DataService {
 
     private volatile DatabaseProvider databaseProvider;
     private volatile CacheProvider cacheProvider;
+    private volatile CacheBatcher cacheBatcher;
     private final ConfigManager configManager;
     private volatile boolean initialized = false;
 
+    // Concurrent cache misses for the same key share one database load. It runs
+    // under its own deadline (mysql.cms.shared.load.timeout), each waiter only
+    // waits until its own, and its statements are cancelled once every waiter
+    // has timed out.
+    private final long sharedLoadTimeoutMs = ConfigManager.getInstance()
+            .getLongProperty("mysql.cms.shared.load.timeout", 8000);
+    private final SingleFlight<String, List<SurveyData>> pollLoads = new SingleFlight<>(sharedLoadTimeoutMs);
+    private final SingleFlight<String, List<CommentData>> commentLoads = new SingleFlight<>(sharedLoadTimeoutMs);
+    private final SingleFlight<String, byte[]> commentJsonLoads = new SingleFlight<>(sharedLoadTimeoutMs);
+    private final SingleFlight<String, String> sessionStatusLoads = new SingleFlight<>(sharedLoadTimeoutMs);
+    private final SingleFlight<String, Map<SessionPart, Object>> sessionDataLoads =
+            new SingleFlight<>(sharedLoadTimeoutMs);
+
+    private static final byte[] EMPTY_JSON_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+    // Rows go straight into the generator, so no per-value flush
+    private static final ObjectWriter COMMENT_WRITER = JsonCodecs.of(CommentData.class).writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    // Upper bound on waiting for a batched Redis read before falling back to the database
+    private static final long CACHE_READ_TIMEOUT_MS = 500;
+
+    // Visible comments for one user (approved ones plus the user's own): the
+    // last ? below a knwlg_session_qna_id, walked backwards on the id and
+    // returned in id order
+    private static final String USER_COMMENTS_SQL = "SELECT * FROM (SELECT " +
+            "ud.first_name, ud.last_name, ud.profile_image, " +
+            "cmnt.knwlg_session_qna_id, cmnt.user_master_id, cmnt.comment, " +
+            "cmnt.comment_approve_status, cmnt.status, cmnt.type_id, cmnt.type " +
+            "FROM knwlg_session_qna cmnt " +
+            "LEFT JOIN user_detail ud ON ud.user_master_id = cmnt.user_master_id " +
+            "WHERE (cmnt.user_master_id = ? OR cmnt.comment_approve_status = 1) " +
+            "AND cmnt.type_id = ? AND cmnt.type = ? AND cmnt.knwlg_session_qna_id < ? " +
+            "ORDER BY cmnt.knwlg_session_qna_id DESC LIMIT ?) page " +
+            "ORDER BY knwlg_session_qna_id ASC";
+
+    private static final String USER_POLLS_SQL = "SELECT csts.survey_id, csts.is_show, csts.is_answer_show, " +
+            "CASE WHEN sua.id IS NOT NULL THEN sua.id ELSE 0 END as is_answered " +
+            "FROM cme_streaming_to_survey csts " +
+            "LEFT JOIN cme_survey_user_answer sua ON (sua.survey_id = csts.survey_id AND sua.user_master_id = ?) " +
+            "WHERE csts.session_id = ?";
+
+    private static final String SESSION_STATUS_SQL =
+            "SELECT session_status FROM knwlg_sessions_V1 WHERE session_id = ?";
+
+    private static final long COMMENTS_CACHE_TTL = 30;
+    private static final long POLLS_CACHE_TTL = 30;
+
+    // Per-topic comment lists refreshed by high-watermark id (comments.incremental.enabled)
+    private final boolean incrementalComments;
+    private final TopicCommentCache commentCache;
+
+    // Connections accept several ;-separated statements (allowMultiQueries)
+    private final boolean multiQueries;
+
+    // User statuses in front of Redis, keyed by primitive user id
+    private final UserStatusCache userStatusCache;
+
+    // master_country held in memory; region lookups only fall back to Redis
+    // and the database until it has loaded
+    private final CountryIndex countryIndex;
+
+    // Comments per payload and per before_id page (comments.tail.size); all
+    // of them when not positive
+    private final int commentWindow;
+
+    // Stream snapshots reload poll answers in full this often, extending them by id in between
+    private final long answerReloadIntervalMs;
+
     private DataServiceImpl() {
         this.configManager = ConfigManager.getInstance();
+        this.incrementalComments = configManager.getBooleanProperty("comments.incremental.enabled", true);
+        this.multiQueries = configManager.getBooleanProperty("mysql.cms.allow.multi.queries", true);
+        int tailSize = configManager.getIntProperty("comments.tail.size", 200);
+        this.commentWindow = tailSize > 0 ? tailSize : Integer.MAX_VALUE;
+        this.answerReloadIntervalMs = configManager.getLongProperty("sse.stream.answers.reload.interval", 30000);
+        this.commentCache = new TopicCommentCache(() -> databaseProvider,
+                configManager.getLongProperty("comments.refresh.interval", 1000),
+                configManager.getLongProperty("comments.reconcile.interval", 30000),
+                configManager.getLongProperty("comments.cache.ttl", 600000),
+                configManager.getLongProperty("comments.cache.max.rows", 200000),
+                configManager.getIntProperty("comments.cache.max.topic.rows", 5000),
+                configManager.getIntProperty("comments.reconcile.rows", 500),
+                sharedLoadTimeoutMs);
+        this.countryIndex = new CountryIndex(() -> databaseProvider,
+                configManager.getLongProperty("reference.country.refresh.interval", 3600000));
+        this.userStatusCache = new UserStatusCache(
+                configManager.getIntProperty("cache.user.status.local.max.entries", 50000),
+                configManager.getLongProperty("cache.user.status.local.ttl", 60000));
         logger.info("DataService instance created");
         initializeAsync();
     }
@@ -56,8 +165,13 @@ public class DataServiceImpl implements DataService {
                 // Initialize database manager
                 try {
                     this.databaseProvider = DatabaseProviderFactory.getInstance();
-                    if (databaseProvider.isHealthy()) {
+                    DatabaseProvider provider = databaseProvider;
+                    BackendHealth.database().setProbe(provider::isHealthy);
+                    boolean dbHealthy = provider.isHealthy();
+                    BackendHealth.database().recordProbe(dbHealthy);
+                    if (dbHealthy) {
                         logger.info("Database manager ready");
+                        countryIndex.load();
                     } else {
                         logger.warn("Database manager not ready");
                     }
@@ -69,7 +183,13 @@ public class DataServiceImpl implements DataService {
                 // Initialize Redis manager
                 try {
                     this.cacheProvider = CacheProviderFactory.getInstance();
-                    if (cacheProvider.isHealthy()) {
+                    this.cacheBatcher = CacheProviderFactory.getBatcher();
+                    CacheProviderFactory.getInvalidationBus().subscribe(this::onInvalidate);
+                    CacheProvider provider = cacheProvider;
+                    BackendHealth.cache().setProbe(provider::isHealthy);
+                    boolean redisHealthy = provider.isHealthy();
+                    BackendHealth.cache().recordProbe(redisHealthy);
+                    if (redisHealthy) {
                         logger.info("Redis manager ready");
                     } else {
                         logger.warn("Redis manager not healthy");
@@ -77,6 +197,7 @@ public class DataServiceImpl implements DataService {
                 } catch (Exception e) {
                     logger.error("Redis manager initialization failed: {}", e.getMessage());
                     this.cacheProvider = null;
+                    this.cacheBatcher = null;
                 }
 
                 this.initialized = true;
@@ -98,18 +219,67 @@ public class DataServiceImpl implements DataService {
         return initialized;
     }
 
+    /**
+     * Passive health state and circuit breaker - no SELECT 1 on the request path.
+     */
     @Override
     public boolean isDatabaseReady() {
-        return databaseProvider != null && databaseProvider.isHealthy();
+        DatabaseProvider provider = databaseProvider;
+        return provider != null && provider.isCallPermitted() && BackendHealth.database().isHealthy();
     }
 
+    /**
+     * Passive health state and circuit breaker - no PING on the request path.
+     */
     @Override
     public boolean isRedisReady() {
-        return cacheProvider != null && cacheProvider.isHealthy();
+        CacheProvider provider = cacheProvider;
+        return provider != null && provider.isCallPermitted() && BackendHealth.cache().isHealthy();
+    }
+
+    /**
+     * Redis lookup through the shared batcher, so lookups running in parallel
+     * for one request (and across requests) go out as one pipeline.
+     */
+    private String readCached(String cacheKey) throws Exception {
+        return cacheBatcher.get(cacheKey).get(cacheWaitMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T readCached(String cacheKey, JsonCodec<T> codec) throws Exception {
+        return readCachedAsync(cacheKey, codec).get(cacheWaitMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> CompletableFuture<T> readCachedAsync(String cacheKey, JsonCodec<T> codec) {
+        return cacheBatcher.getObject(cacheKey, codec);
+    }
+
+    /**
+     * Cached value, or null if absent, unavailable or not there in time.
+     */
+    private <T> T awaitCached(CompletableFuture<T> cached, String cacheKey) {
+        try {
+            return cached.get(cacheWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("Error reading {} from Redis: {}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long cacheWaitMs() {
+        // Never wait past the request's deadline (if one is bound to this thread)
+        Deadline deadline = Deadline.current();
+        return deadline != null ? Math.min(CACHE_READ_TIMEOUT_MS, deadline.remainingMs()) : CACHE_READ_TIMEOUT_MS;
     }
 
     @Override
     public UserStatus getUserStatus(Long userId) {
+        if (userId != null) {
+            UserStatus local = userStatusCache.get(userId);
+            if (local != null) {
+                return local;
+            }
+        }
+
         if (!isDatabaseReady()) {
             logger.warn("Database not ready, cannot fetch user status for user: {}", userId);
             return null;
@@ -121,10 +291,10 @@ public class DataServiceImpl implements DataService {
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                UserStatus userStatus = cacheProvider.getObject(cacheKey, UserStatus.class);
+                UserStatus userStatus = readCached(cacheKey, JsonCodecs.USER_STATUS);
                 if (userStatus != null) {
                     logger.debug("User status found in cache for user: {}", userId);
-                    return userStatus;
+                    return cacheUserStatus(userId, userStatus);
                 }
             } catch (Exception e) {
                 logger.warn("Error reading from Redis cache: {}", e.getMessage());
@@ -156,7 +326,7 @@ public class DataServiceImpl implements DataService {
                     }
                 }
 
-                return userStatus;
+                return cacheUserStatus(userId, userStatus);
             }
         } catch (SQLException e) {
             logger.error("Error fetching user status for user: {}", userId, e);
@@ -165,8 +335,23 @@ public class DataServiceImpl implements DataService {
         return null;
     }
 
+    /**
+     * Keep a loaded status locally; returns it for the caller.
+     */
+    private UserStatus cacheUserStatus(long userId, UserStatus userStatus) {
+        if (userStatus.getStatus() != null) {
+            userStatusCache.put(userId, userStatus.getStatus(), userStatus.getCountryCode());
+        }
+        return userStatus;
+    }
+
     @Override
     public RegionInfo getRegionInfo(String regionCode) {
+        RegionInfo indexed = countryIndex.byIso(regionCode);
+        if (indexed != null || countryIndex.isLoaded()) {
+            return indexed; // The index holds the whole table - a miss is final
+        }
+
         if (!isDatabaseReady()) {
             logger.warn("Database not ready, cannot fetch region info for region: {}", regionCode);
             return null;
@@ -178,7 +363,7 @@ public class DataServiceImpl implements DataService {
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                RegionInfo regionInfo = cacheProvider.getObject(cacheKey, RegionInfo.class);
+                RegionInfo regionInfo = readCached(cacheKey, JsonCodecs.REGION_INFO);
                 if (regionInfo != null) {
                     logger.debug("Region info found in cache for region: {}", regionCode);
                     return regionInfo;
@@ -222,6 +407,11 @@ public class DataServiceImpl implements DataService {
 
     @Override
     public RegionInfo getRegionInfoByCountryId(String countryId) {
+        RegionInfo indexed = countryIndex.byCountryId(countryId);
+        if (indexed != null || countryIndex.isLoaded()) {
+            return indexed;
+        }
+
         if (!isDatabaseReady()) {
             logger.warn("Database not ready, cannot fetch region info for country: {}", countryId);
             return null;
@@ -233,7 +423,7 @@ public class DataServiceImpl implements DataService {
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                RegionInfo regionInfo = cacheProvider.getObject(cacheKey, RegionInfo.class);
+                RegionInfo regionInfo = readCached(cacheKey, JsonCodecs.REGION_INFO);
                 if (regionInfo != null) {
                     logger.debug("Region info found in cache for country: {}", countryId);
                     return regionInfo;
@@ -287,8 +477,7 @@ public class DataServiceImpl implements DataService {
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                @SuppressWarnings("unchecked")
-                List<SurveyData> surveyList = (List<SurveyData>) cacheProvider.getObject(cacheKey, List.class);
+                List<SurveyData> surveyList = readCached(cacheKey, JsonCodecs.SURVEY_LIST);
                 if (surveyList != null) {
                     logger.debug("Streaming polls found in cache for session: {}, user: {}", sessionId, userId);
                     return surveyList;
@@ -298,37 +487,28 @@ public class DataServiceImpl implements DataService {
             }
         }
 
+        return pollLoads.load(cacheKey, () -> fetchStreamingPolls(cacheKey, sessionId, userId));
+    }
+
+    private List<SurveyData> fetchStreamingPolls(String cacheKey, String sessionId, Long userId) {
         // If not in cache, fetch from database
         logger.debug("Streaming polls not in cache, fetching from database for session: {}, user: {}", sessionId,
                 userId);
         List<SurveyData> surveyList = new ArrayList<>();
 
-        String sql = "SELECT csts.survey_id, csts.is_show, csts.is_answer_show, " +
-                "CASE WHEN sua.id IS NOT NULL THEN sua.id ELSE 0 END as is_answered " +
-                "FROM cme_streaming_to_survey csts " +
-                "LEFT JOIN cme_survey_user_answer sua ON (sua.survey_id = csts.survey_id AND sua.user_master_id = ?) " +
-                "WHERE csts.session_id = ?";
-
         try (Connection conn = databaseProvider.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+                PreparedStatement stmt = conn.prepareStatement(USER_POLLS_SQL)) {
 
             stmt.setLong(1, userId);
             stmt.setString(2, sessionId);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                SurveyData survey = new SurveyData(
-                        rs.getLong("survey_id"),
-                        rs.getInt("is_show"),
-                        rs.getInt("is_answer_show"),
-                        rs.getLong("is_answered"));
-                surveyList.add(survey);
-            }
+            surveyList = readPolls(rs);
 
             // Cache for a short time if Redis is available
             if (isRedisReady()) {
                 try {
-                    cacheProvider.setObject(cacheKey, surveyList, 30);
+                    cacheProvider.setObject(cacheKey, surveyList, POLLS_CACHE_TTL);
                     logger.debug("Streaming polls cached for session: {}, user: {}", sessionId, userId);
                 } catch (Exception e) {
                     logger.warn("Error caching streaming polls: {}", e.getMessage());
@@ -342,6 +522,18 @@ public class DataServiceImpl implements DataService {
         return surveyList;
     }
 
+    private static List<SurveyData> readPolls(ResultSet rs) throws SQLException {
+        List<SurveyData> surveyList = new ArrayList<>();
+        while (rs.next()) {
+            surveyList.add(new SurveyData(
+                    rs.getLong("survey_id"),
+                    rs.getInt("is_show"),
+                    rs.getInt("is_answer_show"),
+                    rs.getLong("is_answered")));
+        }
+        return surveyList;
+    }
+
     @Override
     public List<CommentData> getComments(Long userId, String typeId, String type) {
         if (!isDatabaseReady()) {
@@ -350,13 +542,21 @@ public class DataServiceImpl implements DataService {
             return new ArrayList<>();
         }
 
+        if (incrementalComments) {
+            try {
+                return commentCache.getComments(userId, typeId, type, null, commentWindow);
+            } catch (SQLException e) {
+                logger.error("Error fetching comments for user: {}, typeId: {}, type: {}", userId, typeId, type, e);
+                return new ArrayList<>();
+            }
+        }
+
         String cacheKey = "comments_" + userId + "_" + typeId + "_" + type;
 
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                @SuppressWarnings("unchecked")
-                List<CommentData> commentList = (List<CommentData>) cacheProvider.getObject(cacheKey, List.class);
+                List<CommentData> commentList = readCached(cacheKey, JsonCodecs.COMMENT_LIST);
                 if (commentList != null) {
                     logger.debug("Comments found in cache for user: {}, typeId: {}, type: {}", userId, typeId, type);
                     return commentList;
@@ -366,53 +566,30 @@ public class DataServiceImpl implements DataService {
             }
         }
 
+        return commentLoads.load(cacheKey, () -> fetchComments(cacheKey, userId, typeId, type));
+    }
+
+    private List<CommentData> fetchComments(String cacheKey, Long userId, String typeId, String type) {
         // If not in cache, fetch from database
         logger.debug("Comments not in cache, fetching from database for user: {}, typeId: {}, type: {}", userId, typeId,
                 type);
         List<CommentData> commentList = new ArrayList<>();
 
-        String sql = "SELECT " +
-                "ud.first_name, ud.last_name, ud.profile_image, " +
-                "cmnt.knwlg_session_qna_id, cmnt.user_master_id, cmnt.comment, " +
-                "cmnt.comment_approve_status, cmnt.status, cmnt.type_id, cmnt.type " +
-                // "cmnt.created_at " +
-                "FROM knwlg_session_qna cmnt " +
-                "LEFT JOIN user_detail ud ON ud.user_master_id = cmnt.user_master_id " +
-                "WHERE (cmnt.user_master_id = ? OR cmnt.comment_approve_status = 1) " +
-                "AND cmnt.type_id = ? AND cmnt.type = ? " +
-                "ORDER BY cmnt.knwlg_session_qna_id ASC";
-
         try (Connection conn = databaseProvider.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+                PreparedStatement stmt = conn.prepareStatement(USER_COMMENTS_SQL)) {
 
-            stmt.setLong(1, userId);
-            stmt.setString(2, typeId);
-            stmt.setString(3, type);
+            bindComments(stmt, 1, userId, typeId, type, null, commentWindow);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                CommentData comment = new CommentData();
-                comment.setId(rs.getLong("knwlg_session_qna_id"));
-                comment.setUserMasterId(rs.getLong("user_master_id"));
-                comment.setFirstName(rs.getString("first_name"));
-                comment.setLastName(rs.getString("last_name"));
-                comment.setProfileImage(rs.getString("profile_image"));
-                comment.setComment(rs.getString("comment"));
-                comment.setCommentApproveStatus(rs.getInt("comment_approve_status"));
-                comment.setStatus(rs.getString("status"));
-                comment.setTypeId(rs.getString("type_id"));
-                comment.setType(rs.getString("type"));
-                // Set default timestamp since created_at column doesn't exist in database
-                // comment.setCreatedAt(String.valueOf(System.currentTimeMillis())); //
-                // Commented out - causing issues
-
-                commentList.add(comment);
+                // created_at column doesn't exist in database - left unset
+                commentList.add(TopicCommentCache.readComment(rs));
             }
 
             // Cache for a short time if Redis is available
             if (isRedisReady()) {
                 try {
-                    cacheProvider.setObject(cacheKey, commentList, 30);
+                    cacheProvider.setObject(cacheKey, commentList, COMMENTS_CACHE_TTL);
                     logger.debug("Comments cached for user: {}, typeId: {}, type: {}", userId, typeId, type);
                 } catch (Exception e) {
                     logger.warn("Error caching comments: {}", e.getMessage());
@@ -426,8 +603,112 @@ public class DataServiceImpl implements DataService {
         return commentList;
     }
 
+    @Override
+    public void writeCommentsJson(Long userId, String typeId, String type, Long beforeId, OutputStream out)
+            throws IOException {
+        if (!isDatabaseReady()) {
+            logger.warn("Database not ready, returning empty comments for user: {}, typeId: {}, type: {}", userId,
+                    typeId, type);
+            out.write(EMPTY_JSON_ARRAY);
+            return;
+        }
+
+        if (incrementalComments) {
+            List<CommentData> window;
+            try {
+                window = commentCache.getComments(userId, typeId, type, beforeId, commentWindow);
+            } catch (SQLException e) {
+                logger.error("Error fetching comments for user: {}, typeId: {}, type: {}", userId, typeId, type, e);
+                out.write(EMPTY_JSON_ARRAY);
+                return;
+            }
+            // The topic cache holds the rows anyway - written straight into the caller's buffer
+            JsonCodecs.COMMENT_LIST.writeTo(out, window);
+            return;
+        }
+
+        String cacheKey = "comments_" + userId + "_" + typeId + "_" + type
+                + (beforeId != null ? "_before_" + beforeId : "");
+
+        // A cached list is already the JSON array - used as-is, never parsed
+        if (isRedisReady()) {
+            try {
+                String cachedJson = readCached(cacheKey);
+                if (cachedJson != null) {
+                    logger.debug("Comments found in cache for user: {}, typeId: {}, type: {}", userId, typeId, type);
+                    out.write(cachedJson.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            } catch (Exception e) {
+                logger.warn("Error reading comments from Redis: {}", e.getMessage());
+            }
+        }
+
+        out.write(commentJsonLoads.load(cacheKey, () -> streamComments(cacheKey, userId, typeId, type, beforeId)));
+    }
+
+    /**
+     * Comments query written row by row into a JSON array, so only one row is
+     * materialized at a time. The array is shared by every caller waiting on
+     * the load and cached in Redis, so it is built in a buffer of its own -
+     * the thread's buffer holds the caller's event. Only used with
+     * comments.incremental.enabled=false; the result is cached in the same
+     * format getComments reads.
+     */
+    private byte[] streamComments(String cacheKey, Long userId, String typeId, String type, Long beforeId) {
+        logger.debug("Comments not in cache, streaming from database for user: {}, typeId: {}, type: {}", userId,
+                typeId, type);
+
+        byte[] json;
+        try (Connection conn = databaseProvider.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(USER_COMMENTS_SQL)) {
+
+            bindComments(stmt, 1, userId, typeId, type, beforeId, commentWindow);
+            ResultSet rs = stmt.executeQuery();
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+            try (JsonGenerator generator = JsonCodecs.mapper().getFactory().createGenerator(buffer)) {
+                generator.writeStartArray();
+                while (rs.next()) {
+                    COMMENT_WRITER.writeValue(generator, TopicCommentCache.readComment(rs));
+                }
+                generator.writeEndArray();
+            }
+            json = buffer.toByteArray();
+
+        } catch (SQLException | IOException e) {
+            logger.error("Error fetching comments for user: {}, typeId: {}, type: {}", userId, typeId, type, e);
+            return EMPTY_JSON_ARRAY;
+        }
+
+        // Cache for a short time if Redis is available
+        if (isRedisReady()) {
+            try {
+                cacheProvider.set(cacheKey, new String(json, StandardCharsets.UTF_8), COMMENTS_CACHE_TTL);
+                logger.debug("Comments cached for user: {}, typeId: {}, type: {}", userId, typeId, type);
+            } catch (Exception e) {
+                logger.warn("Error caching comments: {}", e.getMessage());
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Bind USER_COMMENTS_SQL starting at index: up to limit comments ending
+     * just below beforeId, or at the newest one when beforeId is null.
+     */
+    private static void bindComments(PreparedStatement stmt, int index, Long userId, String typeId, String type,
+            Long beforeId, int limit) throws SQLException {
+        stmt.setLong(index, userId);
+        stmt.setString(index + 1, typeId);
+        stmt.setString(index + 2, type);
+        stmt.setLong(index + 3, beforeId != null ? beforeId : Long.MAX_VALUE);
+        stmt.setInt(index + 4, limit);
+    }
+
     @Override
     public void invalidateUserCache(Long userId) {
+        userStatusCache.remove(userId);
         if (isRedisReady()) {
             try {
                 String userStatusKey = "user_status_" + userId;
@@ -437,6 +718,7 @@ public class DataServiceImpl implements DataService {
                 logger.warn("Error invalidating user cache: {}", e.getMessage());
             }
         }
+        broadcastInvalidation(InvalidationBus.userTag(userId));
     }
 
     @Override
@@ -445,13 +727,71 @@ public class DataServiceImpl implements DataService {
             try {
                 String pollsKey = "streaming_polls_" + sessionId + "_" + userId;
                 String commentsKey = "comments_" + userId + "_" + sessionId + "_session";
-                cacheProvider.delete(pollsKey);
-                cacheProvider.delete(commentsKey);
+                cacheProvider.deleteMany(List.of(pollsKey, commentsKey));
                 logger.debug("Invalidated session cache for session: {}, user: {}", sessionId, userId);
             } catch (Exception e) {
                 logger.warn("Error invalidating session cache: {}", e.getMessage());
             }
         }
+        broadcastInvalidation(InvalidationBus.sessionTag(sessionId));
+        // The session's event payload (status, polls, comments) is cached as a topic
+        invalidateTopicCache(sessionId, "session");
+    }
+
+    @Override
+    public void invalidateTopicCache(String typeId, String type) {
+        // Topic payloads are cached by the servlet tier; subscribers drop them
+        commentCache.invalidate(typeId, type);
+        broadcastInvalidation(InvalidationBus.topicTag(type, typeId));
+    }
+
+    /**
+     * Drops per-topic comment lists when another instance announces a change;
+     * the next read reloads the topic in full.
+     */
+    private void onInvalidate(String tag, boolean local) {
+        if (InvalidationBus.ALL.equals(tag)) {
+            commentCache.invalidateAll();
+            userStatusCache.clear();
+        } else if (!local && tag.startsWith("user:")) {
+            try {
+                userStatusCache.remove(Long.parseLong(tag.substring("user:".length())));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed user tag: {}", tag);
+            }
+        } else if (!local && tag.startsWith("topic:")) {
+            String topic = tag.substring("topic:".length());
+            int sep = topic.indexOf(':');
+            if (sep > 0) {
+                commentCache.invalidate(topic.substring(sep + 1), topic.substring(0, sep));
+            }
+        }
+    }
+
+    public Map<String, Object> getUserStatusCacheStats() {
+        return userStatusCache.stats();
+    }
+
+    public Map<String, Object> getCountryIndexStats() {
+        return countryIndex.stats();
+    }
+
+    public Map<String, Object> getCommentCacheStats() {
+        Map<String, Object> stats = commentCache.stats();
+        stats.put("incremental", incrementalComments);
+        return stats;
+    }
+
+    /**
+     * Tell every instance to drop its local copies - Redis alone is not enough
+     * while other nodes still hold the old value in L1.
+     */
+    private void broadcastInvalidation(String tag) {
+        try {
+            CacheProviderFactory.getInvalidationBus().publish(tag);
+        } catch (Exception e) {
+            logger.warn("Error broadcasting invalidation {}: {}", tag, e.getMessage());
+        }
     }
 
     @Override
@@ -473,7 +813,7 @@ public class DataServiceImpl implements DataService {
         // Try Redis first if available
         if (isRedisReady()) {
             try {
-                String cachedStatus = cacheProvider.get(cacheKey);
+                String cachedStatus = readCached(cacheKey);
                 if (cachedStatus != null) {
                     logger.debug("Session status found in cache for session: {}", sessionId);
                     return cachedStatus;
@@ -484,17 +824,19 @@ public class DataServiceImpl implements DataService {
             }
         }
 
+        return sessionStatusLoads.load(sessionId, () -> fetchSessionStatus(cacheKey, sessionId, ttl));
+    }
+
+    private String fetchSessionStatus(String cacheKey, String sessionId, long ttl) {
         // If not in cache, fetch from database
         logger.debug("Session status not in cache, fetching from database for session: {}", sessionId);
-        String sql = "SELECT session_status FROM knwlg_sessions_V1 WHERE session_id = ?";
-
         try (Connection conn = databaseProvider.getConnection()) {
             if (conn == null) {
                 logger.error("Unable to obtain database connection for session: {}", sessionId);
                 throw new RuntimeException("Database connection is not available");
             }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = conn.prepareStatement(SESSION_STATUS_SQL)) {
                 stmt.setString(1, sessionId);
 
                 try (ResultSet rs = stmt.executeQuery()) {
@@ -535,4 +877,355 @@ public class DataServiceImpl implements DataService {
             throw new RuntimeException("Unexpected database error", e);
         }
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SessionData getSessionData(Long userId, String sessionId) {
+        if (!isDatabaseReady()) {
+            logger.warn("Database not ready, cannot load session data for session: {}, user: {}", sessionId, userId);
+            throw new RuntimeException("Database service is not available");
+        }
+        if (sessionId == null || sessionId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Session ID cannot be null or empty");
+        }
+
+        String commentsKey = "comments_" + userId + "_" + sessionId + "_session";
+        String pollsKey = "streaming_polls_" + sessionId + "_" + userId;
+        String statusKey = "openapi_detail_sse_session_status_" + sessionId;
+
+        // All three lookups join one Redis batch; only the misses go to the database
+        boolean useRedis = isRedisReady();
+        CompletableFuture<List<CommentData>> commentsRead = useRedis && !incrementalComments
+                ? readCachedAsync(commentsKey, JsonCodecs.COMMENT_LIST)
+                : null;
+        CompletableFuture<List<SurveyData>> pollsRead = useRedis ? readCachedAsync(pollsKey, JsonCodecs.SURVEY_LIST)
+                : null;
+        CompletableFuture<String> statusRead = useRedis ? cacheBatcher.get(statusKey) : null;
+
+        List<CommentData> comments = null;
+        if (incrementalComments) {
+            try {
+                comments = commentCache.getComments(userId, sessionId, "session", null, commentWindow);
+            } catch (SQLException e) {
+                logger.error("Error fetching comments for user: {}, session: {}", userId, sessionId, e);
+                comments = new ArrayList<>();
+            }
+        } else if (commentsRead != null) {
+            comments = awaitCached(commentsRead, commentsKey);
+        }
+        List<SurveyData> surveys = pollsRead != null ? awaitCached(pollsRead, pollsKey) : null;
+        String status = statusRead != null ? awaitCached(statusRead, statusKey) : null;
+
+        List<SessionPart> missing = new ArrayList<>(3);
+        if (comments == null) {
+            missing.add(SessionPart.COMMENTS);
+        }
+        if (surveys == null) {
+            missing.add(SessionPart.POLLS);
+        }
+        if (status == null) {
+            missing.add(SessionPart.STATUS);
+        }
+        if (missing.isEmpty()) {
+            logger.debug("Session data found in cache for session: {}, user: {}", sessionId, userId);
+            return new SessionData(comments, surveys, status);
+        }
+
+        Map<SessionPart, Object> loaded = sessionDataLoads.load(sessionId + "_" + userId + "_" + missing,
+                () -> fetchSessionData(userId, sessionId, missing));
+        return new SessionData(
+                comments != null ? comments : (List<CommentData>) loaded.get(SessionPart.COMMENTS),
+                surveys != null ? surveys : (List<SurveyData>) loaded.get(SessionPart.POLLS),
+                status != null ? status : (String) loaded.get(SessionPart.STATUS));
+    }
+
+    /**
+     * Load the given parts of a session on one connection. With
+     * allowMultiQueries the statements go out as one multi-statement
+     * round trip and the result sets are read in order; otherwise they run
+     * one after another on the same connection. Loaded parts are cached like
+     * the single-part loads.
+     */
+    private Map<SessionPart, Object> fetchSessionData(Long userId, String sessionId, List<SessionPart> parts) {
+        logger.debug("Loading {} for session: {}, user: {} in one {}", parts, sessionId, userId,
+                multiQueries ? "round trip" : "connection");
+        Map<SessionPart, Object> results = new EnumMap<>(SessionPart.class);
+
+        try (Connection conn = databaseProvider.getConnection()) {
+            if (multiQueries) {
+                StringBuilder sql = new StringBuilder();
+                for (SessionPart part : parts) {
+                    sql.append(sql.length() == 0 ? "" : "; ").append(part.sql);
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (SessionPart part : parts) {
+                        index = part.bind(stmt, index, userId, sessionId, commentWindow);
+                    }
+
+                    boolean hasResultSet = stmt.execute();
+                    for (SessionPart part : parts) {
+                        while (!hasResultSet && stmt.getUpdateCount() != -1) {
+                            hasResultSet = stmt.getMoreResults();
+                        }
+                        if (!hasResultSet) {
+                            throw new SQLException("No result set for " + part + " in session query");
+                        }
+                        try (ResultSet rs = stmt.getResultSet()) {
+                            results.put(part, part.read(rs));
+                        }
+                        hasResultSet = stmt.getMoreResults();
+                    }
+                }
+            } else {
+                for (SessionPart part : parts) {
+                    try (PreparedStatement stmt = conn.prepareStatement(part.sql)) {
+                        part.bind(stmt, 1, userId, sessionId, commentWindow);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            results.put(part, part.read(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Database error while loading session data for session: {}, user: {} - {}", sessionId,
+                    userId, e.getMessage());
+            throw new RuntimeException("Database query error", e);
+        }
+
+        if (isRedisReady()) {
+            try {
+                if (results.containsKey(SessionPart.COMMENTS) && !incrementalComments) {
+                    cacheProvider.setObject("comments_" + userId + "_" + sessionId + "_session",
+                            results.get(SessionPart.COMMENTS), COMMENTS_CACHE_TTL);
+                }
+                if (results.containsKey(SessionPart.POLLS)) {
+                    cacheProvider.setObject("streaming_polls_" + sessionId + "_" + userId,
+                            results.get(SessionPart.POLLS), POLLS_CACHE_TTL);
+                }
+                if (results.get(SessionPart.STATUS) != null) {
+                    cacheProvider.set("openapi_detail_sse_session_status_" + sessionId,
+                            (String) results.get(SessionPart.STATUS),
+                            configManager.getLongProperty("cache.session.status.ttl", 30));
+                }
+            } catch (Exception e) {
+                logger.warn("Error caching session data for session: {} - {}", sessionId, e.getMessage());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * One statement of the session query: its SQL, how to bind its
+     * parameters at a given offset and how to read its result set.
+     */
+    private enum SessionPart {
+        COMMENTS(USER_COMMENTS_SQL),
+        POLLS(USER_POLLS_SQL),
+        STATUS(SESSION_STATUS_SQL);
+
+        final String sql;
+
+        SessionPart(String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * Bind this part's parameters starting at index; returns the next free index.
+         */
+        int bind(PreparedStatement stmt, int index, Long userId, String sessionId, int commentWindow)
+                throws SQLException {
+            switch (this) {
+                case COMMENTS:
+                    bindComments(stmt, index, userId, sessionId, "session", null, commentWindow);
+                    return index + 5;
+                case POLLS:
+                    stmt.setLong(index, userId);
+                    stmt.setString(index + 1, sessionId);
+                    return index + 2;
+                default:
+                    stmt.setString(index, sessionId);
+                    return index + 1;
+            }
+        }
+
+        Object read(ResultSet rs) throws SQLException {
+            switch (this) {
+                case COMMENTS:
+                    List<CommentData> comments = new ArrayList<>();
+                    while (rs.next()) {
+                        comments.add(TopicCommentCache.readComment(rs));
+                    }
+                    return comments;
+                case POLLS:
+                    return readPolls(rs);
+                default:
+                    return rs.next() ? rs.getString("session_status") : null;
+            }
+        }
+    }
+
+    /**
+     * Shared, user-independent view of a topic for the stream broadcaster.
+     * One connection, no per-user filtering - subscribers of the same topic
+     * derive their own payload from this snapshot in memory. Comments are
+     * limited to the tail window (comments.tail.size approved ones, plus the
+     * pending ones among them); older ones are paged with before_id.
+     *
+     * Poll answers are extended from previous by id: only answers above its
+     * watermark are selected, so a refresh reads the answers given since the
+     * last one rather than every answer of the session. A full reload every
+     * sse.stream.answers.reload.interval picks up deleted or rewritten
+     * answers and rows that committed below the watermark. While nothing
+     * changed the previous map instance is kept.
+     */
+    @Override
+    public TopicSnapshot getTopicSnapshot(String typeId, String type, TopicSnapshot previous) {
+        if (!isDatabaseReady()) {
+            logger.warn("Database not ready, cannot load topic snapshot for typeId: {}, type: {}", typeId, type);
+            return null;
+        }
+
+        boolean isSession = "session".equals(type);
+        List<CommentData> comments = new ArrayList<>();
+        List<SurveyData> surveys = new ArrayList<>();
+        Map<Long, Map<Long, Long>> answersByUser = Map.of();
+        long answerWatermark = 0;
+        long now = System.currentTimeMillis();
+        boolean reloadAnswers = previous == null || now - previous.getAnswersLoadedAt() >= answerReloadIntervalMs;
+        long answersLoadedAt = reloadAnswers ? now : previous.getAnswersLoadedAt();
+
+        String commentSql = "SELECT " +
+                "ud.first_name, ud.last_name, ud.profile_image, " +
+                "cmnt.knwlg_session_qna_id, cmnt.user_master_id, cmnt.comment, " +
+                "cmnt.comment_approve_status, cmnt.status, cmnt.type_id, cmnt.type " +
+                "FROM knwlg_session_qna cmnt " +
+                "LEFT JOIN user_detail ud ON ud.user_master_id = cmnt.user_master_id " +
+                "WHERE cmnt.type_id = ? AND cmnt.type = ? AND cmnt.knwlg_session_qna_id >= ? " +
+                "ORDER BY cmnt.knwlg_session_qna_id ASC";
+
+        // Start of the window: the commentWindow-th newest approved comment
+        String windowStartSql = "SELECT knwlg_session_qna_id FROM knwlg_session_qna " +
+                "WHERE type_id = ? AND type = ? AND comment_approve_status = 1 " +
+                "ORDER BY knwlg_session_qna_id DESC LIMIT 1 OFFSET ?";
+
+        String surveySql = "SELECT csts.survey_id, csts.is_show, csts.is_answer_show " +
+                "FROM cme_streaming_to_survey csts WHERE csts.session_id = ?";
+
+        String answerSql = "SELECT sua.survey_id, sua.user_master_id, sua.id " +
+                "FROM cme_survey_user_answer sua " +
+                "JOIN cme_streaming_to_survey csts ON csts.survey_id = sua.survey_id " +
+                "WHERE csts.session_id = ? AND sua.id > ?";
+
+        if (incrementalComments) {
+            // Shared with the per-user path; only new rows hit the database
+            try {
+                comments = commentCache.getWindow(typeId, type, commentWindow);
+            } catch (SQLException e) {
+                logger.error("Error loading topic snapshot for typeId: {}, type: {}", typeId, type, e);
+                return null;
+            }
+        }
+
+        if (!incrementalComments || isSession) {
+            try (Connection conn = databaseProvider.getConnection()) {
+                if (!incrementalComments) {
+                    long windowStart = 0;
+                    if (commentWindow != Integer.MAX_VALUE) {
+                        try (PreparedStatement stmt = conn.prepareStatement(windowStartSql)) {
+                            stmt.setString(1, typeId);
+                            stmt.setString(2, type);
+                            stmt.setInt(3, commentWindow - 1);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                if (rs.next()) {
+                                    windowStart = rs.getLong(1);
+                                }
+                            }
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(commentSql)) {
+                        stmt.setString(1, typeId);
+                        stmt.setString(2, type);
+                        stmt.setLong(3, windowStart);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                comments.add(TopicCommentCache.readComment(rs));
+                            }
+                        }
+                    }
+                }
+
+                if (isSession) {
+                    try (PreparedStatement stmt = conn.prepareStatement(surveySql)) {
+                        stmt.setString(1, typeId);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                surveys.add(new SurveyData(
+                                        rs.getLong("survey_id"),
+                                        rs.getInt("is_show"),
+                                        rs.getInt("is_answer_show"),
+                                        0L));
+                            }
+                        }
+                    }
+
+                    Map<Long, Map<Long, Long>> base = reloadAnswers ? Map.of() : previous.getAnswersByUser();
+                    answerWatermark = reloadAnswers ? 0 : previous.getAnswerWatermark();
+                    Map<Long, Map<Long, Long>> added = new HashMap<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(answerSql)) {
+                        stmt.setString(1, typeId);
+                        stmt.setLong(2, answerWatermark);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                long answerId = rs.getLong("id");
+                                added.computeIfAbsent(rs.getLong("user_master_id"), k -> new HashMap<>())
+                                        .put(rs.getLong("survey_id"), answerId);
+                                answerWatermark = Math.max(answerWatermark, answerId);
+                            }
+                        }
+                    }
+                    answersByUser = mergeAnswers(base, added);
+                    if (reloadAnswers && previous != null && answersByUser.equals(previous.getAnswersByUser())) {
+                        answersByUser = previous.getAnswersByUser();
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("Error loading topic snapshot for typeId: {}, type: {}", typeId, type, e);
+                return null;
+            }
+        }
+
+        String sessionStatus = "";
+        if (isSession) {
+            try {
+                sessionStatus = getSessionStatus(typeId);
+            } catch (Exception e) {
+                logger.warn("Session status unavailable for topic snapshot {}: {}", typeId, e.getMessage());
+                sessionStatus = "unavailable";
+            }
+        }
+
+        logger.debug("Topic snapshot loaded for typeId: {}, type: {} - {} comments, {} surveys, {} answering users",
+                typeId, type, comments.size(), surveys.size(), answersByUser.size());
+        return new TopicSnapshot(comments, surveys, answersByUser, answerWatermark, answersLoadedAt, sessionStatus);
+    }
+
+    /**
+     * base with added laid over it, as a new read-only map - or base itself
+     * if nothing was added. Only the users with new answers get new inner maps.
+     */
+    private static Map<Long, Map<Long, Long>> mergeAnswers(Map<Long, Map<Long, Long>> base,
+            Map<Long, Map<Long, Long>> added) {
+        if (added.isEmpty()) {
+            return base;
+        }
+        Map<Long, Map<Long, Long>> merged = new HashMap<>(base);
+        for (Map.Entry<Long, Map<Long, Long>> entry : added.entrySet()) {
+            Map<Long, Long> answers = new HashMap<>(merged.getOrDefault(entry.getKey(), Map.of()));
+            answers.putAll(entry.getValue());
+            merged.put(entry.getKey(), Collections.unmodifiableMap(answers));
+        }
+        return Collections.unmodifiableMap(merged);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,548 @@
+package com.example.sse.service;
+
+import com.example.sse.cache.LocalCache;
+import com.example.sse.database.DatabaseProvider;
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.util.SingleFlight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Incrementally maintained comment tail per topic (type + typeId).
+ *
+ * The first request for a topic loads its newest maxTopicRows
+ * knwlg_session_qna rows once. After that a refresh only selects rows above
+ * the highest knwlg_session_qna_id seen so far and merges them in, dropping
+ * the oldest rows past maxTopicRows, so the work per refresh follows the
+ * number of new comments rather than the size of the thread. Refreshes are
+ * rate limited to one per refresh interval per topic; one caller runs it
+ * while the others keep reading the current list, and the queries run
+ * without any lock held - only the finished list is swapped in.
+ *
+ * Every reconcile interval the approval status of a bounded number of held
+ * rows is re-read (ids and status columns only, no join): the newest
+ * reconcileRows, where moderation and late commits happen, plus the next
+ * reconcileRows of a sweep that walks back through the older rows and
+ * wraps around. Approvals, rejections and deletions are applied, and rows
+ * that committed late below the watermark are picked up.
+ *
+ * Per-user visibility (own comments plus approved ones) is applied on read.
+ * Pages reaching below the oldest held row of a topic that has more rows
+ * than it holds are completed from the database. Lists and comments handed
+ * out are shared and must be treated as read-only.
+ */
+class TopicCommentCache {
+    private static final Logger logger = LoggerFactory.getLogger(TopicCommentCache.class);
+
+    private static final String COMMENT_COLUMNS = "SELECT " +
+            "ud.first_name, ud.last_name, ud.profile_image, " +
+            "cmnt.knwlg_session_qna_id, cmnt.user_master_id, cmnt.comment, " +
+            "cmnt.comment_approve_status, cmnt.status, cmnt.type_id, cmnt.type " +
+            "FROM knwlg_session_qna cmnt " +
+            "LEFT JOIN user_detail ud ON ud.user_master_id = cmnt.user_master_id ";
+
+    private static final String NEWER_SQL = COMMENT_COLUMNS +
+            "WHERE cmnt.type_id = ? AND cmnt.type = ? AND cmnt.knwlg_session_qna_id > ? " +
+            "ORDER BY cmnt.knwlg_session_qna_id ASC";
+
+    private static final String TAIL_SQL = COMMENT_COLUMNS +
+            "WHERE cmnt.type_id = ? AND cmnt.type = ? " +
+            "ORDER BY cmnt.knwlg_session_qna_id DESC LIMIT ?";
+
+    // Visible rows below the held tail, newest first
+    private static final String OLDER_SQL = COMMENT_COLUMNS +
+            "WHERE cmnt.type_id = ? AND cmnt.type = ? AND cmnt.knwlg_session_qna_id < ? " +
+            "AND (cmnt.comment_approve_status = 1 OR cmnt.user_master_id = ?) " +
+            "ORDER BY cmnt.knwlg_session_qna_id DESC LIMIT ?";
+
+    private static final String STATUS_SQL = "SELECT knwlg_session_qna_id, comment_approve_status, status " +
+            "FROM knwlg_session_qna " +
+            "WHERE type_id = ? AND type = ? AND knwlg_session_qna_id BETWEEN ? AND ?";
+
+    private final Supplier<DatabaseProvider> databaseProvider;
+    private final long refreshIntervalMs;
+    private final long reconcileIntervalMs;
+    private final long idleTtlMs;
+    private final int maxTopicRows;
+    private final int reconcileRows;
+
+    // Weighed by comment count, refreshed on every re-put
+    private final LocalCache<String, TopicComments> topics;
+    private final SingleFlight<String, TopicComments> initialLoads;
+
+    private final LongAdder fullLoads = new LongAdder();
+    private final LongAdder deltaQueries = new LongAdder();
+    private final LongAdder deltaRows = new LongAdder();
+    private final LongAdder reconciles = new LongAdder();
+    private final LongAdder olderQueries = new LongAdder();
+
+    /**
+     * @param maxTopicRows  rows held per topic (capped at maxComments, so
+     *                      every topic fits the cache)
+     * @param reconcileRows rows per reconcile range
+     */
+    TopicCommentCache(Supplier<DatabaseProvider> databaseProvider, long refreshIntervalMs, long reconcileIntervalMs,
+            long idleTtlMs, long maxComments, int maxTopicRows, int reconcileRows, long loadTimeoutMs) {
+        this.databaseProvider = databaseProvider;
+        this.initialLoads = new SingleFlight<>(loadTimeoutMs);
+        this.refreshIntervalMs = Math.max(0, refreshIntervalMs);
+        this.reconcileIntervalMs = Math.max(this.refreshIntervalMs, reconcileIntervalMs);
+        this.idleTtlMs = Math.max(1000, idleTtlMs);
+        this.maxTopicRows = (int) Math.max(1, Math.min(maxTopicRows, maxComments - 1));
+        this.reconcileRows = Math.max(1, reconcileRows);
+        this.topics = new LocalCache<>("comments", maxComments, 1000,
+                (key, value) -> 1 + value.tail.comments().size());
+    }
+
+    /**
+     * Up to limit comments of the topic visible to userId, ending just below
+     * beforeId (at the newest comment when null), ordered by id. Walks back
+     * from the cursor, so the cost follows the window, not the thread; the
+     * part of a page below the held tail comes from the database.
+     */
+    List<CommentData> getComments(Long userId, String typeId, String type, Long beforeId, int limit)
+            throws SQLException {
+        Tail tail = getTail(typeId, type);
+        List<CommentData> all = tail.comments();
+        int end = beforeId != null ? firstIndexAtOrAbove(all, beforeId) : all.size();
+        List<CommentData> visible = new ArrayList<>(Math.min(limit, Math.max(end, 16)));
+        for (int i = end - 1; i >= 0 && visible.size() < limit; i--) {
+            CommentData comment = all.get(i);
+            if (isApproved(comment) || (userId != null && userId.equals(comment.getUserMasterId()))) {
+                visible.add(comment);
+            }
+        }
+        if (visible.size() < limit && !tail.complete()) {
+            long below = all.isEmpty() ? Long.MAX_VALUE : all.get(0).getId();
+            if (beforeId != null) {
+                below = Math.min(below, beforeId);
+            }
+            visible.addAll(selectOlder(userId, typeId, type, below, limit - visible.size()));
+        }
+        Collections.reverse(visible);
+        return visible;
+    }
+
+    /**
+     * Index of the first comment with an id of at least id in a list ordered
+     * by id, or its size if there is none.
+     */
+    private static int firstIndexAtOrAbove(List<CommentData> comments, long id) {
+        int low = 0;
+        int high = comments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comments.get(mid).getId() < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The held tail of the topic regardless of approval, ordered by id.
+     */
+    private Tail getTail(String typeId, String type) throws SQLException {
+        String key = type + ":" + typeId;
+        TopicComments state = topics.get(key);
+        if (state == null) {
+            state = loadInitial(key, typeId, type);
+        } else {
+            refresh(key, state, typeId, type);
+        }
+        return state.tail;
+    }
+
+    /**
+     * The newest comments of the topic regardless of approval, from its
+     * approvedLimit-th newest approved comment on, ordered by id - enough
+     * for any user's tail window. All held rows if they hold fewer approved
+     * ones (the whole topic, unless it is larger than the held tail).
+     */
+    List<CommentData> getWindow(String typeId, String type, int approvedLimit) throws SQLException {
+        List<CommentData> all = getTail(typeId, type).comments();
+        int approved = 0;
+        for (int i = all.size() - 1; i >= 0; i--) {
+            if (isApproved(all.get(i)) && ++approved == approvedLimit) {
+                return all.subList(i, all.size());
+            }
+        }
+        return all;
+    }
+
+    void invalidate(String typeId, String type) {
+        topics.invalidate(type + ":" + typeId);
+    }
+
+    void invalidateAll() {
+        topics.invalidateAll();
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(topics.stats());
+        stats.put("full_loads", fullLoads.sum());
+        stats.put("delta_queries", deltaQueries.sum());
+        stats.put("delta_rows", deltaRows.sum());
+        stats.put("reconciles", reconciles.sum());
+        stats.put("older_queries", olderQueries.sum());
+        return stats;
+    }
+
+    static CommentData readComment(ResultSet rs) throws SQLException {
+        CommentData comment = new CommentData();
+        comment.setId(rs.getLong("knwlg_session_qna_id"));
+        comment.setUserMasterId(rs.getLong("user_master_id"));
+        comment.setFirstName(rs.getString("first_name"));
+        comment.setLastName(rs.getString("last_name"));
+        comment.setProfileImage(rs.getString("profile_image"));
+        comment.setComment(rs.getString("comment"));
+        comment.setCommentApproveStatus(rs.getInt("comment_approve_status"));
+        comment.setStatus(rs.getString("status"));
+        comment.setTypeId(rs.getString("type_id"));
+        comment.setType(rs.getString("type"));
+        return comment;
+    }
+
+    private TopicComments loadInitial(String key, String typeId, String type) throws SQLException {
+        try {
+            return initialLoads.load(key, () -> {
+                TopicComments cached = topics.get(key);
+                if (cached != null) {
+                    return cached; // Loaded by a caller that just finished
+                }
+                try (Connection conn = databaseProvider.get().getConnection()) {
+                    List<CommentData> rows = selectTail(conn, typeId, type);
+                    fullLoads.increment();
+                    TopicComments state = new TopicComments(
+                            new Tail(Collections.unmodifiableList(rows), rows.size() < maxTopicRows),
+                            System.currentTimeMillis());
+                    topics.put(key, state, idleTtlMs);
+                    logger.debug("Comments loaded for {} - {} rows, watermark {}", key, rows.size(),
+                            state.highWatermark);
+                    return state;
+                } catch (SQLException e) {
+                    throw new LoadFailedException(e);
+                }
+            });
+        } catch (LoadFailedException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A failed refresh keeps serving what we have; the next caller retries.
+     * Callers arriving while a refresh runs read the current list instead
+     * of waiting for it.
+     */
+    private void refresh(String key, TopicComments state, String typeId, String type) {
+        if (System.currentTimeMillis() - state.lastRefreshAt < refreshIntervalMs
+                || !state.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (now - state.lastRefreshAt < refreshIntervalMs) {
+                return; // Another caller refreshed just before us
+            }
+
+            // Only the refreshing caller writes state, so this stays current while we query
+            Tail tail = state.tail;
+            boolean reconcile = now - state.lastReconcileAt >= reconcileIntervalMs;
+            List<CommentData> merged = tail.comments();
+            long sweepBeforeId = state.sweepBeforeId;
+            try (Connection conn = databaseProvider.get().getConnection()) {
+                if (reconcile) {
+                    Reconciled reconciled = reconcile(conn, merged, typeId, type, state.highWatermark, sweepBeforeId);
+                    merged = reconciled.comments();
+                    sweepBeforeId = reconciled.sweepBeforeId();
+                }
+                List<CommentData> newer = selectNewer(conn, typeId, type, state.highWatermark);
+                deltaQueries.increment();
+                deltaRows.add(newer.size());
+                if (!newer.isEmpty()) {
+                    List<CommentData> appended = new ArrayList<>(merged.size() + newer.size());
+                    appended.addAll(merged);
+                    appended.addAll(newer);
+                    merged = appended;
+                }
+            } catch (SQLException e) {
+                logger.warn("Comment refresh failed for {}, serving {} cached rows: {}", key,
+                        tail.comments().size(), e.getMessage());
+                return;
+            }
+
+            boolean changed = merged != tail.comments();
+            Tail next = tail;
+            if (changed) {
+                boolean complete = tail.complete();
+                if (merged.size() > maxTopicRows) {
+                    merged = new ArrayList<>(merged.subList(merged.size() - maxTopicRows, merged.size()));
+                    complete = false;
+                }
+                next = new Tail(Collections.unmodifiableList(merged), complete);
+            }
+            state.update(next, now, reconcile, sweepBeforeId);
+            // Re-put keeps an active topic alive and its weight current -
+            // unless it was invalidated while we were querying
+            if ((changed || reconcile) && topics.get(key) == state) {
+                topics.put(key, state, idleTtlMs);
+            }
+        } finally {
+            state.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Applies approval/status changes and deletions to the newest
+     * reconcileRows held rows (up to the watermark, loading rows that
+     * committed there after we passed) and to the next reconcileRows of the
+     * sweep below sweepBeforeId, which moves down one range per reconcile
+     * and starts over at the top once it passes the oldest row.
+     */
+    private Reconciled reconcile(Connection conn, List<CommentData> current, String typeId, String type,
+            long watermark, long sweepBeforeId) throws SQLException {
+        reconciles.increment();
+        if (current.isEmpty()) {
+            return new Reconciled(current, Long.MAX_VALUE);
+        }
+
+        int recentFrom = Math.max(0, current.size() - reconcileRows);
+        List<CommentData> result = reconcileRange(conn, current, typeId, type, recentFrom, current.size(),
+                watermark);
+
+        // Sweep range of the (possibly changed) list, below the recent one
+        int sweepTo = Math.min(firstIndexAtOrAbove(result, sweepBeforeId),
+                Math.max(0, result.size() - reconcileRows));
+        if (sweepTo == 0) {
+            return new Reconciled(result, Long.MAX_VALUE); // Nothing below - next sweep starts at the top
+        }
+        int sweepFrom = Math.max(0, sweepTo - reconcileRows);
+        long nextSweepBeforeId = result.get(sweepFrom).getId();
+        result = reconcileRange(conn, result, typeId, type, sweepFrom, sweepTo, result.get(sweepTo - 1).getId());
+        return new Reconciled(result, sweepFrom == 0 ? Long.MAX_VALUE : nextSweepBeforeId);
+    }
+
+    /**
+     * Re-reads the status of the rows with ids from current[from] up to
+     * toId and applies it to current[from, to); rows in that id range we do
+     * not hold are loaded. Returns current itself if nothing changed.
+     */
+    private List<CommentData> reconcileRange(Connection conn, List<CommentData> current, String typeId, String type,
+            int from, int to, long toId) throws SQLException {
+        Map<Long, Object[]> statusById = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(STATUS_SQL)) {
+            stmt.setString(1, typeId);
+            stmt.setString(2, type);
+            stmt.setLong(3, current.get(from).getId());
+            stmt.setLong(4, toId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    statusById.put(rs.getLong("knwlg_session_qna_id"),
+                            new Object[] { rs.getInt("comment_approve_status"), rs.getString("status") });
+                }
+            }
+        }
+
+        boolean changed = false;
+        List<CommentData> range = new ArrayList<>(Math.max(to - from, statusById.size()));
+        for (CommentData comment : current.subList(from, to)) {
+            Object[] status = statusById.remove(comment.getId());
+            if (status == null) {
+                changed = true; // Deleted
+                continue;
+            }
+            Integer approveStatus = (Integer) status[0];
+            String rowStatus = (String) status[1];
+            if (!approveStatus.equals(comment.getCommentApproveStatus())
+                    || !Objects.equals(rowStatus, comment.getStatus())) {
+                // Copy - the old instance may be in a list another thread is reading
+                CommentData updated = copyOf(comment);
+                updated.setCommentApproveStatus(approveStatus);
+                updated.setStatus(rowStatus);
+                range.add(updated);
+                changed = true;
+            } else {
+                range.add(comment);
+            }
+        }
+
+        if (!statusById.isEmpty()) {
+            // Rows in the range we have never seen (late commits)
+            range.addAll(selectByIds(conn, new ArrayList<>(statusById.keySet())));
+            range.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            changed = true;
+        }
+        if (!changed) {
+            return current;
+        }
+        List<CommentData> result = new ArrayList<>(current.size() - (to - from) + range.size());
+        result.addAll(current.subList(0, from));
+        result.addAll(range);
+        result.addAll(current.subList(to, current.size()));
+        return result;
+    }
+
+    private List<CommentData> selectTail(Connection conn, String typeId, String type) throws SQLException {
+        List<CommentData> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(TAIL_SQL)) {
+            stmt.setString(1, typeId);
+            stmt.setString(2, type);
+            stmt.setInt(3, maxTopicRows);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readComment(rs));
+                }
+            }
+        }
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    /**
+     * Up to limit comments visible to userId below beforeId, newest first.
+     */
+    private List<CommentData> selectOlder(Long userId, String typeId, String type, long beforeId, int limit)
+            throws SQLException {
+        olderQueries.increment();
+        List<CommentData> rows = new ArrayList<>(Math.min(limit, 256));
+        try (Connection conn = databaseProvider.get().getConnection();
+                PreparedStatement stmt = conn.prepareStatement(OLDER_SQL)) {
+            stmt.setString(1, typeId);
+            stmt.setString(2, type);
+            stmt.setLong(3, beforeId);
+            stmt.setObject(4, userId, Types.BIGINT);
+            stmt.setInt(5, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readComment(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<CommentData> selectNewer(Connection conn, String typeId, String type, long afterId)
+            throws SQLException {
+        List<CommentData> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(NEWER_SQL)) {
+            stmt.setString(1, typeId);
+            stmt.setString(2, type);
+            stmt.setLong(3, afterId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readComment(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<CommentData> selectByIds(Connection conn, List<Long> ids) throws SQLException {
+        StringBuilder sql = new StringBuilder(COMMENT_COLUMNS).append("WHERE cmnt.knwlg_session_qna_id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+
+        List<CommentData> rows = new ArrayList<>(ids.size());
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readComment(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static boolean isApproved(CommentData comment) {
+        Integer status = comment.getCommentApproveStatus();
+        return status != null && status == 1;
+    }
+
+    private static CommentData copyOf(CommentData source) {
+        CommentData copy = new CommentData();
+        copy.setId(source.getId());
+        copy.setUserMasterId(source.getUserMasterId());
+        copy.setFirstName(source.getFirstName());
+        copy.setLastName(source.getLastName());
+        copy.setProfileImage(source.getProfileImage());
+        copy.setComment(source.getComment());
+        copy.setCommentApproveStatus(source.getCommentApproveStatus());
+        copy.setStatus(source.getStatus());
+        copy.setTypeId(source.getTypeId());
+        copy.setType(source.getType());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+
+    /**
+     * Held rows ordered by id (read-only), and whether they are all the
+     * rows the topic has.
+     */
+    private record Tail(List<CommentData> comments, boolean complete) {
+    }
+
+    private record Reconciled(List<CommentData> comments, long sweepBeforeId) {
+    }
+
+    private static final class TopicComments {
+        // Replaced as a whole; written only by the caller holding refreshing
+        volatile Tail tail;
+        volatile long highWatermark;
+        volatile long lastRefreshAt;
+        volatile long lastReconcileAt;
+        // Upper bound (exclusive) of the next reconcile sweep range
+        volatile long sweepBeforeId = Long.MAX_VALUE;
+        final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        TopicComments(Tail tail, long loadedAt) {
+            update(tail, loadedAt, true, Long.MAX_VALUE);
+        }
+
+        void update(Tail next, long refreshedAt, boolean reconciled, long nextSweepBeforeId) {
+            List<CommentData> rows = next.comments();
+            if (!rows.isEmpty()) {
+                highWatermark = Math.max(highWatermark, rows.get(rows.size() - 1).getId());
+            }
+            this.tail = next;
+            this.lastRefreshAt = refreshedAt;
+            if (reconciled) {
+                this.lastReconcileAt = refreshedAt;
+                this.sweepBeforeId = nextSweepBeforeId;
+            }
+        }
+    }
+
+    private static final class LoadFailedException extends RuntimeException {
+        LoadFailedException(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.sse.service;
+
+import com.example.sse.model.DataModels.UserStatus;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-process user status cache keyed by primitive long user ids.
+ *
+ * Open addressing with linear probing over parallel arrays - user id,
+ * value code and expiry per slot - so an entry is 16 bytes in three arrays
+ * and no objects: no boxed keys, no nodes. The (status, country) pair is
+ * interned into a small code; a hit returns the one shared UserStatus for
+ * that pair, so lookups allocate nothing. Handed-out instances must be
+ * treated as read-only.
+ *
+ * Reads are optimistic (StampedLock) and only retry under the read lock if
+ * a write raced them. The table is sized for a load factor of at most 0.5;
+ * once maxEntries is reached an insert evicts the first entry on its probe
+ * path. Deletes shift the following entries back instead of leaving
+ * tombstones.
+ */
+final class UserStatusCache {
+    private static final long EMPTY = 0; // User ids start at 1
+    private static final int MAX_CODES = 1 << 16;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int[] expiries; // Seconds since baseMs
+    private final int mask;
+    private final int maxEntries;
+    private final int ttlSeconds;
+    private final long baseMs = System.currentTimeMillis();
+    private final StampedLock lock = new StampedLock();
+    private int size; // Guarded by the write lock
+
+    // Interned (status, country) pairs; a code indexes statuses
+    private final Map<List<String>, Integer> codes = new ConcurrentHashMap<>();
+    private volatile UserStatus[] statuses = new UserStatus[0];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    UserStatusCache(int maxEntries, long ttlMs) {
+        this.maxEntries = Math.max(1, maxEntries);
+        int capacity = Integer.highestOneBit(Math.max(2, this.maxEntries * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.expiries = new int[capacity];
+        this.mask = capacity - 1;
+        this.ttlSeconds = (int) Math.max(1, (ttlMs + 999) / 1000);
+    }
+
+    /**
+     * Cached status, or null if absent or expired.
+     */
+    UserStatus get(long userId) {
+        if (userId == EMPTY) {
+            return null;
+        }
+        int now = nowSeconds();
+        long stamp = lock.tryOptimisticRead();
+        int code = codeOf(userId, now);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                code = codeOf(userId, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (code < 0) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return statuses[code];
+    }
+
+    void put(long userId, String status, String countryCode) {
+        if (userId == EMPTY) {
+            return;
+        }
+        int code = intern(status, countryCode);
+        if (code < 0) {
+            return; // Code space exhausted - not cached
+        }
+        int expiry = nowSeconds() + ttlSeconds;
+
+        long stamp = lock.writeLock();
+        try {
+            int index = indexOf(userId);
+            if (index < 0) {
+                if (size >= maxEntries) {
+                    int victim = slot(userId);
+                    while (keys[victim] == EMPTY) {
+                        victim = (victim + 1) & mask;
+                    }
+                    removeAt(victim);
+                    evictions.increment();
+                }
+                index = slot(userId);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = userId;
+                size++;
+            }
+            values[index] = code;
+            expiries[index] = expiry;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(long userId) {
+        long stamp = lock.writeLock();
+        try {
+            int index = indexOf(userId);
+            if (index >= 0) {
+                removeAt(index);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    Map<String, Object> stats() {
+        long stamp = lock.readLock();
+        int entries;
+        try {
+            entries = size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries);
+        stats.put("capacity", keys.length);
+        stats.put("value_codes", statuses.length);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * Value code of a live entry, or -1. Bounded by the table length, so a
+     * read racing a write (and validated afterwards) always terminates.
+     */
+    private int codeOf(long userId, int now) {
+        int index = slot(userId);
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = keys[index];
+            if (key == userId) {
+                return expiries[index] - now > 0 ? values[index] : -1;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int indexOf(long userId) {
+        int index = slot(userId);
+        while (true) {
+            long key = keys[index];
+            if (key == userId) {
+                return index;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Backward-shift delete: later entries of the probe run move into the gap
+     * unless that would put them before their home slot.
+     */
+    private void removeAt(int index) {
+        int gap = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            long key = keys[next];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = slot(key);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[next];
+                expiries[gap] = expiries[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private int slot(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int nowSeconds() {
+        return (int) ((System.currentTimeMillis() - baseMs) / 1000);
+    }
+
+    private int intern(String status, String countryCode) {
+        List<String> pair = Arrays.asList(status, countryCode);
+        Integer code = codes.get(pair);
+        if (code != null) {
+            return code;
+        }
+        synchronized (codes) {
+            code = codes.get(pair);
+            if (code != null) {
+                return code;
+            }
+            UserStatus[] current = statuses;
+            if (current.length >= MAX_CODES) {
+                return -1;
+            }
+            UserStatus[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new UserStatus(status, countryCode);
+            statuses = next; // Published before the code can be stored in a slot
+            codes.put(pair, current.length);
+            return current.length;
+        }
+    }
+}
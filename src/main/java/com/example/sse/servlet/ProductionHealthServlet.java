@@ -2,6 +2,8 @@ package com.example.sse.servlet;
 
 import com.example.sse.database.DatabaseManager;
 import com.example.sse.database.DatabaseProviderFactory;
+import com.example.sse.util.BackendHealth;
+import com.example.sse.util.JsonCodecs;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -22,7 +24,7 @@ import java.util.Map;
 @WebServlet("/health/*")
 public class ProductionHealthServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(ProductionHealthServlet.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = JsonCodecs.mapper();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -78,9 +80,9 @@ public class ProductionHealthServlet extends HttpServlet {
         health.put("service", "sse-servlet");
 
         try {
-            // Check database
-            var dbProvider = DatabaseProviderFactory.getInstance();
-            boolean dbHealthy = dbProvider.isHealthy();
+            // Passive health state - fed by real calls, no extra round trip here
+            boolean dbHealthy = BackendHealth.database().isHealthy();
+            boolean cacheHealthy = BackendHealth.cache().isHealthy();
 
             // Get production servlet stats
             SSEServlet servlet = getProductionServlet();
@@ -93,7 +95,8 @@ public class ProductionHealthServlet extends HttpServlet {
             // Add component statuses
             Map<String, Object> components = new HashMap<>();
             components.put("database", dbHealthy ? "healthy" : "unhealthy");
-            components.put("cache", "healthy"); // Cache doesn't fail, just misses
+            // Cache down only means misses go to the database
+            components.put("cache", cacheHealthy ? "healthy" : "degraded");
             components.put("servlet", "healthy");
             health.put("components", components);
 
@@ -114,7 +117,7 @@ public class ProductionHealthServlet extends HttpServlet {
     }
 
     /**
-     * Database health - real-time check
+     * Database health - passive state plus pool stats
      */
     private Map<String, Object> getDatabaseHealth() {
         Map<String, Object> health = new HashMap<>();
@@ -124,13 +127,9 @@ public class ProductionHealthServlet extends HttpServlet {
         try {
             var dbProvider = DatabaseProviderFactory.getInstance();
 
-            // Real-time health check
-            long startTime = System.currentTimeMillis();
-            boolean isHealthy = dbProvider.isHealthy();
-            long checkTime = System.currentTimeMillis() - startTime;
-
-            health.put("status", isHealthy ? "healthy" : "unhealthy");
-            health.put("response_time_ms", checkTime);
+            BackendHealth state = BackendHealth.database();
+            health.put("status", state.isHealthy() ? "healthy" : "unhealthy");
+            health.put("health_state", state.snapshot());
 
             // Get connection pool stats if available
             if (dbProvider instanceof DatabaseManager) {
@@ -200,6 +199,7 @@ public class ProductionHealthServlet extends HttpServlet {
         health.put("timestamp", System.currentTimeMillis());
         health.put("component", "cache");
         health.put("status", "healthy"); // Cache doesn't "fail", just misses
+        health.put("backend", BackendHealth.cache().snapshot());
 
         try {
             SSEServlet servlet = getProductionServlet();
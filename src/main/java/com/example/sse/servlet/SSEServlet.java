@@ -1,26 +1,50 @@
 package com.example.sse.servlet;
 
-import com.example.sse.cache.CacheProvider;
+import com.example.sse.cache.CacheBatcher;
 import com.example.sse.cache.CacheProviderFactory;
+import com.example.sse.cache.CachedValue;
+import com.example.sse.cache.InvalidationBus;
+import com.example.sse.cache.LocalCache;
+import com.example.sse.config.ConfigManager;
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.SessionData;
+import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.database.DatabaseProviderFactory;
 import com.example.sse.service.DataService;
 import com.example.sse.service.DataServiceImpl;
+import com.example.sse.stream.SSEConnection;
+import com.example.sse.stream.SSEStreamManager;
+import com.example.sse.stream.SlowConsumerPolicy;
+import com.example.sse.util.BackendExecutors;
+import com.example.sse.util.Deadline;
 import com.example.sse.util.JWTUtil;
+import com.example.sse.util.JsonCodecs;
+import com.example.sse.util.SingleFlight;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.HttpOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -40,15 +64,26 @@ import java.util.concurrent.atomic.AtomicLong;
  * 💾 Lower memory usage (fewer threads)
  * 🔧 Simpler debugging (no background noise)
  * ⚡ Better for scale-to-zero (no interrupted tasks)
+ *
+ * Streaming mode (sse.stream.enabled or ?stream=true):
+ * the connection is kept open via the Servlet async API and subscribed to its
+ * topic (dataCacheKey). Each topic is loaded once per refresh interval and the
+ * same bytes are pushed to every subscriber; a new event is sent only when the
+ * payload changes. Events carry ids; a reconnect with Last-Event-ID gets only
+ * what it missed (nothing, a "delta" event with new comments, or a snapshot).
+ * The stream scheduler is started on the first streaming request, so one-shot
+ * deployments stay thread-free.
  */
-@WebServlet("/api/sse/*")
+@WebServlet(value = "/api/sse/*", asyncSupported = true)
 public class SSEServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(SSEServlet.class);
 
     // === PRODUCTION OPTIMIZED SETTINGS ===
 
+    // Platform-thread pool sizes (virtual mode uses per-backend limits instead)
     private static final int ASYNC_THREADS = 4;
     private static final int TOKEN_THREADS = 2;
+    private static final int STREAM_THREADS = 2;
 
     // Timeouts
     private static final long LOCAL_CACHE_CHECK_MS = 2;
@@ -56,43 +91,102 @@ public class SSEServlet extends HttpServlet {
     private static final long TOKEN_VALIDATION_TIMEOUT_MS = 2000;
     private static final long PARALLEL_DB_TIMEOUT_MS = 8000;
     private static final long INDIVIDUAL_QUERY_TIMEOUT_MS = 6000;
+    // Part of the L3 deadline kept for collecting results after the queries
+    private static final long RESULT_RESERVE_MS = 1000;
 
-    // Cache TTLs
+    // Cache TTLs. Payload tiers have a soft TTL (served as fresh) and a hard TTL
+    // (kept, served stale while one background refresh runs). Tokens are never
+    // served stale.
     private static final long LOCAL_TOKEN_TTL_MS = 300000; // 5 minutes
-    private static final long LOCAL_DATA_TTL_MS = 60000; // 1 minute
-    private static final long LOCAL_SESSION_TTL_MS = 30000; // 30 seconds
+    private static final long DEFAULT_LOCAL_DATA_TTL_MS = 60000; // 1 minute (soft)
+    private static final long DEFAULT_LOCAL_DATA_HARD_TTL_MS = 360000; // 6 minutes
+    private static final long DEFAULT_LOCAL_SESSION_TTL_MS = 30000; // 30 seconds (soft)
+    private static final long DEFAULT_LOCAL_SESSION_HARD_TTL_MS = 120000; // 2 minutes
 
     private static final int REDIS_TOKEN_TTL = 1800; // 30 minutes
-    private static final int REDIS_DATA_TTL = 300; // 5 minutes
-    private static final int REDIS_SESSION_TTL = 120; // 2 minutes
+    private static final int REDIS_DATA_SOFT_TTL = 120; // 2 minutes
+    private static final int REDIS_DATA_TTL = 300; // 5 minutes (hard)
+    private static final int REDIS_SESSION_SOFT_TTL = 60; // 1 minute
+    private static final int REDIS_SESSION_TTL = 120; // 2 minutes (hard)
 
-    // Cache size limits (with lazy cleanup)
-    private static final int MAX_LOCAL_CACHE_SIZE = 200;
-    private static final int LAZY_CLEANUP_THRESHOLD = 150; // Clean when accessing cache
+    // Refresh-ahead: entries hit this often are refreshed in the last 20% of their soft TTL
+    private static final int REFRESH_AHEAD_MIN_HITS = 5;
+    private static final double REFRESH_AHEAD_FRACTION = 0.2;
+
+    // Local cache budgets in approximate bytes (cache.local.*.max.bytes)
+    private static final long DEFAULT_LOCAL_TOKEN_BYTES = 1L << 20; // 1 MB
+    private static final long DEFAULT_LOCAL_DATA_BYTES = 32L << 20; // 32 MB
+    private static final long DEFAULT_LOCAL_SESSION_BYTES = 256L << 10; // 256 KB
+    private static final int LOCAL_ENTRY_OVERHEAD_BYTES = 96;
 
     // Cache key prefixes
     private static final String TOKEN_PREFIX = "sse:token:";
     private static final String DATA_PREFIX = "sse:data:";
     private static final String SESSION_PREFIX = "sse:session:";
 
+    // Served when neither cache nor database answered in time
+    private static final byte[] LOADING_EVENT = frameEvent(
+            "{\"comment_data\":[],\"survey_data\":[],\"session_status\":\"loading\"}");
+    private static final byte[] SESSION_LOADING_EVENT = frameEvent("loading");
+    // Served when the L3 load itself failed
+    private static final byte[] ERROR_DATA_EVENT = frameEvent(
+            "{\"comment_data\":[],\"survey_data\":[],\"session_status\":\"error\"}");
+    // Served when a comments query failed or ran out of time
+    private static final byte[] EMPTY_COMMENTS_EVENT = frameEvent(
+            "{\"comment_data\":[],\"survey_data\":[],\"session_status\":\"\"}");
+
+    // Pieces of a data event, written around the JSON parts
+    private static final byte[] EVENT_HEAD = "data: {\"comment_data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_SURVEYS = ",\"survey_data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_STATUS = ",\"session_status\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_TAIL = "}\n\n".getBytes(StandardCharsets.UTF_8);
+
     // Services
     private DataService dataService;
     private JWTUtil jwtUtil;
     private ObjectMapper objectMapper;
-    private CacheProvider redisCache;
-    private ExecutorService dbExecutor;
-    private ExecutorService tokenExecutor;
+    private CacheBatcher redisBatcher;
+    private Executor dbExecutor;
+    private Executor tokenExecutor;
+    private Executor streamExecutor;
+    private SSEStreamManager streamManager;
+
+    // Streaming mode settings (application.properties)
+    private boolean streamEnabledByDefault;
 
     // Simple performance counters (no background monitoring needed)
     private final AtomicLong requestCount = new AtomicLong(0);
     private final AtomicLong cacheHits = new AtomicLong(0);
     private final AtomicLong timeouts = new AtomicLong(0);
+    private final AtomicLong streamsOpened = new AtomicLong(0);
+    private final AtomicLong coalescedLoads = new AtomicLong(0);
+    private final AtomicLong staleHits = new AtomicLong(0);
+    private final AtomicLong backgroundRefreshes = new AtomicLong(0);
+    private final AtomicLong dbShortCircuits = new AtomicLong(0);
+    private final AtomicLong invalidationsReceived = new AtomicLong(0);
     private volatile long startTime = System.currentTimeMillis();
 
-    // LAZY-CLEANUP Local caches (cleaned on access, not background)
-    private final ConcurrentHashMap<String, LocalCacheEntry<Long>> localTokenCache = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, LocalCacheEntry<String>> localDataCache = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, LocalCacheEntry<String>> localSessionCache = new ConcurrentHashMap<>();
+    // Bounded W-TinyLFU local caches (expiry and eviction amortized on access, no background threads)
+    private final LocalCache<String, LocalCacheEntry<Long>> localTokenCache = newLocalCache(
+            "tokens", "cache.local.token.max.bytes", DEFAULT_LOCAL_TOKEN_BYTES, 160);
+    // Data and session entries hold the complete framed event ("data: ...\n\n") as UTF-8
+    private final LocalCache<String, LocalCacheEntry<byte[]>> localDataCache = newLocalCache(
+            "data", "cache.local.data.max.bytes", DEFAULT_LOCAL_DATA_BYTES, 16384);
+    private final LocalCache<String, LocalCacheEntry<byte[]>> localSessionCache = newLocalCache(
+            "sessions", "cache.local.session.max.bytes", DEFAULT_LOCAL_SESSION_BYTES, 160);
+
+    // L1 payload TTLs (cache.local.*.ttl). Invalidations reach every instance
+    // over the invalidation bus, but only for changes announced through
+    // DataService.invalidate*; rows written elsewhere are bounded by these alone.
+    private final long localDataTtlMs = configMs("cache.local.data.ttl", DEFAULT_LOCAL_DATA_TTL_MS);
+    private final long localDataHardTtlMs = Math.max(localDataTtlMs,
+            configMs("cache.local.data.hard.ttl", DEFAULT_LOCAL_DATA_HARD_TTL_MS));
+    private final long localSessionTtlMs = configMs("cache.local.session.ttl", DEFAULT_LOCAL_SESSION_TTL_MS);
+    private final long localSessionHardTtlMs = Math.max(localSessionTtlMs,
+            configMs("cache.local.session.hard.ttl", DEFAULT_LOCAL_SESSION_HARD_TTL_MS));
+
+    // One L3 load per dataCacheKey at a time - concurrent misses share its framed event
+    private final SingleFlight<String, byte[]> dataLoads = new SingleFlight<>();
 
     @Override
     public void init() throws ServletException {
@@ -103,23 +197,39 @@ public class SSEServlet extends HttpServlet {
 
         try {
             // Core services
-            this.objectMapper = new ObjectMapper();
+            this.objectMapper = JsonCodecs.mapper();
             this.jwtUtil = JWTUtil.getInstance();
             this.dataService = DataServiceImpl.getInstance();
-            this.redisCache = CacheProviderFactory.getInstance();
-
-            // Thread pools (daemon threads - no explicit shutdown needed)
-            this.dbExecutor = Executors.newFixedThreadPool(ASYNC_THREADS, r -> {
-                Thread t = new Thread(r, "prod-db-" + System.currentTimeMillis());
-                t.setDaemon(true); // JVM can exit without waiting for these
-                return t;
-            });
-
-            this.tokenExecutor = Executors.newFixedThreadPool(TOKEN_THREADS, r -> {
-                Thread t = new Thread(r, "prod-token-" + System.currentTimeMillis());
-                t.setDaemon(true); // JVM can exit without waiting for these
-                return t;
-            });
+            // Redis reads/writes from concurrent requests share pipelines
+            this.redisBatcher = CacheProviderFactory.getBatcher();
+            // Invalidations published by any instance evict our L1 entries
+            CacheProviderFactory.getInvalidationBus().subscribe(this::onInvalidate);
+
+            // Thread pools (daemon threads - no explicit shutdown needed).
+            // With server.virtual.threads.enabled these become virtual threads
+            // bounded per backend instead of tiny fixed pools.
+            int dbLimit = BackendExecutors.databaseConcurrency();
+            this.dbExecutor = BackendExecutors.create("prod-db", ASYNC_THREADS, dbLimit);
+            this.tokenExecutor = BackendExecutors.create("prod-token", TOKEN_THREADS,
+                    Runtime.getRuntime().availableProcessors() * 4);
+            this.streamExecutor = BackendExecutors.create("prod-stream", STREAM_THREADS, dbLimit);
+
+            // Streaming mode (scheduler itself is lazy - see SSEStreamManager)
+            ConfigManager config = ConfigManager.getInstance();
+            this.streamEnabledByDefault = config.getBooleanProperty("sse.stream.enabled", false);
+            this.streamManager = new SSEStreamManager(
+                    dataService::getTopicSnapshot,
+                    objectMapper,
+                    streamExecutor,
+                    config.getLongProperty("sse.data.refresh.interval", 2000),
+                    config.getLongProperty("sse.heartbeat.interval", 30000),
+                    config.getLongProperty("sse.connection.timeout", 300000),
+                    new SlowConsumerPolicy(
+                            SlowConsumerPolicy.Action.parse(config.getProperty("sse.stream.slow.consumer.policy")),
+                            config.getIntProperty("sse.stream.max.queued.frames", 4),
+                            config.getLongProperty("sse.stream.write.timeout", 30000)),
+                    config.getIntProperty("sse.stream.replay.buffer.size", 64),
+                    config.getLongProperty("sse.stream.topic.linger", 60000));
 
             long initTime = System.currentTimeMillis() - initStart;
             logger.info("✅ PRODUCTION SSE Servlet initialized in {}ms (No Background Tasks)", initTime);
@@ -146,6 +256,10 @@ public class SSEServlet extends HttpServlet {
         try {
             if (pathInfo != null && pathInfo.contains("session-status")) {
                 handleSessionStatusProduction(request, response, startTime, requestId);
+            } else if (request.getParameter("before_id") != null) {
+                handleCommentPage(request, response, startTime, requestId);
+            } else if (isStreamingRequest(request)) {
+                handleMainSSEStreaming(request, response, requestId);
             } else {
                 handleMainSSEProduction(request, response, startTime, requestId);
             }
@@ -162,7 +276,7 @@ public class SSEServlet extends HttpServlet {
     private void handleMainSSEProduction(HttpServletRequest request, HttpServletResponse response,
             long startTime, long requestId) throws IOException {
 
-        try (PrintWriter out = response.getWriter()) {
+        try {
             String token = request.getParameter("token");
             String typeId = getParameter(request, "type_id", request.getParameter("session_id"));
             String type = getParameter(request, "type", "session");
@@ -171,16 +285,23 @@ public class SSEServlet extends HttpServlet {
 
             String dataCacheKey = type + ":" + typeId;
 
-            // === L1: LOCAL CACHE WITH LAZY CLEANUP ===
-            LocalCacheEntry<String> localData = getFromLocalCacheWithLazyCleanup(localDataCache, dataCacheKey);
-            if (localData != null && !localData.isExpired()) {
-                logger.debug("⚡ Req #{}: L1 HIT", requestId);
+            // === L1: LOCAL CACHE (stale-while-revalidate) ===
+            LocalCacheEntry<byte[]> localData = getFromLocalCache(localDataCache, dataCacheKey);
+            if (localData != null) {
+                if (localData.isExpired()) {
+                    logger.debug("⚡ Req #{}: L1 STALE HIT", requestId);
+                    staleHits.incrementAndGet();
+                } else {
+                    logger.debug("⚡ Req #{}: L1 HIT", requestId);
+                }
                 cacheHits.incrementAndGet();
 
-                out.print("data: ");
-                out.print(localData.value);
-                out.print("\n\n");
-                out.flush();
+                // Past soft TTL (or hot and close to it): one request starts the refresh
+                if (localData.claimRefresh()) {
+                    refreshDataInBackground(localData, token, typeId, type, dataCacheKey, requestId);
+                }
+
+                writeEvent(response, localData.value);
 
                 long responseTimeMs = (System.nanoTime() - startTime) / 1_000_000;
                 logger.debug("✅ Req #{}: L1 response in {}ms", requestId, responseTimeMs);
@@ -190,18 +311,9 @@ public class SSEServlet extends HttpServlet {
             // === L2: PARALLEL TOKEN + REDIS ===
             logger.debug("🔄 Req #{}: Starting parallel token+Redis", requestId);
 
-            CompletableFuture<Long> tokenFuture = CompletableFuture.supplyAsync(() -> {
-                return validateTokenProduction(token, requestId);
-            }, tokenExecutor);
+            CompletableFuture<Long> tokenFuture = validateTokenAsync(token, requestId);
 
-            CompletableFuture<String> redisFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    return redisCache.get(DATA_PREFIX + dataCacheKey);
-                } catch (Exception e) {
-                    logger.debug("Req #{}: Redis failed: {}", requestId, e.getMessage());
-                    return null;
-                }
-            }, dbExecutor);
+            CompletableFuture<CachedValue> redisFuture = readRedisData(dataCacheKey, requestId);
 
             // Wait for both
             try {
@@ -209,25 +321,32 @@ public class SSEServlet extends HttpServlet {
                 bothComplete.get(TOKEN_VALIDATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
 
                 Long userId = tokenFuture.get();
-                String redisData = redisFuture.get();
+                CachedValue redisData = redisFuture.get();
 
                 if (userId == null) {
                     response.setStatus(401);
-                    sendError(out, "Invalid access token");
+                    sendError(response, "Invalid access token");
                     return;
                 }
 
-                if (redisData != null && !redisData.isEmpty()) {
+                if (redisData != null && !redisData.getValue().isEmpty()) {
                     logger.debug("⚡ Req #{}: L2 HIT", requestId);
                     cacheHits.incrementAndGet();
 
-                    // Update L1 cache with lazy cleanup
-                    putToLocalCacheWithLazyCleanup(localDataCache, dataCacheKey, redisData, LOCAL_DATA_TTL_MS);
+                    // L1 copy is never fresher than the Redis entry it came from
+                    long localTtl = localFreshnessMs(redisData, REDIS_DATA_SOFT_TTL, REDIS_DATA_TTL,
+                            localDataTtlMs);
+                    byte[] event = frameEvent(redisData.getValue());
+                    putToLocalCache(localDataCache, dataCacheKey, event, localTtl, localDataHardTtlMs);
+
+                    if (localTtl == 0) {
+                        // Stale in Redis too - serve it and reload behind the response
+                        staleHits.incrementAndGet();
+                        backgroundRefreshes.incrementAndGet();
+                        loadDataCoalesced(userId, typeId, type, dataCacheKey, requestId);
+                    }
 
-                    out.print("data: ");
-                    out.print(redisData);
-                    out.print("\n\n");
-                    out.flush();
+                    writeEvent(response, event);
 
                     long responseTimeMs = (System.nanoTime() - startTime) / 1_000_000;
                     logger.debug("✅ Req #{}: L2 response in {}ms", requestId, responseTimeMs);
@@ -237,20 +356,19 @@ public class SSEServlet extends HttpServlet {
                 // === L3: PARALLEL DATABASE QUERIES ===
                 logger.debug("🔄 Req #{}: Starting parallel DB queries", requestId);
 
-                CompletableFuture<Map<String, Object>> dataFuture = CompletableFuture.supplyAsync(() -> {
-                    return fetchDataProduction(userId, typeId, type, requestId);
-                }, dbExecutor);
+                // Requests missing the same key while a load is running join it
+                // instead of each running the parallel queries again; each waits
+                // only for its own time
+                CompletableFuture<byte[]> dataFuture = loadDataCoalesced(userId, typeId, type, dataCacheKey,
+                        requestId);
 
-                Map<String, Object> mainData = dataFuture.get(PARALLEL_DB_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-                String jsonData = objectMapper.writeValueAsString(mainData);
-
-                out.print("data: ");
-                out.print(jsonData);
-                out.print("\n\n");
-                out.flush();
-
-                // Update caches asynchronously
-                updateAllCachesProduction(dataCacheKey, jsonData);
+                byte[] event = dataFuture.get(PARALLEL_DB_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    // Database breaker open - stale copy or loading state, nothing cached
+                    handleTimeoutFallback(dataCacheKey, response, requestId);
+                    return;
+                }
+                writeEvent(response, event);
 
                 long responseTimeMs = (System.nanoTime() - startTime) / 1_000_000;
                 logger.debug("✅ Req #{}: L3 response in {}ms", requestId, responseTimeMs);
@@ -260,7 +378,7 @@ public class SSEServlet extends HttpServlet {
                 long responseTimeMs = (System.nanoTime() - startTime) / 1_000_000;
                 logger.warn("⏰ Req #{}: Timeout after {}ms", requestId, responseTimeMs);
 
-                handleTimeoutFallback(out, dataCacheKey, response, requestId);
+                handleTimeoutFallback(dataCacheKey, response, requestId);
             }
 
         } catch (Exception e) {
@@ -271,61 +389,182 @@ public class SSEServlet extends HttpServlet {
     }
 
     /**
-     * PRODUCTION Token validation
+     * Older comments, for scrolling back past the tail window:
+     * ?before_id=&lt;knwlg_session_qna_id&gt; returns the page of comments
+     * just below it in the usual payload shape, with empty polls and a null
+     * status (the live payload carries those). Pages bypass the shared
+     * payload caches; the per-user comment cache absorbs repeated requests.
      */
-    private Long validateTokenProduction(String token, long requestId) {
-        if (token == null || token.trim().isEmpty()) {
-            return null;
+    private void handleCommentPage(HttpServletRequest request, HttpServletResponse response, long startTime,
+            long requestId) throws IOException {
+        Long beforeId = parseBeforeId(request.getParameter("before_id"));
+        if (beforeId == null) {
+            response.setStatus(400);
+            sendError(response, "before_id must be a positive comment id");
+            return;
         }
 
-        String tokenKey = String.valueOf(token.hashCode());
+        String token = request.getParameter("token");
+        String typeId = getParameter(request, "type_id", request.getParameter("session_id"));
+        String type = getParameter(request, "type", "session");
 
-        // L1: Local cache with lazy cleanup
-        LocalCacheEntry<Long> localToken = getFromLocalCacheWithLazyCleanup(localTokenCache, tokenKey);
-        if (localToken != null && !localToken.isExpired()) {
-            logger.debug("⚡ Req #{}: Token L1 HIT", requestId);
-            return localToken.value;
-        }
+        logger.debug("📜 Req #{}: comment page typeId={}, type={}, before_id={}", requestId, typeId, type, beforeId);
 
-        // L2: Redis
         try {
-            CompletableFuture<String> redisFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    return redisCache.get(TOKEN_PREFIX + tokenKey);
-                } catch (Exception e) {
-                    return null;
-                }
-            });
-
-            String cachedUserId = redisFuture.get(REDIS_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            if (cachedUserId != null && !cachedUserId.isEmpty()) {
-                Long userId = Long.parseLong(cachedUserId);
-                logger.debug("⚡ Req #{}: Token L2 HIT", requestId);
+            Long userId = validateTokenAsync(token, requestId).get(TOKEN_VALIDATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (userId == null) {
+                response.setStatus(401);
+                sendError(response, "Invalid access token");
+                return;
+            }
 
-                // Update L1 cache
-                putToLocalCacheWithLazyCleanup(localTokenCache, tokenKey, userId, LOCAL_TOKEN_TTL_MS);
-                return userId;
+            long queryStart = System.currentTimeMillis();
+            byte[] event = Deadline.after(INDIVIDUAL_QUERY_TIMEOUT_MS)
+                    .supplyAsync(() -> renderCommentsEvent(userId, typeId, type, beforeId, null), dbExecutor)
+                    .handle((result, error) -> queryResult(requestId, "Comment page", queryStart, result, error,
+                            (byte[]) null))
+                    .join();
+            if (event == null) {
+                // An empty page would read as "no older comments"
+                response.setStatus(503);
+                sendError(response, "Comments temporarily unavailable");
+                return;
             }
+            writeEvent(response, event);
+
+            long responseTimeMs = (System.nanoTime() - startTime) / 1_000_000;
+            logger.debug("✅ Req #{}: comment page in {}ms", requestId, responseTimeMs);
+
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            response.setStatus(504);
+            sendError(response, "Request timed out");
         } catch (Exception e) {
-            logger.debug("Req #{}: Token Redis failed: {}", requestId, e.getMessage());
+            logger.error("❌ Req #{}: Comment page error: {}", requestId, e.getMessage());
+            response.setStatus(500);
+            sendErrorResponse(response, "Service temporarily unavailable");
         }
+    }
 
-        // L3: JWT validation
+    private static Long parseBeforeId(String value) {
         try {
-            CompletableFuture<Long> jwtFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    Claims claims = jwtUtil.validateToken(token);
-                    return jwtUtil.getUserId(claims);
-                } catch (Exception e) {
+            long id = Long.parseLong(value.trim());
+            return id > 0 ? id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streaming mode is on by default when sse.stream.enabled=true; a request can
+     * always opt in or out explicitly with ?stream=true|false.
+     */
+    private boolean isStreamingRequest(HttpServletRequest request) {
+        String stream = request.getParameter("stream");
+        if (stream == null || stream.isEmpty()) {
+            return streamEnabledByDefault;
+        }
+        return "true".equalsIgnoreCase(stream) || "1".equals(stream);
+    }
+
+    /**
+     * PRODUCTION Streaming SSE Handler - keeps the connection open and pushes
+     * a new event only when comment_data, survey_data or session_status change.
+     * All streams of one dataCacheKey share a single topic refresh.
+     */
+    private void handleMainSSEStreaming(HttpServletRequest request, HttpServletResponse response,
+            long requestId) throws IOException {
+
+        String token = request.getParameter("token");
+        String typeId = getParameter(request, "type_id", request.getParameter("session_id"));
+        String type = getParameter(request, "type", "session");
+        String dataCacheKey = type + ":" + typeId;
+
+        logger.debug("📡 Req #{}: stream typeId={}, type={}", requestId, typeId, type);
+
+        // Token is validated once per connection, not once per event
+        Long userId;
+        try {
+            userId = validateTokenAsync(token, requestId).get(TOKEN_VALIDATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("⏰ Req #{}: Stream token validation failed: {}", requestId, e.getMessage());
+            userId = null;
+        }
+
+        if (userId == null) {
+            response.setStatus(401);
+            sendError(response, "Invalid access token");
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(streamManager.getConnectionTimeoutMs());
+
+        SSEConnection connection = new SSEConnection(requestId, userId, dataCacheKey, asyncContext,
+                streamManager.getSlowConsumerPolicy());
+        // EventSource sends the header on reconnect; polyfills often can only use the query
+        connection.setLastEventId(getParameter(request, "lastEventId", request.getHeader("Last-Event-ID")));
+        streamManager.subscribe(connection, asyncContext, typeId, type);
+        streamsOpened.incrementAndGet();
+    }
+
+    /**
+     * PRODUCTION Token validation - no thread waits on Redis: an L1 hit
+     * completes at once, the L2 read is batched and non-blocking, and only an
+     * L2 miss moves on to the token pool for JWT verification. Completes with
+     * null for a missing or invalid token.
+     */
+    private CompletableFuture<Long> validateTokenAsync(String token, long requestId) {
+        if (token == null || token.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Digest, not hashCode(): colliding keys would map one user's token to another's id
+        String tokenKey = JWTUtil.tokenDigest(token);
+
+        // L1: Local cache with lazy cleanup
+        LocalCacheEntry<Long> localToken = getFromLocalCache(localTokenCache, tokenKey);
+        if (localToken != null && !localToken.isExpired()) {
+            logger.debug("⚡ Req #{}: Token L1 HIT", requestId);
+            return CompletableFuture.completedFuture(localToken.value);
+        }
+
+        // L2: Redis - a slow or failed read counts as a miss
+        return redisBatcher.getWithTtl(TOKEN_PREFIX + tokenKey)
+                .completeOnTimeout(null, REDIS_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    logger.debug("Req #{}: Token Redis failed: {}", requestId, e.getMessage());
                     return null;
-                }
-            });
+                })
+                .thenCompose(cached -> {
+                    if (cached != null && cached.getValue() != null && !cached.getValue().isEmpty()) {
+                        try {
+                            Long userId = Long.parseLong(cached.getValue());
+                            logger.debug("⚡ Req #{}: Token L2 HIT", requestId);
+
+                            // Update L1 cache - the Redis TTL was capped at the token's exp
+                            long ttl = cached.getRemainingTtlMs() < 0 ? LOCAL_TOKEN_TTL_MS
+                                    : Math.min(LOCAL_TOKEN_TTL_MS, cached.getRemainingTtlMs());
+                            putToLocalCache(localTokenCache, tokenKey, userId, ttl, ttl);
+                            return CompletableFuture.completedFuture(userId);
+                        } catch (NumberFormatException e) {
+                            logger.debug("Req #{}: Bad cached token entry: {}", requestId, e.getMessage());
+                        }
+                    }
+                    // L3: JWT validation - CPU only, on the token pool
+                    return CompletableFuture.supplyAsync(() -> verifyToken(token, tokenKey, requestId),
+                            tokenExecutor);
+                });
+    }
 
-            Long userId = jwtFuture.get(1500, TimeUnit.MILLISECONDS);
+    private Long verifyToken(String token, String tokenKey, long requestId) {
+        try {
+            Claims claims = jwtUtil.validateToken(token);
+            Long userId = jwtUtil.getUserId(claims);
 
             if (userId != null) {
                 logger.debug("✅ Req #{}: Token L3 validated", requestId);
-                updateTokenCaches(tokenKey, userId);
+                updateTokenCaches(tokenKey, userId, jwtUtil.getRemainingLifetimeMs(claims));
             }
 
             return userId;
@@ -337,116 +576,237 @@ public class SSEServlet extends HttpServlet {
     }
 
     /**
-     * PRODUCTION parallel data fetching
+     * PRODUCTION parallel data fetching - batched with other requests' Redis
+     * reads; a failed read completes with null.
      */
-    private Map<String, Object> fetchDataProduction(Long userId, String typeId, String type, long requestId) {
-        Map<String, Object> mainData = new HashMap<>();
+    private CompletableFuture<CachedValue> readRedisData(String dataCacheKey, long requestId) {
+        return redisBatcher.getWithTtl(DATA_PREFIX + dataCacheKey).exceptionally(e -> {
+            logger.debug("Req #{}: Redis failed: {}", requestId, e.getMessage());
+            return null;
+        });
+    }
 
-        logger.debug("🔄 Req #{}: Production DB fetch start", requestId);
+    /**
+     * How long an L2 value may be served as fresh from L1: at most the local
+     * soft TTL and never past its own soft TTL in Redis. 0 means it is stale.
+     */
+    private static long localFreshnessMs(CachedValue cached, int redisSoftTtl, int redisHardTtl,
+            long localTtlMs) {
+        if (cached.getRemainingTtlMs() == CachedValue.NO_EXPIRY) {
+            return localTtlMs;
+        }
+        long softLeftMs = redisSoftTtl * 1000L - cached.getAgeMs(redisHardTtl * 1000L);
+        return Math.max(0, Math.min(localTtlMs, softLeftMs));
+    }
 
-        // Start ALL queries in parallel
-        CompletableFuture<List<?>> commentFuture = CompletableFuture.supplyAsync(() -> {
-            try {
-                long queryStart = System.currentTimeMillis();
-                List<?> result = dataService.getComments(userId, typeId, type);
-                long queryTime = System.currentTimeMillis() - queryStart;
-                logger.debug("📊 Req #{}: Comments {}ms, {} items", requestId, queryTime,
-                        result != null ? result.size() : 0);
-                return result != null ? result : List.of();
-            } catch (Exception e) {
-                logger.warn("Req #{}: Comments failed: {}", requestId, e.getMessage());
-                return List.of();
+    /**
+     * Refresh a stale or soon-to-expire L1 data entry without making any
+     * request wait: take a fresh L2 copy if another instance already reloaded
+     * it, otherwise run the coalesced L3 load. On failure the entry can be
+     * claimed again by a later request.
+     */
+    private void refreshDataInBackground(LocalCacheEntry<byte[]> entry, String token, String typeId, String type,
+            String dataCacheKey, long requestId) {
+        backgroundRefreshes.incrementAndGet();
+        logger.debug("🔄 Req #{}: Background refresh of {}", requestId, dataCacheKey);
+
+        CompletableFuture<Long> tokenFuture = validateTokenAsync(token, requestId);
+
+        CompletableFuture<CachedValue> redisFuture = readRedisData(dataCacheKey, requestId);
+
+        tokenFuture.thenCombine(redisFuture, (userId, cached) -> {
+            if (cached != null && !cached.getValue().isEmpty()) {
+                long localTtl = localFreshnessMs(cached, REDIS_DATA_SOFT_TTL, REDIS_DATA_TTL, localDataTtlMs);
+                if (localTtl > 0) {
+                    byte[] event = frameEvent(cached.getValue());
+                    putToLocalCache(localDataCache, dataCacheKey, event, localTtl, localDataHardTtlMs);
+                    return CompletableFuture.completedFuture(event);
+                }
             }
-        }, dbExecutor);
-
-        CompletableFuture<List<?>> surveyFuture = null;
-        CompletableFuture<String> sessionStatusFuture = null;
+            if (userId == null) {
+                return CompletableFuture.<byte[]>completedFuture(null);
+            }
+            return loadDataCoalesced(userId, typeId, type, dataCacheKey, requestId);
+        }).thenCompose(load -> load)
+                .orTimeout(PARALLEL_DB_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((event, error) -> {
+                    if (error != null || event == null) {
+                        entry.refreshFailed();
+                        logger.debug("Req #{}: Background refresh of {} failed", requestId, dataCacheKey);
+                    }
+                });
+    }
 
-        if ("session".equals(type)) {
-            surveyFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    long queryStart = System.currentTimeMillis();
-                    List<?> result = dataService.getStreamingPolls(typeId, userId);
-                    long queryTime = System.currentTimeMillis() - queryStart;
-                    logger.debug("📊 Req #{}: Surveys {}ms, {} items", requestId, queryTime,
-                            result != null ? result.size() : 0);
-                    return result != null ? result : List.of();
-                } catch (Exception e) {
-                    logger.warn("Req #{}: Surveys failed: {}", requestId, e.getMessage());
-                    return List.of();
-                }
-            }, dbExecutor);
+    private void refreshSessionStatusInBackground(LocalCacheEntry<byte[]> entry, String sessionId,
+            long requestId) {
+        backgroundRefreshes.incrementAndGet();
+
+        dataService.getSessionStatusAsync(sessionId, Deadline.after(INDIVIDUAL_QUERY_TIMEOUT_MS), dbExecutor)
+                .whenComplete((status, error) -> {
+                    if (error == null) {
+                        String statusResult = status != null ? status : "unknown";
+                        updateSessionCaches(sessionId, statusResult, frameEvent(statusResult));
+                    } else {
+                        if (entry != null) {
+                            entry.refreshFailed();
+                        }
+                        logger.debug("Req #{}: Background session refresh failed: {}", requestId,
+                                error.getMessage());
+                    }
+                });
+    }
 
-            sessionStatusFuture = CompletableFuture.supplyAsync(() -> {
-                try {
-                    long queryStart = System.currentTimeMillis();
-                    String result = dataService.getSessionStatus(typeId);
-                    long queryTime = System.currentTimeMillis() - queryStart;
-                    logger.debug("📊 Req #{}: Status {}ms, result: {}", requestId, queryTime, result);
-                    return result;
-                } catch (Exception e) {
-                    logger.warn("Req #{}: Status failed: {}", requestId, e.getMessage());
-                    return "unavailable";
-                }
-            }, dbExecutor);
+    /**
+     * Single-flight L3 load for one dataCacheKey. The leader runs the parallel
+     * queries, serializes and frames once and refreshes the caches; followers
+     * get the same event bytes. A follower timing out does not cancel the shared load, so the
+     * caches still get filled for the next request; the load runs under a
+     * deadline of its own, not the leader's.
+     */
+    private CompletableFuture<byte[]> loadDataCoalesced(Long userId, String typeId, String type,
+            String dataCacheKey, long requestId) {
+        if (!dataService.isDatabaseReady()) {
+            // Open breaker: skip the tier instead of caching an empty result
+            dbShortCircuits.incrementAndGet();
+            logger.debug("🔌 Req #{}: Database unavailable, not loading {}", requestId, dataCacheKey);
+            return CompletableFuture.completedFuture(null);
         }
 
-        // Collect results
-        try {
-            if ("session".equals(type)) {
-                CompletableFuture<Void> allQueries = CompletableFuture.allOf(
-                        commentFuture, surveyFuture, sessionStatusFuture);
+        boolean[] leader = new boolean[1];
+        CompletableFuture<byte[]> future = dataLoads.execute(dataCacheKey, () -> {
+            leader[0] = true;
+            return fetchDataProduction(userId, typeId, type, Deadline.after(PARALLEL_DB_TIMEOUT_MS), requestId)
+                    .thenApply(event -> {
+                        // Redis keeps the bare JSON, L1 and the response the framed event
+                        updateAllCachesProduction(dataCacheKey, eventPayload(event), event);
+                        return event;
+                    });
+        });
 
-                allQueries.get(PARALLEL_DB_TIMEOUT_MS - 1000, TimeUnit.MILLISECONDS);
+        if (!leader[0]) {
+            coalescedLoads.incrementAndGet();
+            logger.debug("🔗 Req #{}: Joined in-flight load for {}", requestId, dataCacheKey);
+        }
+        return future;
+    }
 
-                mainData.put("comment_data", commentFuture.get());
-                mainData.put("survey_data", surveyFuture.get());
-                mainData.put("session_status", sessionStatusFuture.get());
+    /**
+     * L3 load under one deadline - a single session-data call for sessions,
+     * comments otherwise - rendered as a complete event. A query still
+     * running when the deadline passes is cancelled (its connection goes back
+     * to the pool) and the payload falls back to empty; RESULT_RESERVE_MS of
+     * the deadline is left for serializing.
+     *
+     * Nothing here waits: the event is rendered by a continuation of the
+     * query future, on whichever thread completes it. A task blocking on a
+     * query queued behind it on the same pool would starve dbExecutor once
+     * enough different keys miss at once.
+     *
+     * The event is assembled in the thread's reusable buffer and copied out
+     * once - that array is what gets cached and sent. Comments outside
+     * sessions are written into the buffer by the query task itself (see
+     * writeCommentsJson), sessions' cached comment and poll beans by the
+     * continuation; no payload map, intermediate String or per-part byte[]
+     * is built.
+     */
+    private CompletableFuture<byte[]> fetchDataProduction(Long userId, String typeId, String type,
+            Deadline deadline, long requestId) {
+        Deadline queryDeadline = deadline.withReserve(RESULT_RESERVE_MS);
+        boolean isSession = "session".equals(type);
+
+        logger.debug("🔄 Req #{}: Production DB fetch start, {}ms left", requestId, queryDeadline.remainingMs());
+
+        long queryStart = System.currentTimeMillis();
+        CompletableFuture<byte[]> event;
+        if (isSession) {
+            // Comments, polls and status on one connection in one round trip
+            event = dataService.getSessionDataAsync(userId, typeId, queryDeadline, dbExecutor)
+                    .handle((result, error) -> queryResult(requestId, "Session data", queryStart, result, error,
+                            new SessionData(List.of(), List.of(), isTimeout(error) ? "timeout" : "unavailable")))
+                    .thenApply(SSEServlet::renderSessionEvent);
+        } else {
+            event = queryDeadline.supplyAsync(() -> renderCommentsEvent(userId, typeId, type, null, ""), dbExecutor)
+                    .handle((result, error) -> queryResult(requestId, "Comments", queryStart, result, error,
+                            EMPTY_COMMENTS_EVENT));
+        }
 
-                logger.debug("✅ Req #{}: All 3 queries completed", requestId);
+        return event.handle((result, error) -> {
+            if (error != null) {
+                logger.error("Req #{}: DB error: {}", requestId, error.getMessage());
+                return ERROR_DATA_EVENT;
+            }
+            logger.debug("✅ Req #{}: DB fetch completed", requestId);
+            return result;
+        });
+    }
 
-            } else {
-                mainData.put("comment_data", commentFuture.get(INDIVIDUAL_QUERY_TIMEOUT_MS, TimeUnit.MILLISECONDS));
-                mainData.put("survey_data", List.of());
-                mainData.put("session_status", "");
+    private static byte[] renderSessionEvent(SessionData session) {
+        List<CommentData> comments = session.getComments() != null ? session.getComments() : List.of();
+        try {
+            return renderEvent(out -> JsonCodecs.COMMENT_LIST.writeTo(out, comments),
+                    session.getSurveys() != null ? session.getSurveys() : List.of(),
+                    session.getSessionStatus());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-                logger.debug("✅ Req #{}: Comments query completed", requestId);
-            }
+    private byte[] renderCommentsEvent(Long userId, String typeId, String type, Long beforeId, String sessionStatus) {
+        try {
+            return renderEvent(out -> dataService.writeCommentsJson(userId, typeId, type, beforeId, out),
+                    List.of(), sessionStatus);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        } catch (TimeoutException e) {
-            logger.warn("⏰ Req #{}: Parallel queries timeout - collecting partial", requestId);
+    /**
+     * data: {"comment_data":&lt;comments&gt;,"survey_data":[...],"session_status":"..."}
+     *
+     * Built in the thread's reusable buffer, comments written straight into it.
+     */
+    private static byte[] renderEvent(CommentsWriter comments, List<SurveyData> surveys, String sessionStatus)
+            throws IOException {
+        ByteArrayOutputStream buffer = JsonCodecs.threadBuffer();
+        buffer.write(EVENT_HEAD);
+        comments.writeTo(buffer);
+        buffer.write(EVENT_SURVEYS);
+        JsonCodecs.SURVEY_LIST.writeTo(buffer, surveys);
+        buffer.write(EVENT_STATUS);
+        buffer.write(JsonCodecs.mapper().writeValueAsBytes(sessionStatus));
+        buffer.write(EVENT_TAIL);
+        return buffer.toByteArray();
+    }
 
-            // Collect partial results
-            try {
-                mainData.put("comment_data", commentFuture.isDone() ? commentFuture.get() : List.of());
-            } catch (Exception ex) {
-                mainData.put("comment_data", List.of());
-            }
+    /**
+     * Appends a comment_data JSON array to the event being built.
+     */
+    @FunctionalInterface
+    private interface CommentsWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
 
-            if ("session".equals(type)) {
-                try {
-                    mainData.put("survey_data", surveyFuture.isDone() ? surveyFuture.get() : List.of());
-                } catch (Exception ex) {
-                    mainData.put("survey_data", List.of());
-                }
-                try {
-                    mainData.put("session_status",
-                            sessionStatusFuture.isDone() ? sessionStatusFuture.get() : "timeout");
-                } catch (Exception ex) {
-                    mainData.put("session_status", "timeout");
-                }
+    /**
+     * Result of one L3 query, or fallback if it failed or ran out of time.
+     */
+    private static <T> T queryResult(long requestId, String name, long queryStart, T result, Throwable error,
+            T fallback) {
+        long queryTime = System.currentTimeMillis() - queryStart;
+        if (error != null) {
+            if (isTimeout(error)) {
+                logger.warn("⏰ Req #{}: {} cancelled at deadline after {}ms", requestId, name, queryTime);
             } else {
-                mainData.put("survey_data", List.of());
-                mainData.put("session_status", "");
+                logger.warn("Req #{}: {} failed: {}", requestId, name, error.getMessage());
             }
-        } catch (Exception e) {
-            logger.error("Req #{}: DB error: {}", requestId, e.getMessage());
-            mainData.put("comment_data", List.of());
-            mainData.put("survey_data", List.of());
-            mainData.put("session_status", "error");
+            return fallback;
         }
+        logger.debug("📊 Req #{}: {} {}ms", requestId, name, queryTime);
+        return result != null ? result : fallback;
+    }
 
-        return mainData;
+    private static boolean isTimeout(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException;
     }
 
     /**
@@ -455,39 +815,44 @@ public class SSEServlet extends HttpServlet {
     private void handleSessionStatusProduction(HttpServletRequest request, HttpServletResponse response,
             long startTime, long requestId) throws IOException {
 
-        try (PrintWriter out = response.getWriter()) {
+        try {
             String sessionId = request.getParameter("session_id");
 
             if (sessionId == null || sessionId.trim().isEmpty()) {
                 response.setStatus(400);
-                sendError(out, "session_id parameter required");
+                sendError(response, "session_id parameter required");
                 return;
             }
 
-            // L1: Local cache with lazy cleanup
-            LocalCacheEntry<String> localStatus = getFromLocalCacheWithLazyCleanup(localSessionCache, sessionId);
-            if (localStatus != null && !localStatus.isExpired()) {
-                out.print("data: " + localStatus.value + "\n\n");
-                out.flush();
+            // L1: Local cache (stale-while-revalidate)
+            LocalCacheEntry<byte[]> localStatus = getFromLocalCache(localSessionCache, sessionId);
+            if (localStatus != null) {
+                if (localStatus.isExpired()) {
+                    staleHits.incrementAndGet();
+                }
+                if (localStatus.claimRefresh()) {
+                    refreshSessionStatusInBackground(localStatus, sessionId, requestId);
+                }
+                writeEvent(response, localStatus.value);
                 logger.debug("⚡ Req #{}: Session L1 HIT", requestId);
                 return;
             }
 
             // L2: Redis
             try {
-                CompletableFuture<String> redisFuture = CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return redisCache.get(SESSION_PREFIX + sessionId);
-                    } catch (Exception e) {
-                        return null;
+                CompletableFuture<CachedValue> redisFuture = redisBatcher.getWithTtl(SESSION_PREFIX + sessionId);
+
+                CachedValue redisStatus = redisFuture.get(REDIS_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (redisStatus != null && !redisStatus.getValue().isEmpty()) {
+                    long localTtl = localFreshnessMs(redisStatus, REDIS_SESSION_SOFT_TTL, REDIS_SESSION_TTL,
+                            localSessionTtlMs);
+                    byte[] event = frameEvent(redisStatus.getValue());
+                    putToLocalCache(localSessionCache, sessionId, event, localTtl, localSessionHardTtlMs);
+                    if (localTtl == 0) {
+                        staleHits.incrementAndGet();
+                        refreshSessionStatusInBackground(null, sessionId, requestId);
                     }
-                });
-
-                String redisStatus = redisFuture.get(REDIS_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-                if (redisStatus != null && !redisStatus.isEmpty()) {
-                    putToLocalCacheWithLazyCleanup(localSessionCache, sessionId, redisStatus, LOCAL_SESSION_TTL_MS);
-                    out.print("data: " + redisStatus + "\n\n");
-                    out.flush();
+                    writeEvent(response, event);
                     logger.debug("⚡ Req #{}: Session L2 HIT", requestId);
                     return;
                 }
@@ -495,28 +860,36 @@ public class SSEServlet extends HttpServlet {
                 logger.debug("Req #{}: Session Redis failed: {}", requestId, e.getMessage());
             }
 
-            // L3: Database
+            // L3: Database (skipped while its circuit breaker is open)
+            if (!dataService.isDatabaseReady()) {
+                dbShortCircuits.incrementAndGet();
+                writeEvent(response, SESSION_LOADING_EVENT);
+                return;
+            }
             try {
-                CompletableFuture<String> dbFuture = CompletableFuture.supplyAsync(() -> {
-                    try {
-                        return dataService.getSessionStatus(sessionId);
-                    } catch (Exception e) {
-                        return "unavailable";
-                    }
-                }, dbExecutor);
+                // Cancelled at the deadline, so a slow query does not keep its connection
+                CompletableFuture<String> dbFuture = dataService.getSessionStatusAsync(sessionId,
+                        Deadline.after(INDIVIDUAL_QUERY_TIMEOUT_MS), dbExecutor);
 
-                String status = dbFuture.get(INDIVIDUAL_QUERY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                String status;
+                try {
+                    status = dbFuture.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof TimeoutException timeout) {
+                        throw timeout;
+                    }
+                    status = "unavailable";
+                }
                 String statusResult = status != null ? status : "unknown";
 
-                out.print("data: " + statusResult + "\n\n");
-                out.flush();
+                byte[] event = frameEvent(statusResult);
+                writeEvent(response, event);
 
-                updateSessionCaches(sessionId, statusResult);
+                updateSessionCaches(sessionId, statusResult, event);
                 logger.debug("✅ Req #{}: Session L3 response", requestId);
 
             } catch (TimeoutException e) {
-                out.print("data: loading\n\n");
-                out.flush();
+                writeEvent(response, SESSION_LOADING_EVENT);
                 logger.warn("⏰ Req #{}: Session timeout", requestId);
             }
 
@@ -527,67 +900,56 @@ public class SSEServlet extends HttpServlet {
         }
     }
 
-    // === LAZY CLEANUP CACHE METHODS (No background tasks needed!) ===
+    // === LOCAL CACHE METHODS ===
 
     /**
-     * Get from cache with lazy cleanup - removes expired entries when accessing
+     * Get from a local cache. The entry may be past its TTL (kept for timeout
+     * fallbacks) - callers check isExpired(). (package-private for benchmarks)
      */
-    private <T> LocalCacheEntry<T> getFromLocalCacheWithLazyCleanup(
-            ConcurrentHashMap<String, LocalCacheEntry<T>> cache, String key) {
-
-        // Lazy cleanup: Remove expired entries occasionally when accessing cache
-        if (cache.size() > LAZY_CLEANUP_THRESHOLD && Math.random() < 0.1) { // 10% chance
-            cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
-            logger.debug("🧹 Lazy cleanup removed expired entries from cache (size: {})", cache.size());
-        }
-
+    <T> LocalCacheEntry<T> getFromLocalCache(LocalCache<String, LocalCacheEntry<T>> cache, String key) {
         return cache.get(key);
     }
 
     /**
-     * Put to cache with size limit - removes entries if cache gets too big
+     * Put to a local cache; the cache evicts by weight and frequency when full.
+     * The entry is fresh for softTtl and kept (servable stale) until hardTtl.
+     * (package-private for benchmarks)
      */
-    private <T> void putToLocalCacheWithLazyCleanup(
-            ConcurrentHashMap<String, LocalCacheEntry<T>> cache, String key, T value, long ttl) {
-
-        // If cache is getting full, clean it up
-        if (cache.size() >= MAX_LOCAL_CACHE_SIZE) {
-            // Remove expired entries first
-            cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
-
-            // If still too big, remove 20% of entries (LRU approximation)
-            if (cache.size() >= MAX_LOCAL_CACHE_SIZE) {
-                cache.entrySet().stream()
-                        .limit(cache.size() / 5)
-                        .forEach(entry -> cache.remove(entry.getKey()));
-                logger.debug("🧹 Cache size limit reached, removed old entries (size: {})", cache.size());
-            }
-        }
+    <T> void putToLocalCache(LocalCache<String, LocalCacheEntry<T>> cache, String key, T value, long softTtl,
+            long hardTtl) {
+        cache.put(key, new LocalCacheEntry<>(value, softTtl), Math.max(softTtl, hardTtl));
+    }
 
-        cache.put(key, new LocalCacheEntry<>(value, ttl));
+    private static long configMs(String property, long defaultMs) {
+        return ConfigManager.getInstance().getLongProperty(property, defaultMs);
     }
 
-    private void handleTimeoutFallback(PrintWriter out, String dataCacheKey, HttpServletResponse response,
-            long requestId) {
+    static <T> LocalCache<String, LocalCacheEntry<T>> newLocalCache(String name, String property,
+            long defaultBytes, int typicalEntryBytes) {
+        long maxBytes = ConfigManager.getInstance().getLongProperty(property, defaultBytes);
+        return new LocalCache<>(name, maxBytes, maxBytes / typicalEntryBytes, SSEServlet::weigh);
+    }
+
+    /**
+     * Approximate heap cost of an entry: exact for framed events.
+     */
+    private static int weigh(String key, LocalCacheEntry<?> entry) {
+        int valueBytes = entry.value instanceof byte[] bytes ? bytes.length : 16;
+        return LOCAL_ENTRY_OVERHEAD_BYTES + key.length() + valueBytes;
+    }
+
+    private void handleTimeoutFallback(String dataCacheKey, HttpServletResponse response, long requestId) {
         try {
             // Try expired cache first
-            LocalCacheEntry<String> localData = localDataCache.get(dataCacheKey);
+            LocalCacheEntry<byte[]> localData = getFromLocalCache(localDataCache, dataCacheKey);
             if (localData != null) {
                 logger.info("📤 Req #{}: Returning expired cache (fallback)", requestId);
-                out.print("data: " + localData.value + "\n\n");
-                out.flush();
+                writeEvent(response, localData.value);
                 return;
             }
 
             // Return loading state
-            Map<String, Object> loadingData = new HashMap<>();
-            loadingData.put("comment_data", List.of());
-            loadingData.put("survey_data", List.of());
-            loadingData.put("session_status", "loading");
-
-            String jsonData = objectMapper.writeValueAsString(loadingData);
-            out.print("data: " + jsonData + "\n\n");
-            out.flush();
+            writeEvent(response, LOADING_EVENT);
 
             logger.info("📤 Req #{}: Returned loading state", requestId);
 
@@ -597,37 +959,29 @@ public class SSEServlet extends HttpServlet {
         }
     }
 
-    private void updateAllCachesProduction(String key, String data) {
-        CompletableFuture.runAsync(() -> {
-            putToLocalCacheWithLazyCleanup(localDataCache, key, data, LOCAL_DATA_TTL_MS);
-            try {
-                redisCache.set(DATA_PREFIX + key, data, REDIS_DATA_TTL);
-            } catch (Exception e) {
-                logger.debug("Redis cache write failed: {}", e.getMessage());
-            }
-        });
+    private void updateAllCachesProduction(String key, String data, byte[] event) {
+        // L1 right away so the next request already hits; Redis write goes out with the next batch
+        putToLocalCache(localDataCache, key, event, localDataTtlMs, localDataHardTtlMs);
+        redisBatcher.set(DATA_PREFIX + key, data, REDIS_DATA_TTL);
     }
 
-    private void updateTokenCaches(String tokenKey, Long userId) {
-        CompletableFuture.runAsync(() -> {
-            putToLocalCacheWithLazyCleanup(localTokenCache, tokenKey, userId, LOCAL_TOKEN_TTL_MS);
-            try {
-                redisCache.set(TOKEN_PREFIX + tokenKey, userId.toString(), REDIS_TOKEN_TTL);
-            } catch (Exception e) {
-                logger.debug("Redis token write failed: {}", e.getMessage());
-            }
-        });
+    /**
+     * Neither tier may outlive the token itself.
+     */
+    private void updateTokenCaches(String tokenKey, Long userId, long tokenLifetimeMs) {
+        long localTtl = Math.min(LOCAL_TOKEN_TTL_MS, tokenLifetimeMs);
+        long redisTtl = Math.min(REDIS_TOKEN_TTL, tokenLifetimeMs / 1000);
+        if (localTtl > 0) {
+            putToLocalCache(localTokenCache, tokenKey, userId, localTtl, localTtl);
+        }
+        if (redisTtl > 0) {
+            redisBatcher.set(TOKEN_PREFIX + tokenKey, userId.toString(), redisTtl);
+        }
     }
 
-    private void updateSessionCaches(String sessionId, String status) {
-        CompletableFuture.runAsync(() -> {
-            putToLocalCacheWithLazyCleanup(localSessionCache, sessionId, status, LOCAL_SESSION_TTL_MS);
-            try {
-                redisCache.set(SESSION_PREFIX + sessionId, status, REDIS_SESSION_TTL);
-            } catch (Exception e) {
-                logger.debug("Redis session write failed: {}", e.getMessage());
-            }
-        });
+    private void updateSessionCaches(String sessionId, String status, byte[] event) {
+        putToLocalCache(localSessionCache, sessionId, event, localSessionTtlMs, localSessionHardTtlMs);
+        redisBatcher.set(SESSION_PREFIX + sessionId, status, REDIS_SESSION_TTL);
     }
 
     /**
@@ -644,30 +998,112 @@ public class SSEServlet extends HttpServlet {
         stats.put("total_requests", requests);
         stats.put("cache_hits", hits);
         stats.put("timeouts", timeoutCount);
+        stats.put("streams_opened", streamsOpened.get());
+        stats.put("coalesced_loads", coalescedLoads.get());
+        stats.put("stale_hits", staleHits.get());
+        stats.put("background_refreshes", backgroundRefreshes.get());
+        stats.put("db_short_circuits", dbShortCircuits.get());
+        stats.put("db_cancelled_queries", Deadline.cancelledStatements());
+        stats.put("invalidations_received", invalidationsReceived.get());
+        stats.put("backend_guards", Map.of(
+                "redis", CacheProviderFactory.getInstance().getGuardStats(),
+                "database", DatabaseProviderFactory.getInstance().getGuardStats()));
+        stats.put("streams_open", streamManager != null ? streamManager.getOpenConnections() : 0);
+        stats.put("stream_topics", streamManager != null ? streamManager.getActiveTopics() : 0);
+        stats.put("stream_slow_consumer_disconnects",
+                streamManager != null ? streamManager.getSlowConsumerDisconnects() : 0);
+        stats.put("stream_resumes", streamManager != null ? streamManager.getResumes() : 0);
         stats.put("cache_hit_rate", requests > 0 ? (hits * 100.0) / requests : 0);
         stats.put("timeout_rate", requests > 0 ? (timeoutCount * 100.0) / requests : 0);
         stats.put("cache_sizes", Map.of(
                 "tokens", localTokenCache.size(),
                 "data", localDataCache.size(),
                 "sessions", localSessionCache.size()));
+        stats.put("local_caches", List.of(
+                localTokenCache.stats(),
+                localDataCache.stats(),
+                localSessionCache.stats()));
+        stats.put("redis_batching", redisBatcher != null ? redisBatcher.stats() : Map.of());
+        stats.put("jwt_cache", jwtUtil != null ? jwtUtil.getCacheStats() : Map.of());
+        stats.put("comment_cache", DataServiceImpl.getInstance().getCommentCacheStats());
+        stats.put("country_index", DataServiceImpl.getInstance().getCountryIndexStats());
+        stats.put("user_status_cache", DataServiceImpl.getInstance().getUserStatusCacheStats());
 
         return stats;
     }
 
+    /**
+     * Invalidation bus listener. Tags published on this instance also drop
+     * the shared Redis copy; remote ones only evict L1 (the publisher already
+     * took care of Redis).
+     */
+    private void onInvalidate(String tag, boolean local) {
+        invalidationsReceived.incrementAndGet();
+        if (InvalidationBus.ALL.equals(tag)) {
+            localDataCache.invalidateAll();
+            localSessionCache.invalidateAll();
+            return;
+        }
+
+        int sep = tag.indexOf(':');
+        if (sep < 0) {
+            return;
+        }
+        String kind = tag.substring(0, sep);
+        String id = tag.substring(sep + 1);
+        switch (kind) {
+            case "topic" -> {
+                localDataCache.invalidate(id);
+                if (local) {
+                    CacheProviderFactory.getInstance().delete(DATA_PREFIX + id);
+                }
+            }
+            case "session" -> {
+                localSessionCache.invalidate(id);
+                if (local) {
+                    CacheProviderFactory.getInstance().delete(SESSION_PREFIX + id);
+                }
+            }
+            default -> {
+                // No user-keyed entries in this servlet's L1
+            }
+        }
+    }
+
     // === HELPER CLASSES AND METHODS ===
 
-    private static class LocalCacheEntry<T> {
+    static class LocalCacheEntry<T> {
         final T value;
-        final long expiryTime;
+        final long expiryTime; // soft TTL - stale (but still servable) afterwards
+        private final long refreshAheadTime;
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
 
         LocalCacheEntry(T value, long ttlMs) {
             this.value = value;
             this.expiryTime = System.currentTimeMillis() + ttlMs;
+            this.refreshAheadTime = expiryTime - (long) (ttlMs * REFRESH_AHEAD_FRACTION);
         }
 
         boolean isExpired() {
             return System.currentTimeMillis() > expiryTime;
         }
+
+        /**
+         * Records a hit. Returns true for exactly one caller once the entry is
+         * stale - or already in the refresh-ahead window if the entry is hot -
+         * and that caller starts the background refresh.
+         */
+        boolean claimRefresh() {
+            int count = hits.incrementAndGet();
+            long now = System.currentTimeMillis();
+            boolean due = now > expiryTime || (count >= REFRESH_AHEAD_MIN_HITS && now >= refreshAheadTime);
+            return due && !refreshing.get() && refreshing.compareAndSet(false, true);
+        }
+
+        void refreshFailed() {
+            refreshing.set(false);
+        }
     }
 
     private void setSSEHeaders(HttpServletResponse response) {
@@ -684,10 +1120,40 @@ public class SSEServlet extends HttpServlet {
         return (value != null && !value.isEmpty()) ? value : defaultValue;
     }
 
-    private void sendError(PrintWriter out, String message) {
-        try {
-            out.print("event: error\ndata: {\"error\": \"" + message.replace("\"", "\\\"") + "\"}\n\n");
+    /**
+     * Pre-framed SSE event ("data: " + payload + blank line) as UTF-8 bytes.
+     */
+    static byte[] frameEvent(String payload) {
+        return ("data: " + payload + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Payload of an event framed by frameEvent or renderEvent.
+     */
+    static String eventPayload(byte[] event) {
+        int head = "data: ".length();
+        return new String(event, head, event.length - head - "\n\n".length(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a complete event and finish the response. On Jetty the array goes
+     * to the connection as-is via HttpOutput.sendContent, without being copied
+     * through the response buffer; other containers get a plain write.
+     */
+    private static void writeEvent(HttpServletResponse response, byte[] event) throws IOException {
+        ServletOutputStream out = response.getOutputStream();
+        if (out instanceof HttpOutput httpOutput) {
+            httpOutput.sendContent(ByteBuffer.wrap(event));
+        } else {
+            out.write(event);
             out.flush();
+        }
+    }
+
+    private void sendError(HttpServletResponse response, String message) {
+        try {
+            String event = "event: error\ndata: {\"error\": \"" + message.replace("\"", "\\\"") + "\"}\n\n";
+            writeEvent(response, event.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             logger.error("Failed to send error", e);
         }
@@ -695,9 +1161,11 @@ public class SSEServlet extends HttpServlet {
 
     private void sendErrorResponse(HttpServletResponse response, String message) {
         try {
+            // Output stream, not getWriter(): the failing path may already have opened it
             response.setContentType("application/json");
-            response.getWriter().write("{\"error\": \"" + message + "\"}");
-            response.getWriter().flush();
+            ServletOutputStream out = response.getOutputStream();
+            out.write(("{\"error\": \"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+            out.flush();
         } catch (Exception e) {
             logger.error("Failed to send error response", e);
         }
@@ -729,9 +1197,14 @@ public class SSEServlet extends HttpServlet {
         // Note: Thread pools are daemon threads, so they'll shutdown automatically
         // No need for explicit shutdown - keeps destroy() fast for scale-to-zero
 
-        localTokenCache.clear();
-        localDataCache.clear();
-        localSessionCache.clear();
+        // Open streams hold AsyncContexts - complete them so clients reconnect elsewhere
+        if (streamManager != null) {
+            streamManager.shutdown();
+        }
+
+        localTokenCache.invalidateAll();
+        localDataCache.invalidateAll();
+        localSessionCache.invalidateAll();
 
         logger.info("🚀 Production SSE Servlet shutdown complete");
         super.destroy();
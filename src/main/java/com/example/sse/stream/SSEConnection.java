@@ -0,0 +1,289 @@
+package com.example.sse.stream;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One long-lived SSE client connection subscribed to a topic.
+ *
+ * Holds the servlet AsyncContext open and queues a pre-framed event only
+ * when it differs from the last one. Frames are shared byte arrays, so
+ * subscribers without a per-user overlay all receive the very same bytes.
+ *
+ * Output is non-blocking (WriteListener): frames are written only while
+ * isReady() is true, the rest wait in a bounded queue that the container
+ * drains from onWritePossible. A slow client therefore never blocks the
+ * refresh thread or a Jetty worker; see SlowConsumerPolicy for what happens
+ * when its queue fills up.
+ */
+public class SSEConnection {
+    private static final Logger logger = LoggerFactory.getLogger(SSEConnection.class);
+    private static final byte[] HEARTBEAT_FRAME = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final long connectionId;
+    private final long userId;
+    private final String topicKey;
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final SlowConsumerPolicy policy;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicReference<String> lastEventId = new AtomicReference<>();
+    private volatile boolean slowConsumer;
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final ArrayDeque<OutboundFrame> queue = new ArrayDeque<>();
+    private boolean needsFlush;
+    private boolean awaitingWritable;
+    private long lastProgressTime = System.currentTimeMillis();
+
+    private volatile byte[] lastFrame;
+    private volatile long lastWriteTime = System.currentTimeMillis();
+
+    public SSEConnection(long connectionId, long userId, String topicKey, AsyncContext asyncContext,
+            SlowConsumerPolicy policy) throws IOException {
+        this.connectionId = connectionId;
+        this.userId = userId;
+        this.topicKey = topicKey;
+        this.asyncContext = asyncContext;
+        this.policy = policy;
+        this.out = asyncContext.getResponse().getOutputStream();
+
+        // Last: the container may call onWritePossible right away
+        out.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() {
+                synchronized (lock) {
+                    drain();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                logger.debug("Stream #{}: write failed, closing: {}", connectionId, t.getMessage());
+                close();
+            }
+        });
+    }
+
+    public long getConnectionId() {
+        return connectionId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * True if the connection was closed by the slow-consumer policy.
+     */
+    public boolean isSlowConsumer() {
+        return slowConsumer;
+    }
+
+    public long getLastWriteTime() {
+        return lastWriteTime;
+    }
+
+    /**
+     * Last-Event-ID the client reconnected with; the first delivery to this
+     * connection resumes from it instead of sending a full snapshot.
+     */
+    public void setLastEventId(String eventId) {
+        lastEventId.set(eventId == null || eventId.isBlank() ? null : eventId.trim());
+    }
+
+    public boolean hasLastEventId() {
+        return lastEventId.get() != null;
+    }
+
+    String takeLastEventId() {
+        return lastEventId.getAndSet(null);
+    }
+
+    /**
+     * Queue a framed snapshot unless it is identical to the previous one.
+     */
+    public void send(byte[] frame) {
+        byte[] previous = lastFrame;
+        if (frame == previous || Arrays.equals(frame, previous)) {
+            return;
+        }
+        if (enqueue(frame, true)) {
+            lastFrame = frame;
+        }
+    }
+
+    /**
+     * Resume a reconnected client: queue the delta (if any) and treat
+     * snapshot as already delivered, so the next identical refresh is not
+     * sent again.
+     */
+    void sendReplay(byte[] delta, byte[] snapshot) {
+        if (delta == null || enqueue(delta, true)) {
+            lastFrame = snapshot;
+        }
+    }
+
+    /**
+     * SSE comment line - keeps proxies and load balancers from idling the
+     * connection out while the payload is unchanged. Skipped while other
+     * output is still queued.
+     */
+    public void sendHeartbeat() {
+        synchronized (lock) {
+            if (!queue.isEmpty() || awaitingWritable) {
+                return;
+            }
+        }
+        enqueue(HEARTBEAT_FRAME, false);
+    }
+
+    /**
+     * Tell EventSource clients how long to wait before reconnecting.
+     */
+    public void sendRetry(long retryMs) {
+        enqueue(("retry: " + retryMs + "\n\n").getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * Pending output has made no progress for the policy's write timeout.
+     */
+    public boolean isStalled(long now) {
+        synchronized (lock) {
+            return awaitingWritable && now - lastProgressTime > policy.getWriteTimeoutMs();
+        }
+    }
+
+    /**
+     * Close a connection that stopped reading.
+     */
+    public void closeSlowConsumer() {
+        slowConsumer = true;
+        close();
+    }
+
+    private boolean enqueue(byte[] frame, boolean snapshot) {
+        synchronized (lock) {
+            if (closed.get()) {
+                return false;
+            }
+
+            if (queue.size() >= policy.getMaxQueuedFrames()) {
+                if (!snapshot) {
+                    return false; // Control frames are not worth queueing behind a backlog
+                }
+                if (policy.getAction() == SlowConsumerPolicy.Action.DISCONNECT) {
+                    logger.info("🐢 Stream #{}: {} frames queued, disconnecting slow consumer",
+                            connectionId, queue.size());
+                    slowConsumer = true;
+                } else {
+                    // Each snapshot supersedes the previous ones
+                    queue.removeIf(OutboundFrame::isSnapshot);
+                    if (queue.size() >= policy.getMaxQueuedFrames()) {
+                        queue.poll();
+                    }
+                    logger.debug("Stream #{}: coalesced backlog to latest snapshot", connectionId);
+                }
+            }
+
+            if (!slowConsumer) {
+                queue.add(new OutboundFrame(frame, snapshot));
+                drain();
+                return true;
+            }
+        }
+
+        close();
+        return false;
+    }
+
+    /**
+     * Write queued frames while the container accepts them without blocking.
+     * Caller holds lock.
+     */
+    private void drain() {
+        try {
+            while (!closed.get()) {
+                if (!out.isReady()) {
+                    // onWritePossible will be called once the client catches up
+                    awaitingWritable = true;
+                    return;
+                }
+                awaitingWritable = false;
+
+                OutboundFrame next = queue.poll();
+                if (next == null) {
+                    if (needsFlush) {
+                        needsFlush = false;
+                        out.flush();
+                        continue;
+                    }
+                    return;
+                }
+
+                out.write(next.bytes);
+                needsFlush = true;
+                lastWriteTime = System.currentTimeMillis();
+                lastProgressTime = lastWriteTime;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Contained here so one broken client cannot abort a topic's fan-out
+            logger.debug("Stream #{}: client gone, closing: {}", connectionId, e.getMessage());
+            close();
+        }
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            synchronized (lock) {
+                queue.clear();
+            }
+            try {
+                asyncContext.complete();
+            } catch (Exception e) {
+                logger.debug("Stream #{}: complete failed: {}", connectionId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Mark closed without touching the AsyncContext (container already ended it).
+     */
+    void markClosed() {
+        closed.set(true);
+    }
+
+    private static final class OutboundFrame {
+        final byte[] bytes;
+        final boolean snapshot;
+
+        OutboundFrame(byte[] bytes, boolean snapshot) {
+            this.bytes = bytes;
+            this.snapshot = snapshot;
+        }
+
+        boolean isSnapshot() {
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.sse.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Topic-based fan-out broadcaster for all open SSE streams.
+ *
+ * Streams are grouped by topic (type + ":" + type_id, the servlet's
+ * dataCacheKey). Every sse.data.refresh.interval each topic with subscribers
+ * is refreshed once on the refresh executor and the result pushed to all of
+ * its subscribers; connections that have been quiet for sse.heartbeat.interval
+ * get a heartbeat comment, and connections whose output has stalled past the
+ * slow-consumer write timeout are closed.
+ *
+ * Events carry per-topic ids. A client reconnecting with Last-Event-ID is
+ * resumed from the topic's replay ring (see StreamTopic) instead of getting
+ * a full snapshot, and topics linger for sse.stream.topic.linger after their
+ * last subscriber leaves so that a reconnect after a network blip finds them.
+ *
+ * The scheduler thread is only started when the first stream opens, so an
+ * instance that never serves streams stays free of background threads.
+ */
+public class SSEStreamManager {
+    private static final Logger logger = LoggerFactory.getLogger(SSEStreamManager.class);
+
+    private final TopicLoader topicLoader;
+    private final ObjectMapper objectMapper;
+    private final Executor refreshExecutor;
+    private final long refreshIntervalMs;
+    private final long heartbeatIntervalMs;
+    private final long connectionTimeoutMs;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int replayBufferSize;
+    private final long topicLingerMs;
+
+    private final ConcurrentHashMap<String, StreamTopic> topics = new ConcurrentHashMap<>();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong(0);
+    private final AtomicLong resumes = new AtomicLong(0);
+    private volatile ScheduledExecutorService scheduler;
+
+    public SSEStreamManager(TopicLoader topicLoader, ObjectMapper objectMapper, Executor refreshExecutor,
+            long refreshIntervalMs, long heartbeatIntervalMs, long connectionTimeoutMs,
+            SlowConsumerPolicy slowConsumerPolicy, int replayBufferSize, long topicLingerMs) {
+        this.topicLoader = topicLoader;
+        this.objectMapper = objectMapper;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.replayBufferSize = Math.max(0, replayBufferSize);
+        this.topicLingerMs = Math.max(0, topicLingerMs);
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    /**
+     * Subscribe a freshly opened stream to its topic. A topic that already has
+     * frames answers immediately; a new topic is refreshed right away. A
+     * resuming client on a lingering (not recently refreshed) topic waits for
+     * that refresh, so it is resumed against current data.
+     */
+    public void subscribe(SSEConnection connection, AsyncContext asyncContext, String typeId, String type) {
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                unsubscribe(connection);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                logger.debug("Stream #{}: connection timeout reached", connection.getConnectionId());
+                connection.close();
+                unsubscribe(connection);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                connection.markClosed();
+                unsubscribe(connection);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // Not re-dispatched
+            }
+        });
+
+        StreamTopic topic = topics.compute(connection.getTopicKey(), (key, existing) -> {
+            StreamTopic target = existing != null ? existing
+                    : new StreamTopic(key, typeId, type, replayBufferSize);
+            target.getSubscribers().add(connection);
+            return target;
+        });
+
+        ensureScheduler();
+        connection.sendRetry(refreshIntervalMs);
+
+        boolean resuming = connection.hasLastEventId();
+        if (resuming) {
+            resumes.incrementAndGet();
+        }
+        boolean fresh = topic.isFresh(System.currentTimeMillis(), refreshIntervalMs * 2);
+        if (topic.hasFrames() && (fresh || !resuming)) {
+            topic.deliver(connection);
+        }
+        if (!fresh) {
+            submitRefresh(topic);
+        }
+
+        logger.debug("Stream #{}: subscribed to {} ({} subscribers)", connection.getConnectionId(),
+                topic.getKey(), topic.getSubscribers().size());
+    }
+
+    private void unsubscribe(SSEConnection connection) {
+        StreamTopic topic = topics.get(connection.getTopicKey());
+        if (topic != null && topic.getSubscribers().remove(connection)) {
+            topic.markUnsubscribed(System.currentTimeMillis());
+            if (connection.isSlowConsumer()) {
+                slowConsumerDisconnects.incrementAndGet();
+            }
+            logger.debug("Stream #{}: left {} ({} subscribers)", connection.getConnectionId(),
+                    topic.getKey(), topic.getSubscribers().size());
+        }
+        if (topicLingerMs == 0) {
+            dropIfIdle(connection.getTopicKey(), System.currentTimeMillis());
+        }
+    }
+
+    private void dropIfIdle(String topicKey, long now) {
+        // Atomically, so a subscriber joining meanwhile keeps the topic
+        topics.computeIfPresent(topicKey, (key, existing) -> existing.isIdle(now, topicLingerMs) ? null : existing);
+    }
+
+    private void ensureScheduler() {
+        if (scheduler == null) {
+            synchronized (this) {
+                if (scheduler == null) {
+                    ScheduledExecutorService created = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "prod-stream-tick");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    created.scheduleWithFixedDelay(this::tick, refreshIntervalMs, refreshIntervalMs,
+                            TimeUnit.MILLISECONDS);
+                    scheduler = created;
+                    logger.info("📡 Stream scheduler started (refresh {}ms, heartbeat {}ms, slow consumers: {}, "
+                            + "replay buffer {}, topic linger {}ms)", refreshIntervalMs, heartbeatIntervalMs,
+                            slowConsumerPolicy, replayBufferSize, topicLingerMs);
+                }
+            }
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+
+        for (StreamTopic topic : topics.values()) {
+            for (SSEConnection connection : topic.getSubscribers()) {
+                if (connection.isClosed()) {
+                    unsubscribe(connection);
+                } else if (connection.isStalled(now)) {
+                    logger.info("🐢 Stream #{}: no write progress for {}ms, disconnecting slow consumer",
+                            connection.getConnectionId(), slowConsumerPolicy.getWriteTimeoutMs());
+                    connection.closeSlowConsumer();
+                    unsubscribe(connection);
+                } else if (now - connection.getLastWriteTime() >= heartbeatIntervalMs) {
+                    connection.sendHeartbeat();
+                }
+            }
+
+            if (!topic.isEmpty()) {
+                submitRefresh(topic);
+            } else {
+                dropIfIdle(topic.getKey(), now);
+            }
+        }
+    }
+
+    private void submitRefresh(StreamTopic topic) {
+        try {
+            refreshExecutor.execute(() -> topic.refresh(topicLoader, objectMapper));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Topic {}: refresh rejected: {}", topic.getKey(), e.getMessage());
+        }
+    }
+
+    public int getOpenConnections() {
+        int open = 0;
+        for (StreamTopic topic : topics.values()) {
+            open += topic.getSubscribers().size();
+        }
+        return open;
+    }
+
+    public int getActiveTopics() {
+        return topics.size();
+    }
+
+    public long getResumes() {
+        return resumes.get();
+    }
+
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.get();
+    }
+
+    /**
+     * Close every open stream and stop the scheduler.
+     */
+    public void shutdown() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null) {
+            current.shutdownNow();
+        }
+
+        for (StreamTopic topic : topics.values()) {
+            for (SSEConnection connection : topic.getSubscribers()) {
+                connection.close();
+            }
+        }
+        topics.clear();
+    }
+}
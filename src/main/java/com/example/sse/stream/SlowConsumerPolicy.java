@@ -0,0 +1,59 @@
+package com.example.sse.stream;
+
+/**
+ * What a stream does when its client reads slower than events are produced.
+ *
+ * Every connection has a bounded outbound queue (maxQueuedFrames). When it
+ * is full:
+ * - COALESCE: queued snapshots are dropped and only the newest is kept. Each
+ *   data event is a full snapshot, so the client skips intermediate states
+ *   but still converges on the current one.
+ * - DISCONNECT: the connection is closed; EventSource reconnects and starts
+ *   from a fresh snapshot.
+ *
+ * In both modes a connection whose pending output makes no progress for
+ * writeTimeoutMs is closed.
+ */
+public final class SlowConsumerPolicy {
+
+    public enum Action {
+        COALESCE, DISCONNECT;
+
+        /**
+         * Case-insensitive, COALESCE for anything unrecognised.
+         */
+        public static Action parse(String value) {
+            if (value != null && "disconnect".equalsIgnoreCase(value.trim())) {
+                return DISCONNECT;
+            }
+            return COALESCE;
+        }
+    }
+
+    private final Action action;
+    private final int maxQueuedFrames;
+    private final long writeTimeoutMs;
+
+    public SlowConsumerPolicy(Action action, int maxQueuedFrames, long writeTimeoutMs) {
+        this.action = action;
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getMaxQueuedFrames() {
+        return maxQueuedFrames;
+    }
+
+    public long getWriteTimeoutMs() {
+        return writeTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return action + " (max " + maxQueuedFrames + " frames, write timeout " + writeTimeoutMs + "ms)";
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.sse.stream;
+
+import com.example.sse.model.DataModels.TopicSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Subscribers of one topic (type + ":" + type_id) and the frames of its last
+ * refresh. A refresh loads the snapshot once and fans the result out to every
+ * subscriber; overlapping refreshes are skipped, not queued.
+ *
+ * Every refresh that changes the payload gets the next version; the event id
+ * is "&lt;epoch&gt;-&lt;version&gt;", where the epoch is random per topic instance so
+ * ids from another server (or an earlier incarnation of this topic) never
+ * match. A ring of the last replayBufferSize versions remembers the id of
+ * each one's newest comment and whether it only appended comments, which is all a
+ * Last-Event-ID resume needs: a client that is up to date gets nothing, one
+ * that missed only new comments gets a delta frame, anyone else a snapshot.
+ */
+final class StreamTopic {
+    private static final Logger logger = LoggerFactory.getLogger(StreamTopic.class);
+
+    private final String key;
+    private final String typeId;
+    private final String type;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final Set<SSEConnection> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    // Guarded by this; slot = version % length
+    private final long[] ringVersions;
+    private final long[] ringLastCommentIds;
+    private final boolean[] ringAppendOnly;
+    private long version;
+
+    private volatile TopicFrames frames;
+    // Last snapshot loaded, handed back to the loader; only touched while refreshing
+    private TopicSnapshot snapshot;
+    private volatile long lastRefreshAt;
+    private volatile long lastUnsubscribeAt = System.currentTimeMillis();
+
+    StreamTopic(String key, String typeId, String type, int replayBufferSize) {
+        this.key = key;
+        this.typeId = typeId;
+        this.type = type;
+        int slots = Math.max(0, replayBufferSize);
+        this.ringVersions = new long[slots];
+        this.ringLastCommentIds = new long[slots];
+        this.ringAppendOnly = new boolean[slots];
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Set<SSEConnection> getSubscribers() {
+        return subscribers;
+    }
+
+    boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    boolean hasFrames() {
+        return frames != null;
+    }
+
+    /**
+     * Frames were refreshed recently enough to hand to a resuming client.
+     */
+    boolean isFresh(long now, long maxAgeMs) {
+        return frames != null && now - lastRefreshAt <= maxAgeMs;
+    }
+
+    void markUnsubscribed(long now) {
+        lastUnsubscribeAt = now;
+    }
+
+    /**
+     * No subscribers for longer than lingerMs - kept until then so clients
+     * reconnecting after a blip can still resume from their last event.
+     */
+    boolean isIdle(long now, long lingerMs) {
+        return subscribers.isEmpty() && now - lastUnsubscribeAt >= lingerMs;
+    }
+
+    void refresh(TopicLoader loader, ObjectMapper objectMapper) {
+        if (subscribers.isEmpty() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            TopicSnapshot loaded = loader.load(typeId, type, snapshot);
+            if (loaded == null) {
+                return;
+            }
+            snapshot = loaded;
+
+            TopicFrames previous = frames;
+            TopicFrames next = TopicFrames.build(loaded, objectMapper, epoch + "-" + (version + 1), previous);
+            if (previous != null && next.hasSameContent(previous)) {
+                next = previous; // Same payload keeps its event id
+            } else {
+                record(next, previous == null || !next.isAppendOnlySince(previous));
+                frames = next;
+            }
+            lastRefreshAt = System.currentTimeMillis();
+
+            for (SSEConnection subscriber : subscribers) {
+                deliver(subscriber, next);
+            }
+
+            logger.debug("📡 Topic {}: refreshed in {}ms for {} subscribers", key,
+                    System.currentTimeMillis() - start, subscribers.size());
+        } catch (Exception e) {
+            logger.warn("Topic {}: refresh failed: {}", key, e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Send the latest frames to a single (usually just joined) subscriber.
+     */
+    void deliver(SSEConnection subscriber) {
+        TopicFrames current = frames;
+        if (current != null) {
+            deliver(subscriber, current);
+        }
+    }
+
+    private void deliver(SSEConnection subscriber, TopicFrames current) {
+        String lastEventId = subscriber.takeLastEventId();
+        if (lastEventId != null) {
+            if (lastEventId.equals(current.eventId())) {
+                // Up to date - nothing to send until the next change
+                subscriber.sendReplay(null, current.frameFor(subscriber.getUserId()));
+                return;
+            }
+            long afterId = replayAfterId(lastEventId);
+            if (afterId >= 0) {
+                subscriber.sendReplay(current.deltaFrameFor(subscriber.getUserId(), afterId),
+                        current.frameFor(subscriber.getUserId()));
+                return;
+            }
+        }
+        subscriber.send(current.frameFor(subscriber.getUserId()));
+    }
+
+    private synchronized void record(TopicFrames next, boolean replaced) {
+        version++;
+        if (ringVersions.length == 0) {
+            return;
+        }
+        int slot = (int) (version % ringVersions.length);
+        ringVersions[slot] = version;
+        ringLastCommentIds[slot] = next.lastCommentId();
+        ringAppendOnly[slot] = !replaced;
+    }
+
+    /**
+     * Id of the newest comment the client has seen, or -1 if it needs a full
+     * snapshot (foreign or aged-out id, or a change other than appended
+     * comments since).
+     */
+    private synchronized long replayAfterId(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash <= 0 || !epoch.equals(lastEventId.substring(0, dash)) || ringVersions.length == 0) {
+            return -1;
+        }
+        long seen;
+        try {
+            seen = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (seen <= 0 || seen >= version || version - seen >= ringVersions.length) {
+            return -1;
+        }
+
+        int seenSlot = (int) (seen % ringVersions.length);
+        if (ringVersions[seenSlot] != seen) {
+            return -1;
+        }
+        for (long v = seen + 1; v <= version; v++) {
+            int slot = (int) (v % ringVersions.length);
+            if (ringVersions[slot] != v || !ringAppendOnly[slot]) {
+                return -1;
+            }
+        }
+        return ringLastCommentIds[seenSlot];
+    }
+}
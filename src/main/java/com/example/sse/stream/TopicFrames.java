@@ -0,0 +1,299 @@
+package com.example.sse.stream;
+
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.model.DataModels.TopicSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rendered SSE frames for one topic refresh.
+ *
+ * Every comment is serialized once into a JSON fragment, and a comment the
+ * previous frames already hold as the same instance (the topic comment cache
+ * hands out unchanged rows as-is) keeps its fragment. The shared frame
+ * (approved comments, unanswered polls) is assembled once and handed to
+ * every subscriber as the same byte array. Users with their own unapproved
+ * comments or poll answers get a frame spliced from the same fragments, so
+ * the overlay costs a byte copy instead of a re-serialization of the topic.
+ *
+ * Overlay frames are built once per refresh and shared: per user for users
+ * with pending comments, per distinct answer map otherwise. The poll JSON
+ * of an answer map is kept across refreshes while the polls are unchanged.
+ * Frames that carry over to an unchanged refresh hand out the same arrays
+ * again, so a subscriber's duplicate check is a reference comparison.
+ *
+ * Frame layout (matches the one-shot endpoint, plus the topic's event id):
+ * id: &lt;event id&gt;
+ * data: {"comment_data":[...],"survey_data":[...],"session_status":"..."}
+ *
+ * The snapshot holds the topic's tail window, so old comments drop off the
+ * front as new ones arrive. Delta frames (Last-Event-ID replay) carry only
+ * the comments newer than the last one of the client's event, with the
+ * current polls and status:
+ * id: &lt;event id&gt;
+ * event: delta
+ * data: {"comment_data":[...new...],"survey_data":[...],"session_status":"..."}
+ */
+final class TopicFrames {
+    private static final byte[] ID = "id: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEAD = "\ndata: {\"comment_data\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DELTA_HEAD = "\nevent: delta\ndata: {\"comment_data\":["
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SURVEYS = "],\"survey_data\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STATUS = ",\"session_status\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TAIL = "}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final String eventId;
+    private final byte[] eventIdBytes;
+
+    private final CommentData[] commentSources;
+    private final byte[][] commentFragments;
+    private final long[] commentIds;
+    private final long[] commentUserIds;
+    private final boolean[] commentApproved;
+    private final Set<Long> usersWithPending;
+
+    private final byte[] sharedCommentBlock;
+    private final byte[] sharedSurveyJson;
+    private final byte[] statusJson;
+    private final byte[] sharedFrame;
+
+    private final List<SurveyData> surveys;
+    private final Map<Long, Map<Long, Long>> answersByUser;
+
+    // Overlay JSON/frames, built on first use; the poll JSON is shared with
+    // the previous frames when their polls are the same
+    private final ConcurrentHashMap<Map<Long, Long>, byte[]> surveyJsonByAnswers;
+    private final ConcurrentHashMap<Map<Long, Long>, byte[]> framesByAnswers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, byte[]> framesWithOwnPending = new ConcurrentHashMap<>();
+
+    private TopicFrames(TopicSnapshot snapshot, ObjectMapper objectMapper, String eventId, TopicFrames previous)
+            throws JsonProcessingException {
+        this.objectMapper = objectMapper;
+        this.eventId = eventId;
+        this.eventIdBytes = eventId.getBytes(StandardCharsets.UTF_8);
+        this.surveys = snapshot.getSurveys();
+        this.answersByUser = snapshot.getAnswersByUser();
+
+        List<CommentData> comments = snapshot.getComments();
+        int count = comments.size();
+        this.commentSources = comments.toArray(new CommentData[0]);
+        this.commentFragments = new byte[count][];
+        this.commentIds = new long[count];
+        this.commentUserIds = new long[count];
+        this.commentApproved = new boolean[count];
+        this.usersWithPending = new HashSet<>();
+
+        ByteArrayOutputStream shared = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            CommentData comment = comments.get(i);
+            byte[] fragment = previous != null ? previous.fragmentOf(comment) : null;
+            commentFragments[i] = fragment != null ? fragment : objectMapper.writeValueAsBytes(comment);
+            commentIds[i] = comment.getId() != null ? comment.getId() : 0L;
+            commentUserIds[i] = comment.getUserMasterId() != null ? comment.getUserMasterId() : 0L;
+            commentApproved[i] = Integer.valueOf(1).equals(comment.getCommentApproveStatus());
+
+            if (commentApproved[i]) {
+                appendFragment(shared, commentFragments[i]);
+            } else {
+                usersWithPending.add(commentUserIds[i]);
+            }
+        }
+
+        this.sharedCommentBlock = shared.toByteArray();
+        this.sharedSurveyJson = objectMapper.writeValueAsBytes(surveys);
+        this.statusJson = objectMapper.writeValueAsBytes(snapshot.getSessionStatus());
+        this.sharedFrame = assemble(HEAD, sharedCommentBlock, sharedSurveyJson);
+        this.surveyJsonByAnswers = previous != null && Arrays.equals(sharedSurveyJson, previous.sharedSurveyJson)
+                ? previous.surveyJsonByAnswers
+                : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param previous the topic's current frames (or null), whose comment
+     *                 fragments and poll JSON are reused where unchanged
+     */
+    static TopicFrames build(TopicSnapshot snapshot, ObjectMapper objectMapper, String eventId,
+            TopicFrames previous) throws JsonProcessingException {
+        return new TopicFrames(snapshot, objectMapper, eventId, previous);
+    }
+
+    String eventId() {
+        return eventId;
+    }
+
+    /**
+     * Id of the newest comment, or 0 if there is none.
+     */
+    long lastCommentId() {
+        return commentIds.length > 0 ? commentIds[commentIds.length - 1] : 0L;
+    }
+
+    byte[] sharedFrame() {
+        return sharedFrame;
+    }
+
+    /**
+     * True if these frames only add comments to the end of previous, and at
+     * most drop some off its front as the window moves - every comment both
+     * hold (text, approval, status) is byte-for-byte unchanged.
+     */
+    boolean isAppendOnlySince(TopicFrames previous) {
+        int count = previous.commentFragments.length;
+        if (count == 0) {
+            return true;
+        }
+        if (commentFragments.length == 0) {
+            return false;
+        }
+        int offset = Arrays.binarySearch(previous.commentIds, commentIds[0]);
+        if (offset < 0) {
+            // Our first comment is new - fine only if everything before it fell out of the window
+            offset = -offset - 1;
+            if (offset < count) {
+                return false;
+            }
+        }
+        if (commentFragments.length < count - offset) {
+            return false;
+        }
+        for (int i = offset; i < count; i++) {
+            if (!Arrays.equals(commentFragments[i - offset], previous.commentFragments[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if every subscriber would get the same payload from both.
+     */
+    boolean hasSameContent(TopicFrames previous) {
+        return Arrays.equals(commentIds, previous.commentIds)
+                && Arrays.equals(sharedSurveyJson, previous.sharedSurveyJson)
+                && Arrays.equals(statusJson, previous.statusJson)
+                && answersByUser.equals(previous.answersByUser)
+                && isAppendOnlySince(previous);
+    }
+
+    /**
+     * Delta frame for one subscriber: the comments newer than afterId that
+     * the user may see, plus the current polls and session status.
+     */
+    byte[] deltaFrameFor(long userId, long afterId) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+        int from = Arrays.binarySearch(commentIds, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        for (int i = from; i < commentFragments.length; i++) {
+            if (commentApproved[i] || commentUserIds[i] == userId) {
+                appendFragment(block, commentFragments[i]);
+            }
+        }
+        return assemble(DELTA_HEAD, block.toByteArray(), surveyJsonFor(answersByUser.get(userId)));
+    }
+
+    /**
+     * Frame for one subscriber - the shared array itself unless the user has
+     * something of their own to see; overlays are built once and shared.
+     */
+    byte[] frameFor(long userId) {
+        boolean hasPending = usersWithPending.contains(userId);
+        Map<Long, Long> answers = answersByUser.get(userId);
+
+        if (!hasPending && answers == null) {
+            return sharedFrame;
+        }
+        if (!hasPending) {
+            return framesByAnswers.computeIfAbsent(answers,
+                    a -> assemble(HEAD, sharedCommentBlock, surveyJsonFor(a)));
+        }
+        return framesWithOwnPending.computeIfAbsent(userId,
+                id -> assemble(HEAD, commentBlockWithOwnPending(id), surveyJsonFor(answers)));
+    }
+
+    /**
+     * Fragment of comment if these frames hold that very instance.
+     */
+    private byte[] fragmentOf(CommentData comment) {
+        if (comment.getId() == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(commentIds, comment.getId());
+        return index >= 0 && commentSources[index] == comment ? commentFragments[index] : null;
+    }
+
+    private byte[] surveyJsonFor(Map<Long, Long> answers) {
+        if (answers == null) {
+            return sharedSurveyJson;
+        }
+        byte[] json = surveyJsonByAnswers.computeIfAbsent(answers, this::answeredSurveyJson);
+        return json != null ? json : sharedSurveyJson;
+    }
+
+    private byte[] answeredSurveyJson(Map<Long, Long> answers) {
+        try {
+            return objectMapper.writeValueAsBytes(answeredSurveys(answers));
+        } catch (JsonProcessingException e) {
+            // Not cached - fall back to the shared poll state rather than dropping the event
+            return null;
+        }
+    }
+
+    private byte[] commentBlockWithOwnPending(long userId) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(sharedCommentBlock.length + 256);
+        for (int i = 0; i < commentFragments.length; i++) {
+            if (commentApproved[i] || commentUserIds[i] == userId) {
+                appendFragment(block, commentFragments[i]);
+            }
+        }
+        return block.toByteArray();
+    }
+
+    private List<SurveyData> answeredSurveys(Map<Long, Long> answers) {
+        List<SurveyData> overlay = new ArrayList<>(surveys.size());
+        for (SurveyData survey : surveys) {
+            Long answerId = answers.get(survey.getSurveyId());
+            overlay.add(new SurveyData(
+                    survey.getSurveyId(),
+                    survey.getIsShow(),
+                    survey.getIsAnswerShow(),
+                    answerId != null ? answerId : 0L));
+        }
+        return overlay;
+    }
+
+    private byte[] assemble(byte[] head, byte[] commentBlock, byte[] surveyJson) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(ID.length + eventIdBytes.length + head.length
+                + commentBlock.length + SURVEYS.length + surveyJson.length + STATUS.length + statusJson.length
+                + TAIL.length);
+        frame.writeBytes(ID);
+        frame.writeBytes(eventIdBytes);
+        frame.writeBytes(head);
+        frame.writeBytes(commentBlock);
+        frame.writeBytes(SURVEYS);
+        frame.writeBytes(surveyJson);
+        frame.writeBytes(STATUS);
+        frame.writeBytes(statusJson);
+        frame.writeBytes(TAIL);
+        return frame.toByteArray();
+    }
+
+    private static void appendFragment(ByteArrayOutputStream block, byte[] fragment) {
+        if (block.size() > 0) {
+            block.write(',');
+        }
+        block.writeBytes(fragment);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sse.stream;
+
+import com.example.sse.model.DataModels.TopicSnapshot;
+
+/**
+ * Loads the shared snapshot of a topic - called once per refresh interval per
+ * topic, however many subscribers it has. previous is the topic's last
+ * snapshot (null on the first load), for carrying state over.
+ */
+@FunctionalInterface
+public interface TopicLoader {
+    TopicSnapshot load(String typeId, String type, TopicSnapshot previous);
+}
@@ -0,0 +1,91 @@
+package com.example.sse.util;
+
+import com.example.sse.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executors for blocking backend calls (JDBC, Jedis, JWT).
+ *
+ * Platform mode (default): small fixed pools of daemon threads, as before.
+ * Virtual mode (server.virtual.threads.enabled=true): one virtual thread per
+ * task, with a semaphore per backend so that a burst cannot open more
+ * concurrent calls than the backend's connection pool can serve. Waiting for
+ * a permit parks the virtual thread instead of occupying a pool slot.
+ */
+public final class BackendExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(BackendExecutors.class);
+
+    private BackendExecutors() {
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return ConfigManager.getInstance().getBooleanProperty("server.virtual.threads.enabled", false);
+    }
+
+    /**
+     * Concurrency limit for database calls - defaults to the Hikari pool size.
+     */
+    public static int databaseConcurrency() {
+        ConfigManager config = ConfigManager.getInstance();
+        return config.getIntProperty("db.max.concurrency", config.getIntProperty("mysql.cms.pool.max", 8));
+    }
+
+    /**
+     * Concurrency limit for Redis calls - defaults to the Jedis pool size.
+     */
+    public static int redisConcurrency() {
+        ConfigManager config = ConfigManager.getInstance();
+        return config.getIntProperty("redis.max.concurrency", config.getIntProperty("redis.pool.max.total", 3));
+    }
+
+    /**
+     * Fixed pool in platform mode, bounded virtual threads in virtual mode.
+     *
+     * @param name            thread name prefix
+     * @param platformThreads pool size used in platform mode
+     * @param maxConcurrency  permits used in virtual mode
+     */
+    public static Executor create(String name, int platformThreads, int maxConcurrency) {
+        if (isVirtualThreadsEnabled()) {
+            logger.info("🧵 {} executor: virtual threads, max {} concurrent", name, maxConcurrency);
+            return new BoundedVirtualExecutor(name, maxConcurrency);
+        }
+
+        return Executors.newFixedThreadPool(platformThreads, r -> {
+            Thread t = new Thread(r, name + "-" + System.currentTimeMillis());
+            t.setDaemon(true); // JVM can exit without waiting for these
+            return t;
+        });
+    }
+
+    /**
+     * Virtual thread per task, at most maxConcurrency running at once.
+     */
+    static final class BoundedVirtualExecutor implements Executor {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedVirtualExecutor(String name, int maxConcurrency) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-v", 0).factory());
+            this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+}
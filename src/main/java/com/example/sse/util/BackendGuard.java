@@ -0,0 +1,152 @@
+package com.example.sse.util;
+
+import com.example.sse.config.ConfigManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker plus semaphore bulkhead for one backend.
+ *
+ * A call first asks the breaker (an open breaker rejects instantly), then
+ * takes one of maxConcurrent permits, waiting at most maxWaitMs. Rejected
+ * callers get no Permit and should go straight to their fallback instead of
+ * queueing on the connection pool. A granted Permit reports the outcome and
+ * duration of the call exactly once.
+ */
+public final class BackendGuard {
+    private final String name;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final LongAdder bulkheadRejections = new LongAdder();
+
+    public BackendGuard(String name, CircuitBreaker breaker, int maxConcurrent, long maxWaitMs) {
+        this.name = name;
+        this.breaker = breaker;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bulkhead = new Semaphore(this.maxConcurrent);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+    }
+
+    /**
+     * Guard configured from &lt;prefix&gt;.breaker.* and &lt;prefix&gt;.bulkhead.*
+     * properties.
+     */
+    public static BackendGuard fromConfig(String name, String prefix, int defaultMaxConcurrent,
+            long defaultSlowCallMs, long defaultMaxWaitMs) {
+        ConfigManager config = ConfigManager.getInstance();
+        CircuitBreaker breaker = new CircuitBreaker(name,
+                config.getIntProperty(prefix + ".breaker.window.size", 20),
+                config.getIntProperty(prefix + ".breaker.minimum.calls", 10),
+                config.getIntProperty(prefix + ".breaker.failure.rate.threshold", 50),
+                config.getIntProperty(prefix + ".breaker.slow.call.rate.threshold", 80),
+                config.getLongProperty(prefix + ".breaker.slow.call.ms", defaultSlowCallMs),
+                config.getLongProperty(prefix + ".breaker.open.duration", 5000),
+                config.getIntProperty(prefix + ".breaker.half.open.calls", 3));
+        return new BackendGuard(name, breaker,
+                config.getIntProperty(prefix + ".bulkhead.max.concurrent", defaultMaxConcurrent),
+                config.getLongProperty(prefix + ".bulkhead.max.wait", defaultMaxWaitMs));
+    }
+
+    /**
+     * Guard with a bulkhead of its own in front of this guard's breaker - for
+     * a second transport to the same backend whose concurrency is limited by
+     * something other than this bulkhead. Outcomes on either guard feed the
+     * one breaker.
+     */
+    public BackendGuard withBulkhead(String name, int maxConcurrent, long maxWaitMs) {
+        return new BackendGuard(name, breaker, maxConcurrent, maxWaitMs);
+    }
+
+    /**
+     * Lock-free check for callers deciding whether to try this tier at all.
+     */
+    public boolean isCallPermitted() {
+        return breaker.isCallPermitted();
+    }
+
+    public CircuitBreaker.State getState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Permit for one call, or null if the breaker is open or the bulkhead is
+     * full.
+     */
+    public Permit tryAcquire() {
+        return tryAcquire(maxWaitMs);
+    }
+
+    /**
+     * Like tryAcquire() but never waits for a bulkhead slot - for callers on
+     * an event loop or other thread that must not block.
+     */
+    public Permit tryAcquireNow() {
+        return tryAcquire(0);
+    }
+
+    private Permit tryAcquire(long waitMs) {
+        if (!breaker.tryAcquirePermission()) {
+            return null;
+        }
+
+        boolean acquired;
+        try {
+            acquired = waitMs == 0
+                    ? bulkhead.tryAcquire()
+                    : bulkhead.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            breaker.releasePermission();
+            bulkheadRejections.increment();
+            return null;
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(breaker.stats());
+        stats.put("bulkhead_max_concurrent", maxConcurrent);
+        stats.put("bulkhead_in_use", maxConcurrent - bulkhead.availablePermits());
+        stats.put("bulkhead_rejections", bulkheadRejections.sum());
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return name + " guard (" + breaker.getState() + ")";
+    }
+
+    public final class Permit {
+        private final long startNanos;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void success() {
+            if (done.compareAndSet(false, true)) {
+                bulkhead.release();
+                breaker.onSuccess(System.nanoTime() - startNanos);
+            }
+        }
+
+        public void failure() {
+            if (done.compareAndSet(false, true)) {
+                bulkhead.release();
+                breaker.onError(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.sse.util;
+
+import com.example.sse.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Passive health state of one backend (database, cache).
+ *
+ * The providers report the outcome of the calls they make anyway
+ * (recordSuccess / recordFailure); after failureThreshold consecutive failures
+ * the backend is marked down, one success marks it up again. isHealthy() only
+ * reads a volatile flag - no connection is borrowed on the request path.
+ *
+ * When no real call has reported for a while (idle instance, or the backend
+ * is down and callers skip it), isHealthy() kicks off one background probe
+ * - the provider's own isHealthy() - so the state cannot go stale. Probes run
+ * at most every probe interval, more often while the backend is down.
+ */
+public final class BackendHealth {
+    private static final Logger logger = LoggerFactory.getLogger(BackendHealth.class);
+
+    private static final BackendHealth DATABASE = new BackendHealth("database");
+    private static final BackendHealth CACHE = new BackendHealth("cache");
+
+    private static final ExecutorService probeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prod-health-probe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+    private final int failureThreshold;
+    private final long probeIntervalMs;
+    private final long unhealthyProbeIntervalMs;
+
+    private volatile boolean healthy = true;
+    private volatile long lastCheckedAt = System.currentTimeMillis();
+    private volatile long lastSuccessAt;
+    private volatile long lastFailureAt;
+    private volatile String lastError;
+    private volatile BooleanSupplier probe;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean(false);
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder probes = new LongAdder();
+
+    BackendHealth(String name) {
+        ConfigManager config = ConfigManager.getInstance();
+        this.name = name;
+        this.failureThreshold = Math.max(1, config.getIntProperty("health.failure.threshold", 3));
+        this.probeIntervalMs = config.getLongProperty("health.probe.interval", 15000);
+        this.unhealthyProbeIntervalMs = config.getLongProperty("health.probe.interval.unhealthy", 2000);
+    }
+
+    public static BackendHealth database() {
+        return DATABASE;
+    }
+
+    public static BackendHealth cache() {
+        return CACHE;
+    }
+
+    /**
+     * Active check used when real traffic has not reported recently.
+     */
+    public void setProbe(BooleanSupplier probe) {
+        this.probe = probe;
+    }
+
+    /**
+     * Zero-I/O health flag for the hot path.
+     */
+    public boolean isHealthy() {
+        long now = System.currentTimeMillis();
+        boolean current = healthy;
+        if (now - lastCheckedAt > (current ? probeIntervalMs : unhealthyProbeIntervalMs)) {
+            scheduleProbe();
+        }
+        return current;
+    }
+
+    public void recordSuccess() {
+        long now = System.currentTimeMillis();
+        lastCheckedAt = now;
+        lastSuccessAt = now;
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (!healthy) {
+            healthy = true;
+            logger.info("✅ {} is healthy again", name);
+        }
+    }
+
+    public void recordFailure(Throwable error) {
+        long now = System.currentTimeMillis();
+        lastCheckedAt = now;
+        lastFailureAt = now;
+        lastError = error != null ? error.getMessage() : null;
+        failures.increment();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && healthy) {
+            healthy = false;
+            logger.warn("❌ {} marked unhealthy after {} consecutive failures: {}", name, failureThreshold,
+                    lastError);
+        }
+    }
+
+    /**
+     * Result of a direct health check. Unlike a failed call, one failed
+     * check is enough to mark the backend down.
+     */
+    public void recordProbe(boolean ok) {
+        if (ok) {
+            recordSuccess();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastCheckedAt = now;
+        lastFailureAt = now;
+        lastError = "health probe failed";
+        failures.increment();
+        consecutiveFailures.incrementAndGet();
+        if (healthy) {
+            healthy = false;
+            logger.warn("❌ {} marked unhealthy by health probe", name);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("status", healthy ? "healthy" : "unhealthy");
+        state.put("consecutive_failures", consecutiveFailures.get());
+        state.put("total_failures", failures.sum());
+        state.put("probes", probes.sum());
+        state.put("last_success_ms_ago", lastSuccessAt == 0 ? -1 : System.currentTimeMillis() - lastSuccessAt);
+        state.put("last_failure_ms_ago", lastFailureAt == 0 ? -1 : System.currentTimeMillis() - lastFailureAt);
+        if (!healthy && lastError != null) {
+            state.put("last_error", lastError);
+        }
+        return state;
+    }
+
+    private void scheduleProbe() {
+        BooleanSupplier check = probe;
+        if (check == null || !probing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            probeExecutor.execute(() -> {
+                try {
+                    probes.increment();
+                    boolean ok;
+                    try {
+                        ok = check.getAsBoolean();
+                    } catch (RuntimeException e) {
+                        ok = false;
+                    }
+                    recordProbe(ok);
+                } finally {
+                    probing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            probing.set(false);
+        }
+    }
+}
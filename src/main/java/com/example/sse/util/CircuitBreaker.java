@@ -0,0 +1,225 @@
+package com.example.sse.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * CLOSED: outcomes of the last windowSize calls are kept in a ring; once at
+ * least minimumCalls are recorded and either the failure rate or the rate of
+ * calls slower than slowCallMs reaches its threshold, the breaker opens.
+ * OPEN: calls are rejected without touching the backend for openDurationMs.
+ * HALF_OPEN: up to halfOpenCalls trial calls are let through; all of them
+ * succeeding (fast) closes the breaker, any failure or slow call reopens it.
+ *
+ * isCallPermitted() is a lock-free read for the hot path; recording outcomes
+ * synchronizes, which is cheap next to the network call being recorded.
+ */
+public final class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    private static final byte SLOW_FAILED = 3;
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationMs;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntil;
+
+    // Guarded by this
+    private final byte[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failedCalls;
+    private int slowCalls;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    /**
+     * @param name                  label used in logs and stats
+     * @param windowSize            number of recent calls considered
+     * @param minimumCalls          calls needed before the rates are evaluated
+     * @param failureRateThreshold  percent of failed calls that opens the breaker
+     * @param slowCallRateThreshold percent of slow calls that opens the breaker
+     * @param slowCallMs            a call at least this slow counts as slow
+     * @param openDurationMs        how long the breaker stays open
+     * @param halfOpenCalls         trial calls while half-open
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+            int slowCallRateThreshold, long slowCallMs, long openDurationMs, int halfOpenCalls) {
+        this.name = name;
+        this.window = new byte[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallMs * 1_000_000L;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * False while open - callers should skip this backend. Does not reserve a
+     * half-open trial slot; use tryAcquirePermission() before an actual call.
+     */
+    public boolean isCallPermitted() {
+        return state != State.OPEN || System.currentTimeMillis() >= openUntil;
+    }
+
+    /**
+     * Permission for one call. Every granted permission must be followed by
+     * onSuccess, onError or releasePermission.
+     */
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() < openUntil) {
+                    notPermitted.increment();
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls) {
+                    notPermitted.increment();
+                    return false;
+                }
+                halfOpenInFlight++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Give back a permission that was not used for a call.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW : OK);
+    }
+
+    public void onError(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW_FAILED : FAILED);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("name", name);
+            stats.put("state", state.name());
+            stats.put("failure_rate", recorded == 0 ? 0.0 : failedCalls * 100.0 / recorded);
+            stats.put("slow_call_rate", recorded == 0 ? 0.0 : slowCalls * 100.0 / recorded);
+            stats.put("recorded_calls", recorded);
+        }
+        stats.put("not_permitted", notPermitted.sum());
+        stats.put("times_opened", timesOpened.sum());
+        return stats;
+    }
+
+    private synchronized void record(byte outcome) {
+        boolean failed = outcome == FAILED || outcome == SLOW_FAILED;
+        boolean slow = outcome == SLOW || outcome == SLOW_FAILED;
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight > 0) {
+                halfOpenInFlight--;
+            }
+            if (failed || slow) {
+                logger.warn("🔌 {} circuit reopened: trial call {}", name, failed ? "failed" : "was slow");
+                open();
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // Straggler from before the breaker opened
+        }
+
+        if (recorded == window.length) {
+            byte evicted = window[windowIndex];
+            if (evicted == FAILED || evicted == SLOW_FAILED) {
+                failedCalls--;
+            }
+            if (evicted == SLOW || evicted == SLOW_FAILED) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (failed) {
+            failedCalls++;
+        }
+        if (slow) {
+            slowCalls++;
+        }
+
+        if (recorded >= minimumCalls) {
+            if (failedCalls * 100 >= failureRateThreshold * recorded
+                    || slowCalls * 100 >= slowCallRateThreshold * recorded) {
+                logger.warn("🔌 {} circuit opened: {}/{} failed, {}/{} slow", name, failedCalls, recorded,
+                        slowCalls, recorded);
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        openUntil = System.currentTimeMillis() + openDurationMs;
+        timesOpened.increment();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        halfOpenInFlight = 0;
+        halfOpenSucceeded = 0;
+        if (next != State.OPEN) {
+            resetWindow();
+        }
+        if (previous != next && next != State.OPEN) {
+            logger.info("🔌 {} circuit {} -> {}", name, previous, next);
+        }
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        recorded = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+}
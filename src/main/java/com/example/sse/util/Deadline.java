@@ -0,0 +1,205 @@
+package com.example.sse.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a request's backend work must be done.
+ *
+ * Work started with supplyAsync runs with the deadline bound to its thread,
+ * where the JDBC layer picks it up: every statement gets a query timeout of
+ * the remaining time and is registered here while open. When the returned
+ * future times out, every statement still registered is cancelled (on a
+ * separate thread - the driver may open a connection to kill the query), so
+ * the worker gets an error, closes its connection and the pool gets it back
+ * instead of the query running on after nobody is waiting for it.
+ */
+public final class Deadline {
+    private static final Logger logger = LoggerFactory.getLogger(Deadline.class);
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+    private static final LongAdder cancelledStatements = new LongAdder();
+
+    private static final ExecutorService canceller = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "prod-db-cancel");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final long expiresAtNanos;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> cancelActions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(long timeoutMs) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs)));
+    }
+
+    /**
+     * Deadline bound to the current thread by supplyAsync, or null.
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Statements cancelled because their deadline passed, since startup.
+     */
+    public static long cancelledStatements() {
+        return cancelledStatements.sum();
+    }
+
+    /**
+     * Earlier deadline leaving reserveMs of this one for work after the
+     * backend calls (collecting results, serializing).
+     */
+    public Deadline withReserve(long reserveMs) {
+        return new Deadline(expiresAtNanos - TimeUnit.MILLISECONDS.toNanos(Math.max(0, reserveMs)));
+    }
+
+    public long remainingMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return cancelled.get() || expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Remaining time for Statement.setQueryTimeout - whole seconds, rounded
+     * up and at least 1 (0 would mean no timeout).
+     */
+    public int queryTimeoutSeconds() {
+        long remainingMs = remainingMs();
+        return (int) Math.max(1, (remainingMs + 999) / 1000);
+    }
+
+    /**
+     * Run call on executor with this deadline bound to the thread. The future
+     * fails with TimeoutException when the deadline passes - also if the
+     * task never got a thread in time - and statements still open are
+     * cancelled.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call, Executor executor) {
+        if (isExpired()) {
+            return CompletableFuture.failedFuture(new TimeoutException("Deadline passed before the call started"));
+        }
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            if (isExpired()) {
+                throw new CompletionException(new TimeoutException("Deadline passed while queued"));
+            }
+            return call(call);
+        }, executor);
+
+        future.orTimeout(remainingMs(), TimeUnit.MILLISECONDS).whenComplete((result, error) -> {
+            if (error instanceof TimeoutException) {
+                cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Run call on the calling thread with this deadline bound to it, restoring
+     * the previous binding afterwards. Nothing is cancelled on expiry by this
+     * call - the statements get query timeouts from the remaining time, and
+     * are cancelled only if someone calls cancel().
+     */
+    public <T> T call(Supplier<T> call) {
+        Deadline previous = current.get();
+        current.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Track an open statement; false (statement not tracked) if the deadline
+     * has already passed and the caller should not run it.
+     */
+    public boolean register(Statement statement) {
+        if (isExpired()) {
+            return false;
+        }
+        statements.add(statement);
+        if (cancelled.get() && statements.remove(statement)) {
+            return false; // Lost the race with cancel()
+        }
+        return true;
+    }
+
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * Run action when this deadline is cancelled - right away if it already
+     * has been. Used to pass the cancel on to work this deadline's caller was
+     * waiting for but that runs under a deadline of its own.
+     */
+    public void onCancel(Runnable action) {
+        cancelActions.add(action);
+        if (cancelled.get() && cancelActions.remove(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Cancel every registered statement and run the onCancel actions;
+     * statements registered later are refused.
+     */
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        for (Statement statement : statements) {
+            if (statements.remove(statement)) {
+                canceller.execute(() -> cancel(statement));
+            }
+        }
+        for (Runnable action : cancelActions) {
+            if (cancelActions.remove(action)) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Cancel action failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            statement.cancel();
+            cancelledStatements.increment();
+        } catch (SQLException e) {
+            logger.debug("Statement cancel failed: {}", e.getMessage());
+        }
+    }
+}
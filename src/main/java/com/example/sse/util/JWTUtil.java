@@ -1,8 +1,10 @@
 package com.example.sse.util;
 
+import com.example.sse.cache.LocalCache;
 import com.example.sse.config.ConfigManager;
 import com.example.sse.exception.ServiceException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -10,22 +12,59 @@ import org.slf4j.LoggerFactory;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
-import static io.jsonwebtoken.Jwts.*;
-
+/**
+ * JWT validation with a verified-token cache.
+ *
+ * The parser is built once (it is immutable and thread-safe). Results are
+ * cached by SHA-256 digest of the token: valid tokens until their exp claim
+ * (at most jwt.cache.ttl), invalid ones for jwt.cache.negative.ttl, so a
+ * client reconnecting in a loop with a bad token costs one HMAC check and
+ * one log line per negative TTL instead of one per attempt. Cached Claims
+ * are shared between callers and must not be modified.
+ */
 public class JWTUtil {
     private static final Logger logger = LoggerFactory.getLogger(JWTUtil.class);
     private static JWTUtil instance;
     private final SecretKey secretKey;
+    private final JwtParser parser;
+
+    private final LocalCache<String, CachedToken> verifiedTokens;
+    private final long cacheTtlMs;
+    private final long negativeTtlMs;
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
 
     private JWTUtil() {
-        ConfigManager config = ConfigManager.getInstance();
-        String secret = config.getProperty("jwt.secret");
+        this(ConfigManager.getInstance());
+    }
+
+    private JWTUtil(ConfigManager config) {
+        this(config.getProperty("jwt.secret"),
+                config.getLongProperty("jwt.cache.max.entries", 10000),
+                config.getLongProperty("jwt.cache.ttl", 300000),
+                config.getLongProperty("jwt.cache.negative.ttl", 30000));
+    }
+
+    // (package-private for tests)
+    JWTUtil(String secret, long maxEntries, long cacheTtlMs, long negativeTtlMs) {
         if (secret == null || secret.length() < 32) {
             throw new IllegalArgumentException("JWT secret must be at least 32 characters long");
         }
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+
+        long entries = Math.max(1, maxEntries);
+        this.verifiedTokens = new LocalCache<>("jwt", entries, entries, (key, value) -> 1);
+        this.cacheTtlMs = cacheTtlMs;
+        this.negativeTtlMs = negativeTtlMs;
     }
 
     public static synchronized JWTUtil getInstance() {
@@ -35,27 +74,76 @@ public class JWTUtil {
         return instance;
     }
 
+    /**
+     * URL-safe SHA-256 digest of a token - a collision-free cache key that
+     * does not keep the bearer token itself in memory or in Redis.
+     */
+    public static String tokenDigest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public Claims validateToken(String token) throws Exception {
+        if (token == null || token.isEmpty()) {
+            throw new ServiceException(ServiceException.ServiceType.JWT, "Invalid token: empty");
+        }
+
+        String key = tokenDigest(token);
+        long now = System.currentTimeMillis();
+        CachedToken cached = verifiedTokens.get(key);
+        if (cached != null && now < cached.expiresAt) {
+            if (cached.claims == null) {
+                throw new ServiceException(ServiceException.ServiceType.JWT, cached.error);
+            }
+            return cached.claims;
+        }
+
+        verifications.increment();
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
 
             // Check if token is expired
             Date expiration = claims.getExpiration();
-            if (expiration != null && expiration.before(new Date())) {
+            if (expiration != null && expiration.getTime() <= now) {
                 throw new ServiceException(ServiceException.ServiceType.JWT, "Token has expired");
             }
 
+            long ttl = Math.min(cacheTtlMs, getRemainingLifetimeMs(claims));
+            if (ttl > 0) {
+                verifiedTokens.put(key, new CachedToken(claims, null, now + ttl), ttl);
+            }
             return claims;
         } catch (Exception e) {
-            logger.error("Token validation failed", e);
-            throw new ServiceException(ServiceException.ServiceType.JWT, "Invalid token: " + e.getMessage());
+            rejections.increment();
+            String error = e instanceof ServiceException ? e.getMessage() : "Invalid token: " + e.getMessage();
+            // Message only - a bad token is a client problem, not a stack trace
+            logger.warn("Token validation failed: {}", error);
+            if (negativeTtlMs > 0) {
+                verifiedTokens.put(key, new CachedToken(null, error, now + negativeTtlMs), negativeTtlMs);
+            }
+            throw new ServiceException(ServiceException.ServiceType.JWT, error);
         }
     }
 
+    /**
+     * Milliseconds until the token's exp claim, Long.MAX_VALUE without one.
+     */
+    public long getRemainingLifetimeMs(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration == null ? Long.MAX_VALUE : expiration.getTime() - System.currentTimeMillis();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(verifiedTokens.stats());
+        stats.put("verifications", verifications.sum());
+        stats.put("rejections", rejections.sum());
+        return stats;
+    }
+
     public Long getUserId(Claims claims) {
         try {
             // First try to get user_master_id from userdetail object
@@ -93,7 +181,7 @@ public class JWTUtil {
         } catch (ServiceException e) {
             throw e;
         } catch (Exception e) {
-            logger.error("Error extracting user ID from token", e);
+            logger.warn("Error extracting user ID from token: {}", e.getMessage());
             throw new ServiceException(ServiceException.ServiceType.JWT, "Failed to extract user ID from token", e);
         }
     }
@@ -118,4 +206,16 @@ public class JWTUtil {
         Date expiration = claims.getExpiration();
         return expiration != null && expiration.before(new Date());
     }
+
+    private static final class CachedToken {
+        final Claims claims; // null for a rejected token
+        final String error;
+        final long expiresAt;
+
+        CachedToken(Claims claims, String error, long expiresAt) {
+            this.claims = claims;
+            this.error = error;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.sse.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reader and writer for one (possibly generic) type, created once by
+ * JsonCodecs. Both are immutable and thread-safe, and their root
+ * (de)serializers are resolved when the codec is built, so reading or
+ * writing never goes back to the type's annotations and accessors.
+ */
+public final class JsonCodec<T> {
+    private final JavaType type;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    // Leaves the target open - writeTo appends to buffers that outlive it
+    private final ObjectWriter appendingWriter;
+
+    JsonCodec(JavaType type, ObjectReader reader, ObjectWriter writer) {
+        this.type = type;
+        this.reader = reader;
+        this.writer = writer;
+        this.appendingWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public T read(String json) throws IOException {
+        return reader.readValue(json);
+    }
+
+    public T read(byte[] json) throws IOException {
+        return reader.readValue(json);
+    }
+
+    public String write(T value) throws JsonProcessingException {
+        return writer.writeValueAsString(value);
+    }
+
+    public byte[] writeBytes(T value) throws JsonProcessingException {
+        return writer.writeValueAsBytes(value);
+    }
+
+    /**
+     * Append value's JSON to out without building it as a byte[] first; out
+     * is flushed but not closed.
+     */
+    public void writeTo(OutputStream out, T value) throws IOException {
+        appendingWriter.writeValue(out, value);
+    }
+
+    public ObjectReader reader() {
+        return reader;
+    }
+
+    public ObjectWriter writer() {
+        return writer;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonCodec(" + type + ")";
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.sse.util;
+
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.RegionInfo;
+import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.model.DataModels.UserStatus;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The process-wide ObjectMapper and a registry of typed codecs built from it.
+ *
+ * Cached models have their codecs created when this class loads (the SSE
+ * servlet takes the mapper during init), so each model is introspected once
+ * at startup. Other types get a codec on first use, which is then shared. Generic
+ * types such as List&lt;CommentData&gt; keep their element type, so cached
+ * lists come back as model objects rather than lists of maps.
+ */
+public final class JsonCodecs {
+    // Unknown properties are skipped so entries written by a newer build
+    // (with extra fields) still read instead of turning into cache misses
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ConcurrentMap<JavaType, JsonCodec<?>> codecs = new ConcurrentHashMap<>();
+
+    // Scratch buffers above this size are dropped rather than kept for reuse
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+    private static final ThreadLocal<ByteArrayOutputStream> buffers = ThreadLocal
+            .withInitial(() -> new ByteArrayOutputStream(8192));
+
+    public static final JsonCodec<UserStatus> USER_STATUS = of(UserStatus.class);
+    public static final JsonCodec<RegionInfo> REGION_INFO = of(RegionInfo.class);
+    public static final JsonCodec<List<CommentData>> COMMENT_LIST = listOf(CommentData.class);
+    public static final JsonCodec<List<SurveyData>> SURVEY_LIST = listOf(SurveyData.class);
+
+    private JsonCodecs() {
+    }
+
+    /**
+     * Shared mapper for untyped writes (maps, stats) - configure nothing on it.
+     */
+    public static ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public static <T> JsonCodec<T> of(Class<T> type) {
+        return of(mapper.constructType(type));
+    }
+
+    public static <T> JsonCodec<T> of(TypeReference<T> type) {
+        return of(mapper.constructType(type));
+    }
+
+    /**
+     * Codec for List&lt;elementType&gt;. Built from the type factory rather
+     * than a TypeReference subclass, so it needs no extra reflection
+     * metadata in the native image.
+     */
+    public static <E> JsonCodec<List<E>> listOf(Class<E> elementType) {
+        return of(mapper.getTypeFactory().constructCollectionType(List.class, elementType));
+    }
+
+    /**
+     * Empty scratch buffer owned by the calling thread, for building a
+     * payload that is then copied out once with toByteArray(). It must not
+     * escape the thread or be held across calls. A buffer that grew past 1MB
+     * is replaced instead of reused, so one huge payload does not pin its
+     * memory.
+     */
+    public static ByteArrayOutputStream threadBuffer() {
+        ByteArrayOutputStream buffer = buffers.get();
+        if (buffer.size() > MAX_RETAINED_BUFFER) {
+            buffer = new ByteArrayOutputStream(8192);
+            buffers.set(buffer);
+        } else {
+            buffer.reset();
+        }
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> JsonCodec<T> of(JavaType type) {
+        return (JsonCodec<T>) codecs.computeIfAbsent(type,
+                t -> new JsonCodec<>(t, mapper.readerFor(t), mapper.writerFor(t)));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.sse.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing per key: while a load for a key is in flight, every other
+ * caller for the same key waits for that load instead of starting its own.
+ * Once the load completes the key is released, so the next miss loads again -
+ * this deduplicates concurrent work, it does not cache.
+ *
+ * Results are shared between all waiters and must be treated as read-only.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Flight<V>> blockingInFlight = new ConcurrentHashMap<>();
+    private final long loadTimeoutMs;
+
+    /**
+     * Blocking loads run under whatever deadline the first caller's thread has.
+     */
+    public SingleFlight() {
+        this(0);
+    }
+
+    /**
+     * Blocking loads run under a deadline of their own, loadTimeoutMs from
+     * when they start, since they serve every waiter and not just the caller
+     * that happened to start them. That deadline is cancelled - and with it
+     * the load's statements - once every caller waiting on the load has given
+     * up on its own deadline.
+     */
+    public SingleFlight(long loadTimeoutMs) {
+        this.loadTimeoutMs = Math.max(0, loadTimeoutMs);
+    }
+
+    /**
+     * Blocking form: the first caller runs the loader on its own thread,
+     * concurrent callers block until it finishes and get the same result or
+     * the same exception. A waiter with a deadline bound to its thread gives
+     * up when that passes (CompletionException caused by TimeoutException);
+     * the load carries on for the others, and is cancelled when the last one
+     * gives up. Waiters without a deadline never give up.
+     */
+    public V load(K key, Supplier<V> loader) {
+        Deadline callerDeadline = Deadline.current();
+        while (true) {
+            Flight<V> created = new Flight<>(loadTimeoutMs > 0 ? Deadline.after(loadTimeoutMs) : callerDeadline);
+            Flight<V> existing = blockingInFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                return lead(key, created, callerDeadline, loader);
+            }
+            if (existing.join()) {
+                return follow(key, existing, callerDeadline);
+            }
+            blockingInFlight.remove(key, existing); // Abandoned - start a fresh load
+        }
+    }
+
+    private V lead(K key, Flight<V> flight, Deadline callerDeadline, Supplier<V> loader) {
+        flight.join();
+        if (callerDeadline != null && flight.deadline != callerDeadline) {
+            callerDeadline.onCancel(() -> flight.leave(this, key));
+        }
+        try {
+            V value = flight.deadline != null ? flight.deadline.call(loader) : loader.get();
+            flight.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            blockingInFlight.remove(key, flight);
+        }
+    }
+
+    private V follow(K key, Flight<V> flight, Deadline callerDeadline) {
+        try {
+            return await(flight.future, callerDeadline);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                flight.leave(this, key);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Async form: the first caller starts the loader, everyone gets a view of
+     * its future. Each caller gets its own copy, so a caller that times out or
+     * cancels does not affect the shared load.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        try {
+            loader.get().whenComplete((value, error) -> {
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size() + blockingInFlight.size();
+    }
+
+    /**
+     * A blocking load and the number of callers still waiting for it. The
+     * count only drops when a caller's deadline passes, so a caller without
+     * one keeps the load alive; at zero the load's deadline is cancelled and
+     * the key released, so later callers start over rather than join a load
+     * that is being torn down.
+     */
+    private static final class Flight<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final Deadline deadline;
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        Flight(Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        boolean join() {
+            int count;
+            do {
+                count = waiters.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        <K> void leave(SingleFlight<K, V> owner, K key) {
+            if (waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+                owner.blockingInFlight.remove(key, this);
+                if (!future.isDone() && deadline != null) {
+                    deadline.cancel();
+                }
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future, Deadline deadline) {
+        try {
+            if (deadline == null) {
+                return future.join();
+            }
+            return future.get(deadline.remainingMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CompletionException(new TimeoutException("Deadline passed waiting for a shared load"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (CompletionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.sse.cache;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * RESP2 encoding and parsing of AsyncRedisClient, and its pipelining,
+ * reconnect and failure handling against a scripted in-process server.
+ */
+public class AsyncRedisClientTest {
+
+    private static final long WAIT_MS = 5000;
+
+    private FakeRedis server;
+    private AsyncRedisClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeRedis();
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    // === Encoding ===
+
+    @Test
+    public void testEncodeCommand() {
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$3\r\nkey\r\n", text(AsyncRedisClient.encode("GET", "key")));
+    }
+
+    @Test
+    public void testEncodeUsesUtf8ByteLengths() {
+        Assert.assertEquals("*2\r\n$3\r\nGET\r\n$4\r\nkéy\r\n", text(AsyncRedisClient.encode("GET", "kéy")));
+        Assert.assertEquals("*3\r\n$3\r\nSET\r\n$1\r\nk\r\n$0\r\n\r\n", text(AsyncRedisClient.encode("SET", "k", "")));
+    }
+
+    // === Parsing ===
+
+    @Test
+    public void testParseScalarReplies() throws IOException {
+        Assert.assertEquals("OK", parse("+OK\r\n"));
+        Assert.assertEquals(42L, parse(":42\r\n"));
+        Assert.assertEquals(-1L, parse(":-1\r\n"));
+        Assert.assertEquals("héllo", parse("$6\r\nhéllo\r\n"));
+        Assert.assertEquals("", parse("$0\r\n\r\n"));
+        Assert.assertSame(AsyncRedisClient.NIL, parse("$-1\r\n"));
+        Assert.assertSame(AsyncRedisClient.NIL, parse("*-1\r\n"));
+    }
+
+    @Test
+    public void testParseBulkContainingCrlf() throws IOException {
+        Assert.assertEquals("a\r\nb", parse("$4\r\na\r\nb\r\n"));
+    }
+
+    @Test
+    public void testParseArrayReplies() throws IOException {
+        Assert.assertEquals(Arrays.asList("a", null, 7L), parse("*3\r\n$1\r\na\r\n$-1\r\n:7\r\n"));
+        Assert.assertEquals(List.of(), parse("*0\r\n"));
+        Assert.assertEquals(List.of(List.of("x"), "y"), parse("*2\r\n*1\r\n$1\r\nx\r\n+y\r\n"));
+    }
+
+    @Test
+    public void testParseErrorReplyIsNotAValue() throws IOException {
+        Object reply = parse("-ERR wrong type\r\n");
+        Assert.assertFalse(reply instanceof String);
+        Assert.assertNotSame(AsyncRedisClient.INCOMPLETE, reply);
+    }
+
+    @Test
+    public void testParseEveryTruncationIsIncomplete() throws IOException {
+        String[] replies = {
+                "+OK\r\n", ":123\r\n", "$5\r\nhello\r\n", "$-1\r\n", "-ERR x\r\n",
+                "*3\r\n$1\r\na\r\n$-1\r\n:7\r\n", "*2\r\n*1\r\n$1\r\nx\r\n+y\r\n"
+        };
+        for (String reply : replies) {
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            for (int length = 0; length < bytes.length; length++) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                Assert.assertSame("Prefix of " + length + " bytes of " + reply.replace("\r\n", "\\r\\n"),
+                        AsyncRedisClient.INCOMPLETE, AsyncRedisClient.parse(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testParseConsumesExactlyOneReply() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap("$3\r\nfoo\r\n:5\r\n+PONG\r\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("foo", AsyncRedisClient.parse(buffer));
+        Assert.assertEquals(5L, AsyncRedisClient.parse(buffer));
+        Assert.assertEquals("PONG", AsyncRedisClient.parse(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void testParseRejectsUnknownType() throws IOException {
+        parse("?what\r\n");
+    }
+
+    // === Transport ===
+
+    @Test
+    public void testPipelinedRepliesMatchCommandsInOrder() throws Exception {
+        server.responder = command -> bulk(command.get(0) + ":" + command.get(1));
+        client = newClient(null, 0, 2000);
+
+        List<String[]> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new String[] { "GET", "key" + i });
+        }
+        List<CompletableFuture<Object>> replies = client.sendAll(batch);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("GET:key" + i, await(replies.get(i)));
+        }
+    }
+
+    @Test
+    public void testRepliesSplitAcrossReads() throws Exception {
+        server.chunkSize = 3;
+        server.responder = command -> switch (command.get(0)) {
+            case "MGET" -> "*3\r\n$5\r\nalpha\r\n$-1\r\n$4\r\nbeta\r\n".getBytes(StandardCharsets.UTF_8);
+            case "PTTL" -> ":1500\r\n".getBytes(StandardCharsets.UTF_8);
+            default -> bulk("value");
+        };
+        client = newClient(null, 0, 2000);
+
+        List<CompletableFuture<Object>> replies = client.sendAll(List.of(
+                new String[] { "MGET", "a", "b", "c" },
+                new String[] { "PTTL", "a" },
+                new String[] { "GET", "a" }));
+        Assert.assertEquals(Arrays.asList("alpha", null, "beta"), await(replies.get(0)));
+        Assert.assertEquals(1500L, await(replies.get(1)));
+        Assert.assertEquals("value", await(replies.get(2)));
+    }
+
+    @Test
+    public void testReplyLargerThanReadBuffer() throws Exception {
+        String large = "x".repeat(300 * 1024);
+        server.responder = command -> bulk(large);
+        client = newClient(null, 0, 5000);
+
+        Assert.assertEquals(large, await(client.send("GET", "large")));
+        Assert.assertEquals(large, await(client.send("GET", "large")));
+    }
+
+    @Test
+    public void testNullBulkCompletesWithNull() throws Exception {
+        server.responder = command -> "$-1\r\n".getBytes(StandardCharsets.UTF_8);
+        client = newClient(null, 0, 2000);
+
+        Assert.assertNull(await(client.send("GET", "missing")));
+    }
+
+    @Test
+    public void testErrorReplyFailsOnlyItsCommand() throws Exception {
+        server.responder = command -> "bad".equals(command.get(1))
+                ? "-WRONGTYPE Operation against a key holding the wrong kind of value\r\n"
+                        .getBytes(StandardCharsets.UTF_8)
+                : bulk(command.get(1));
+        client = newClient(null, 0, 2000);
+
+        List<CompletableFuture<Object>> replies = client.sendAll(List.of(
+                new String[] { "GET", "good" },
+                new String[] { "GET", "bad" },
+                new String[] { "GET", "after" }));
+        Assert.assertEquals("good", await(replies.get(0)));
+        Throwable error = failure(replies.get(1));
+        Assert.assertTrue(error instanceof AsyncRedisClient.RedisErrorException);
+        Assert.assertTrue(error.getMessage().startsWith("WRONGTYPE"));
+        Assert.assertEquals("after", await(replies.get(2)));
+        Assert.assertEquals(1, server.connections());
+    }
+
+    @Test
+    public void testHandshakeGoesAheadOfQueuedCommands() throws Exception {
+        server.responder = command -> switch (command.get(0)) {
+            case "AUTH", "SELECT" -> "+OK\r\n".getBytes(StandardCharsets.UTF_8);
+            default -> bulk("v");
+        };
+        client = newClient("secret", 3, 2000);
+
+        Assert.assertEquals("v", await(client.send("GET", "k")));
+        Assert.assertEquals(List.of("AUTH", "secret"), server.nextCommand());
+        Assert.assertEquals(List.of("SELECT", "3"), server.nextCommand());
+        Assert.assertEquals(List.of("GET", "k"), server.nextCommand());
+    }
+
+    @Test
+    public void testFailedHandshakeFailsQueuedCommands() throws Exception {
+        server.responder = command -> "AUTH".equals(command.get(0))
+                ? "-WRONGPASS invalid username-password pair\r\n".getBytes(StandardCharsets.UTF_8)
+                : bulk("v");
+        client = newClient("wrong", 0, 2000);
+
+        Throwable error = failure(client.send("GET", "k"));
+        Assert.assertTrue(error instanceof IOException);
+        Assert.assertFalse(client.isConnected());
+    }
+
+    @Test
+    public void testConnectionLossFailsPendingCommands() throws Exception {
+        server.responder = command -> null; // Never answers
+        client = newClient(null, 0, 10000);
+
+        CompletableFuture<Object> first = client.send("GET", "a");
+        CompletableFuture<Object> second = client.send("GET", "b");
+        server.awaitCommands(2);
+        server.dropConnections();
+
+        Assert.assertTrue(failure(first) instanceof IOException);
+        Assert.assertTrue(failure(second) instanceof IOException);
+    }
+
+    @Test
+    public void testReconnectsAfterConnectionLoss() throws Exception {
+        server.responder = command -> bulk("v");
+        client = newClient(null, 0, 2000);
+        Assert.assertEquals("v", await(client.send("GET", "k")));
+
+        server.dropConnections();
+        // The drop is noticed on the next read; later commands reconnect once the backoff has passed
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        Object reply = null;
+        while (reply == null && System.currentTimeMillis() < deadline) {
+            try {
+                reply = client.send("GET", "k").get(WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+                Thread.sleep(50);
+            }
+        }
+        Assert.assertEquals("v", reply);
+        Assert.assertEquals(2, server.connections());
+        Assert.assertEquals(2L, client.stats().get("connects"));
+    }
+
+    @Test
+    public void testReplyTimeoutFailsOutstandingCommands() throws Exception {
+        server.responder = command -> null; // Redis answers in order, so nothing behind a stalled reply either
+        client = newClient(null, 0, 200);
+
+        CompletableFuture<Object> slow = client.send("GET", "slow");
+        CompletableFuture<Object> behind = client.send("GET", "behind");
+        Throwable error = failure(slow);
+        Assert.assertTrue(error instanceof IOException);
+        Assert.assertTrue(error.getCause() instanceof TimeoutException);
+        Assert.assertTrue(failure(behind) instanceof IOException);
+        Assert.assertEquals(1L, client.stats().get("timeouts"));
+    }
+
+    @Test
+    public void testTooManyPendingCommandsFailAtOnce() throws Exception {
+        server.responder = command -> null;
+        client = new AsyncRedisClient("127.0.0.1", server.port(), null, 0, 1000, 10000, 2);
+
+        List<CompletableFuture<Object>> accepted = client.sendAll(List.of(
+                new String[] { "GET", "a" }, new String[] { "GET", "b" }));
+        CompletableFuture<Object> rejected = client.send("GET", "c");
+        Assert.assertTrue(failure(rejected) instanceof IOException);
+        Assert.assertFalse(accepted.get(0).isDone());
+    }
+
+    @Test
+    public void testCommandsFailAfterClose() throws Exception {
+        server.responder = command -> bulk("v");
+        client = newClient(null, 0, 2000);
+        client.close();
+
+        Assert.assertTrue(failure(client.send("GET", "k")) instanceof IOException);
+    }
+
+    // === Helpers ===
+
+    private AsyncRedisClient newClient(String password, int database, long commandTimeoutMs) {
+        return new AsyncRedisClient("127.0.0.1", server.port(), password, database, 1000, commandTimeoutMs, 10000);
+    }
+
+    private static Object parse(String reply) throws IOException {
+        return AsyncRedisClient.parse(ByteBuffer.wrap(reply.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bulk(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ("$" + bytes.length + "\r\n" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        return future.get(WAIT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Throwable failure(CompletableFuture<Object> future) throws Exception {
+        try {
+            Object value = future.get(WAIT_MS, TimeUnit.MILLISECONDS);
+            throw new AssertionError("Expected a failure, got " + value);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Single-threaded RESP server: reads command arrays, answers each with
+     * whatever the responder returns (null - no answer), optionally a few
+     * bytes per write so the client sees replies split across reads.
+     */
+    private static final class FakeRedis implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final BlockingQueue<List<String>> received = new LinkedBlockingQueue<>();
+        private final Thread acceptor;
+        volatile Function<List<String>, byte[]> responder = command -> "+OK\r\n".getBytes(StandardCharsets.UTF_8);
+        volatile int chunkSize = Integer.MAX_VALUE;
+
+        FakeRedis() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            acceptor = new Thread(this::acceptLoop, "fake-redis");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        int connections() {
+            return sockets.size();
+        }
+
+        List<String> nextCommand() throws InterruptedException {
+            List<String> command = received.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull("No command received", command);
+            return command;
+        }
+
+        void awaitCommands(int count) throws InterruptedException {
+            for (int i = 0; i < count; i++) {
+                nextCommand();
+            }
+        }
+
+        void dropConnections() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                serverSocket.close();
+                dropConnections();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    sockets.add(socket);
+                    Thread handler = new Thread(() -> serve(socket), "fake-redis-conn");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    List<String> command = readCommand(in);
+                    if (command == null) {
+                        return;
+                    }
+                    received.add(command);
+                    byte[] reply = responder.apply(command);
+                    if (reply != null) {
+                        write(out, reply);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Connection dropped
+            }
+        }
+
+        private void write(OutputStream out, byte[] reply) throws IOException, InterruptedException {
+            int chunk = chunkSize;
+            for (int offset = 0; offset < reply.length; offset += chunk) {
+                out.write(reply, offset, Math.min(chunk, reply.length - offset));
+                out.flush();
+                if (chunk < reply.length) {
+                    Thread.sleep(1);
+                }
+            }
+        }
+
+        private static List<String> readCommand(InputStream in) throws IOException {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            Assert.assertTrue("Command must be an array: " + header, header.startsWith("*"));
+            int count = Integer.parseInt(header.substring(1));
+            List<String> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String length = readLine(in);
+                Assert.assertNotNull(length);
+                Assert.assertTrue("Argument must be a bulk string: " + length, length.startsWith("$"));
+                byte[] bytes = in.readNBytes(Integer.parseInt(length.substring(1)) + 2);
+                args.add(new String(bytes, 0, bytes.length - 2, StandardCharsets.UTF_8));
+            }
+            return args;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int previous = -1;
+            while (true) {
+                int next = in.read();
+                if (next < 0) {
+                    return null;
+                }
+                if (previous == '\r' && next == '\n') {
+                    byte[] bytes = line.toByteArray();
+                    return new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8);
+                }
+                line.write(next);
+                previous = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.sse.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Weight-bounded eviction, frequency-based admission and TTL expiry of
+ * LocalCache.
+ */
+public class LocalCacheTest {
+
+    private static final long TTL_MS = 60_000;
+    private static final long TICK_MS = 1000;
+
+    // === Basics ===
+
+    @Test
+    public void testGetPutInvalidate() {
+        LocalCache<String, String> cache = cache(1000);
+
+        Assert.assertNull(cache.get("a"));
+        cache.put("a", "1", TTL_MS);
+        Assert.assertEquals("1", cache.get("a"));
+
+        cache.put("a", "2", TTL_MS);
+        Assert.assertEquals("2", cache.get("a"));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(10, cache.weight());
+
+        cache.invalidate("a");
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.weight());
+
+        Assert.assertEquals(2L, cache.stats().get("hits"));
+        Assert.assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        LocalCache<String, String> cache = cache(1000);
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, "v", TTL_MS);
+        }
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.weight());
+    }
+
+    // === Eviction ===
+
+    @Test
+    public void testStaysWithinWeightBudget() {
+        LocalCache<String, String> cache = cache(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("k" + i, "v", TTL_MS);
+            Assert.assertTrue(cache.weight() <= 100);
+        }
+
+        Assert.assertEquals(10, cache.size());
+        Assert.assertEquals(40L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    public void testEntryHeavierThanBudgetIsNotCached() {
+        LocalCache<String, String> cache = new LocalCache<>("test", 100, 10, (k, v) -> v.length());
+
+        cache.put("big", "x".repeat(101), TTL_MS);
+        Assert.assertNull(cache.get("big"));
+        Assert.assertEquals(0, cache.weight());
+
+        // Replacing a cached entry with an oversized one drops the old value too
+        cache.put("a", "small", TTL_MS);
+        cache.put("a", "x".repeat(101), TTL_MS);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testFrequentKeySurvivesScan() {
+        LocalCache<String, String> cache = cache(100);
+        cache.put("hot", "v", TTL_MS);
+
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals("hot missing after " + i + " one-off keys", "v", cache.get("hot"));
+            cache.put("cold" + i, "v", TTL_MS);
+        }
+        Assert.assertEquals("v", cache.get("hot"));
+    }
+
+    // === Expiry ===
+
+    @Test
+    public void testEntryPastTtlIsAMiss() throws Exception {
+        LocalCache<String, String> cache = cache(1000);
+        cache.put("a", "1", 20);
+
+        Thread.sleep(50);
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testAlreadyDueEntryIsExpiredOnNextTick() throws Exception {
+        LocalCache<String, String> cache = cache(1000);
+        cache.put("due", "1", 0);
+        cache.put("live", "1", TTL_MS);
+
+        // Any later maintenance past the tick boundary must drop it, not a revolution later
+        Thread.sleep(TICK_MS - System.currentTimeMillis() % TICK_MS + 50);
+        cache.put("other", "1", TTL_MS);
+
+        Assert.assertEquals(1L, cache.stats().get("expirations"));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(20, cache.weight());
+        Assert.assertEquals("1", cache.get("live"));
+    }
+
+    private static LocalCache<String, String> cache(long maximumWeight) {
+        return new LocalCache<>("test", maximumWeight, 100, (k, v) -> 10);
+    }
+}
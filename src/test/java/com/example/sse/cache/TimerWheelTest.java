@@ -0,0 +1,92 @@
+package com.example.sse.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bucket placement and expiry of TimerWheel, driven by explicit times.
+ */
+public class TimerWheelTest {
+
+    private static final long TICK_MS = 1000;
+    private static final int BUCKETS = 16;
+    private static final long START = 1_000_000;
+
+    private final TimerWheel<String, String> wheel = new TimerWheel<>(BUCKETS, TICK_MS, START);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    public void testExpiresNodeAfterItsTime() {
+        schedule("a", START + 2500);
+
+        advance(START + 2000);
+        Assert.assertEquals(List.of(), expired);
+        advance(START + 3000);
+        Assert.assertEquals(List.of("a"), expired);
+    }
+
+    @Test
+    public void testNodeDueWithinTheCurrentTick() {
+        schedule("a", START + 200);
+
+        advance(START + 1000);
+        Assert.assertEquals(List.of("a"), expired);
+    }
+
+    @Test
+    public void testNodeAlreadyDueWhenScheduled() {
+        advance(START + 5000);
+        // Expiry in a tick the wheel has already passed
+        schedule("a", START + 1000);
+        schedule("b", START + 5000);
+
+        advance(START + 6000);
+        Assert.assertEquals(List.of("a", "b"), expired);
+    }
+
+    @Test
+    public void testNodeBeyondOneRevolutionWaitsForItsRound() {
+        long farOut = START + (BUCKETS + 2) * TICK_MS;
+        schedule("far", farOut);
+
+        advance(START + 3 * TICK_MS);
+        Assert.assertEquals(List.of(), expired);
+        advance(farOut);
+        Assert.assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    public void testLongPauseVisitsEveryBucketOnce() {
+        for (int i = 0; i < BUCKETS; i++) {
+            schedule("n" + i, START + i * TICK_MS + 1);
+        }
+
+        advance(START + 10 * BUCKETS * TICK_MS);
+        Assert.assertEquals(BUCKETS, expired.size());
+    }
+
+    @Test
+    public void testDescheduledNodeIsNotExpired() {
+        LocalCache.Node<String, String> node = schedule("a", START + 1500);
+        wheel.deschedule(node);
+
+        advance(START + 3000);
+        Assert.assertEquals(List.of(), expired);
+    }
+
+    private LocalCache.Node<String, String> schedule(String key, long expiresAt) {
+        LocalCache.Node<String, String> node = new LocalCache.Node<>(key, key, 1, expiresAt);
+        wheel.schedule(node);
+        return node;
+    }
+
+    private void advance(long now) {
+        wheel.advance(now, node -> {
+            expired.add(node.key);
+            wheel.deschedule(node);
+        });
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.sse.service;
+
+import com.example.sse.database.DatabaseProvider;
+import com.example.sse.model.DataModels.CommentData;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Watermark merge, reconcile, the bounded tail and lock-free refreshes of
+ * TopicCommentCache, against an in-memory knwlg_session_qna.
+ */
+public class TopicCommentCacheTest {
+
+    private static final long USER = 7L;
+    private static final long OTHER = 8L;
+
+    private final FakeTable table = new FakeTable();
+
+    @Test
+    public void testDeltaRefreshOnlyReadsNewRows() throws SQLException {
+        table.insert(1, OTHER, 1);
+        table.insert(2, OTHER, 1);
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 100, 100);
+
+        Assert.assertEquals(List.of(1L, 2L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+        table.insert(3, OTHER, 1);
+        Assert.assertEquals(List.of(1L, 2L, 3L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+        Assert.assertEquals(List.of(1L, 2L, 3L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+
+        Assert.assertEquals(1, table.queries("tail"));
+        Assert.assertEquals(1, table.newerRowsReturned.get());
+        Assert.assertEquals(1L, cache.stats().get("full_loads"));
+    }
+
+    @Test
+    public void testVisibilityAndPaging() throws SQLException {
+        table.insert(1, OTHER, 1);
+        table.insert(2, USER, 0);
+        table.insert(3, OTHER, 0);
+        table.insert(4, OTHER, 1);
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 100, 100);
+
+        Assert.assertEquals(List.of(1L, 2L, 4L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+        Assert.assertEquals(List.of(1L, 4L), ids(cache.getComments(OTHER + 1, "s1", "session", null, 10)));
+        Assert.assertEquals(List.of(2L, 4L), ids(cache.getComments(USER, "s1", "session", null, 2)));
+        Assert.assertEquals(List.of(1L, 2L), ids(cache.getComments(USER, "s1", "session", 4L, 10)));
+    }
+
+    @Test
+    public void testReconcileAppliesStatusChangesDeletesAndLateRows() throws SQLException {
+        table.insert(1, OTHER, 0);
+        table.insert(2, OTHER, 1);
+        table.insert(4, OTHER, 1);
+        TopicCommentCache cache = newCache(0, 0, 100, 100);
+        Assert.assertEquals(List.of(2L, 4L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+
+        table.setApproval(1, 1);
+        table.delete(2);
+        table.insert(3, OTHER, 1); // Committed below the watermark after we passed it
+        List<CommentData> comments = cache.getComments(USER, "s1", "session", null, 10);
+
+        Assert.assertEquals(List.of(1L, 3L, 4L), ids(comments));
+        Assert.assertEquals(Integer.valueOf(1), comments.get(0).getCommentApproveStatus());
+    }
+
+    @Test
+    public void testReconcileSweepReachesOlderRows() throws SQLException {
+        for (long id = 1; id <= 10; id++) {
+            table.insert(id, OTHER, 1);
+        }
+        // 2 newest rows plus a sweep range of 2 per reconcile
+        TopicCommentCache cache = newCache(0, 0, 100, 2);
+        cache.getComments(USER, "s1", "session", null, 20);
+
+        table.setApproval(1, 0);
+        int reconciles = 0;
+        while (ids(cache.getComments(USER, "s1", "session", null, 20)).contains(1L)) {
+            Assert.assertTrue("Sweep never reached the oldest row", ++reconciles < 10);
+        }
+        // Every reconcile reads at most 2 + 2 rows
+        Assert.assertTrue(table.maxStatusRows.get() <= 2);
+    }
+
+    @Test
+    public void testOversizedTopicKeepsABoundedTail() throws SQLException {
+        for (long id = 1; id <= 20; id++) {
+            table.insert(id, OTHER, 1);
+        }
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 5, 5);
+
+        Assert.assertEquals(List.of(16L, 17L, 18L, 19L, 20L), ids(cache.getComments(USER, "s1", "session", null, 5)));
+        // Page entirely below the held rows, and one straddling them
+        Assert.assertEquals(List.of(8L, 9L, 10L), ids(cache.getComments(USER, "s1", "session", 11L, 3)));
+        Assert.assertEquals(List.of(13L, 14L, 15L, 16L, 17L), ids(cache.getComments(USER, "s1", "session", 18L, 5)));
+
+        table.insert(21, OTHER, 1);
+        Assert.assertEquals(List.of(17L, 18L, 19L, 20L, 21L), cache.getWindow("s1", "session", 100).stream()
+                .map(CommentData::getId).collect(Collectors.toList()));
+
+        // Cached, not reloaded per request
+        Assert.assertEquals(1L, cache.stats().get("full_loads"));
+        Assert.assertEquals(2L, cache.stats().get("older_queries"));
+    }
+
+    @Test
+    public void testSmallTopicNeverQueriesOlderRows() throws SQLException {
+        table.insert(1, OTHER, 1);
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 5, 5);
+
+        Assert.assertEquals(List.of(1L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+        Assert.assertEquals(0L, cache.stats().get("older_queries"));
+    }
+
+    @Test
+    public void testReadersDoNotWaitForARunningRefresh() throws Exception {
+        table.insert(1, OTHER, 1);
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 100, 100);
+        cache.getComments(USER, "s1", "session", null, 10);
+
+        CountDownLatch inQuery = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        table.beforeNewer = () -> {
+            inQuery.countDown();
+            await(release);
+        };
+        table.insert(2, OTHER, 1);
+        CompletableFuture<List<CommentData>> refreshing = CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.getComments(USER, "s1", "session", null, 10);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assert.assertTrue(inQuery.await(5, TimeUnit.SECONDS));
+
+        // Served from the current list while the refresh is blocked in its query
+        Assert.assertEquals(List.of(1L), ids(cache.getComments(USER, "s1", "session", null, 10)));
+
+        release.countDown();
+        Assert.assertEquals(List.of(1L, 2L), ids(refreshing.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void testInvalidateReloads() throws SQLException {
+        table.insert(1, OTHER, 1);
+        TopicCommentCache cache = newCache(0, Long.MAX_VALUE, 100, 100);
+        cache.getComments(USER, "s1", "session", null, 10);
+
+        cache.invalidate("s1", "session");
+        cache.getComments(USER, "s1", "session", null, 10);
+        Assert.assertEquals(2, table.queries("tail"));
+    }
+
+    private TopicCommentCache newCache(long refreshMs, long reconcileMs, int maxTopicRows, int reconcileRows) {
+        return new TopicCommentCache(() -> table, refreshMs, reconcileMs, 60000, 10000, maxTopicRows, reconcileRows,
+                5000);
+    }
+
+    private static List<Long> ids(List<CommentData> comments) {
+        return comments.stream().map(CommentData::getId).collect(Collectors.toList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One topic's knwlg_session_qna rows, answering the cache's queries by
+     * their shape (type_id/type are not checked).
+     */
+    private static final class FakeTable implements DatabaseProvider {
+        private final List<Map<String, Object>> rows = new CopyOnWriteArrayList<>();
+        private final Map<String, AtomicInteger> queryCounts = new HashMap<>();
+        final AtomicInteger newerRowsReturned = new AtomicInteger();
+        final AtomicInteger maxStatusRows = new AtomicInteger();
+        volatile Runnable beforeNewer = () -> { };
+
+        void insert(long id, long userId, int approveStatus) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("knwlg_session_qna_id", id);
+            row.put("user_master_id", userId);
+            row.put("comment", "comment " + id);
+            row.put("comment_approve_status", approveStatus);
+            row.put("status", "active");
+            row.put("type_id", "s1");
+            row.put("type", "session");
+            rows.add(row);
+        }
+
+        void setApproval(long id, int approveStatus) {
+            rows.replaceAll(row -> {
+                if ((long) row.get("knwlg_session_qna_id") != id) {
+                    return row;
+                }
+                Map<String, Object> copy = new HashMap<>(row);
+                copy.put("comment_approve_status", approveStatus);
+                return copy;
+            });
+        }
+
+        void delete(long id) {
+            rows.removeIf(row -> (long) row.get("knwlg_session_qna_id") == id);
+        }
+
+        synchronized int queries(String kind) {
+            AtomicInteger count = queryCounts.get(kind);
+            return count != null ? count.get() : 0;
+        }
+
+        private synchronized void count(String kind) {
+            queryCounts.computeIfAbsent(kind, k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        private List<Map<String, Object>> query(String sql, Map<Integer, Object> params) {
+            List<Map<String, Object>> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparingLong(row -> (long) row.get("knwlg_session_qna_id")));
+            List<Map<String, Object>> result = new ArrayList<>();
+
+            if (sql.contains("BETWEEN")) {
+                count("status");
+                long from = (long) params.get(3);
+                long to = (long) params.get(4);
+                for (Map<String, Object> row : sorted) {
+                    long id = (long) row.get("knwlg_session_qna_id");
+                    if (id >= from && id <= to) {
+                        result.add(row);
+                    }
+                }
+                maxStatusRows.accumulateAndGet(result.size(), Math::max);
+            } else if (sql.contains(" IN (")) {
+                count("ids");
+                for (Map<String, Object> row : sorted) {
+                    if (params.containsValue(row.get("knwlg_session_qna_id"))) {
+                        result.add(row);
+                    }
+                }
+            } else if (sql.contains("comment_approve_status = 1 OR")) {
+                count("older");
+                long beforeId = (long) params.get(3);
+                Object userId = params.get(4);
+                int limit = (int) params.get(5);
+                for (int i = sorted.size() - 1; i >= 0 && result.size() < limit; i--) {
+                    Map<String, Object> row = sorted.get(i);
+                    if ((long) row.get("knwlg_session_qna_id") < beforeId
+                            && ((int) row.get("comment_approve_status") == 1
+                                    || row.get("user_master_id").equals(userId))) {
+                        result.add(row);
+                    }
+                }
+            } else if (sql.contains("DESC LIMIT")) {
+                count("tail");
+                int limit = (int) params.get(3);
+                for (int i = sorted.size() - 1; i >= 0 && result.size() < limit; i--) {
+                    result.add(sorted.get(i));
+                }
+            } else if (sql.contains("> ?")) {
+                count("newer");
+                beforeNewer.run();
+                long afterId = (long) params.get(3);
+                for (Map<String, Object> row : sorted) {
+                    if ((long) row.get("knwlg_session_qna_id") > afterId) {
+                        result.add(row);
+                    }
+                }
+                newerRowsReturned.addAndGet(result.size());
+            } else {
+                throw new IllegalArgumentException("Unexpected query: " + sql);
+            }
+            return result;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "prepareStatement" -> statement((String) args[0]);
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private PreparedStatement statement(String sql) {
+            Map<Integer, Object> params = new HashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set")) {
+                            params.put((Integer) args[0], args[1]);
+                            return null;
+                        }
+                        return switch (name) {
+                            case "executeQuery" -> resultSet(query(sql, params));
+                            case "close" -> null;
+                            default -> throw new UnsupportedOperationException(name);
+                        };
+                    });
+        }
+
+        private static ResultSet resultSet(List<Map<String, Object>> result) {
+            int[] position = { -1 };
+            return (ResultSet) Proxy.newProxyInstance(FakeTable.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "next" -> ++position[0] < result.size();
+                        case "getLong" -> {
+                            Object value = result.get(position[0]).get((String) args[0]);
+                            yield value != null ? ((Number) value).longValue() : 0L;
+                        }
+                        case "getInt" -> {
+                            Object value = result.get(position[0]).get((String) args[0]);
+                            yield value != null ? ((Number) value).intValue() : 0;
+                        }
+                        case "getString" -> {
+                            Object value = result.get(position[0]).get((String) args[0]);
+                            yield value != null ? value.toString() : null;
+                        }
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String getDbUrl() {
+            return "fake";
+        }
+    }
+}
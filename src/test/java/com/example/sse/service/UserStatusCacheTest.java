@@ -0,0 +1,170 @@
+package com.example.sse.service;
+
+import com.example.sse.model.DataModels.UserStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Probing, backward-shift delete, eviction and expiry of UserStatusCache.
+ */
+public class UserStatusCacheTest {
+
+    private static final long TTL_MS = 60_000;
+
+    // === Lookups ===
+
+    @Test
+    public void testPutGetOverwrite() {
+        UserStatusCache cache = new UserStatusCache(16, TTL_MS);
+        Assert.assertNull(cache.get(1L));
+
+        cache.put(1L, "active", "IN");
+        UserStatus status = cache.get(1L);
+        Assert.assertEquals("active", status.getStatus());
+        Assert.assertEquals("IN", status.getCountryCode());
+
+        cache.put(1L, "blocked", "IN");
+        Assert.assertEquals("blocked", cache.get(1L).getStatus());
+        Assert.assertEquals(1, cache.stats().get("entries"));
+    }
+
+    @Test
+    public void testSamePairSharesOneInstance() {
+        UserStatusCache cache = new UserStatusCache(16, TTL_MS);
+        cache.put(1L, "active", "IN");
+        cache.put(2L, "active", "IN");
+        cache.put(3L, "active", null);
+
+        Assert.assertSame(cache.get(1L), cache.get(2L));
+        Assert.assertNull(cache.get(3L).getCountryCode());
+        Assert.assertEquals(2, cache.stats().get("value_codes"));
+    }
+
+    @Test
+    public void testUserIdZeroIsNeverCached() {
+        UserStatusCache cache = new UserStatusCache(16, TTL_MS);
+        cache.put(0L, "active", "IN");
+
+        Assert.assertNull(cache.get(0L));
+        Assert.assertEquals(0, cache.stats().get("entries"));
+    }
+
+    // === Deletes ===
+
+    @Test
+    public void testRemoveKeepsProbeRunReachable() {
+        UserStatusCache cache = new UserStatusCache(8, TTL_MS);
+        int mask = (Integer) cache.stats().get("capacity") - 1;
+        // Three ids sharing a home slot, and one homed right behind them that probes past them
+        List<Long> sameSlot = idsWithSlot(slot(1L, mask), mask, 3);
+        long neighbour = idsWithSlot((slot(1L, mask) + 1) & mask, mask, 1).get(0);
+        for (long id : sameSlot) {
+            cache.put(id, "s" + id, "IN");
+        }
+        cache.put(neighbour, "s" + neighbour, "IN");
+
+        cache.remove(sameSlot.get(0));
+        Assert.assertNull(cache.get(sameSlot.get(0)));
+        Assert.assertEquals("s" + sameSlot.get(1), cache.get(sameSlot.get(1)).getStatus());
+        Assert.assertEquals("s" + sameSlot.get(2), cache.get(sameSlot.get(2)).getStatus());
+        Assert.assertEquals("s" + neighbour, cache.get(neighbour).getStatus());
+
+        cache.remove(sameSlot.get(1));
+        cache.remove(sameSlot.get(2));
+        Assert.assertEquals("s" + neighbour, cache.get(neighbour).getStatus());
+        Assert.assertEquals(1, cache.stats().get("entries"));
+    }
+
+    @Test
+    public void testRandomRemovesKeepEveryOtherEntry() {
+        UserStatusCache cache = new UserStatusCache(64, TTL_MS);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 64; id++) {
+            ids.add(id * 7919);
+            cache.put(id * 7919, "active", "IN");
+        }
+
+        for (int i = 0; i < ids.size(); i += 3) {
+            cache.remove(ids.get(i));
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (i % 3 == 0) {
+                Assert.assertNull(cache.get(ids.get(i)));
+            } else {
+                Assert.assertNotNull("lost " + ids.get(i), cache.get(ids.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testClear() {
+        UserStatusCache cache = new UserStatusCache(16, TTL_MS);
+        cache.put(1L, "active", "IN");
+        cache.put(2L, "active", "IN");
+
+        cache.clear();
+        Assert.assertNull(cache.get(1L));
+        Assert.assertEquals(0, cache.stats().get("entries"));
+    }
+
+    // === Eviction and expiry ===
+
+    @Test
+    public void testEvictsAtMaxEntries() {
+        UserStatusCache cache = new UserStatusCache(4, TTL_MS);
+        for (long id = 1; id <= 10; id++) {
+            cache.put(id, "active", "IN");
+            Assert.assertNotNull(cache.get(id));
+            Assert.assertTrue(((Integer) cache.stats().get("entries")) <= 4);
+        }
+
+        Assert.assertEquals(6L, cache.stats().get("evictions"));
+        int live = 0;
+        for (long id = 1; id <= 10; id++) {
+            live += cache.get(id) != null ? 1 : 0;
+        }
+        Assert.assertEquals(4, live);
+    }
+
+    @Test
+    public void testOverwriteDoesNotEvict() {
+        UserStatusCache cache = new UserStatusCache(2, TTL_MS);
+        cache.put(1L, "active", "IN");
+        cache.put(2L, "active", "IN");
+        cache.put(2L, "blocked", "IN");
+
+        Assert.assertEquals(0L, cache.stats().get("evictions"));
+        Assert.assertNotNull(cache.get(1L));
+    }
+
+    @Test
+    public void testEntryExpires() throws Exception {
+        UserStatusCache cache = new UserStatusCache(16, 1);
+        cache.put(1L, "active", "IN");
+
+        // TTLs are kept in whole seconds
+        Thread.sleep(1100);
+        Assert.assertNull(cache.get(1L));
+    }
+
+    /**
+     * Same hash as UserStatusCache.slot.
+     */
+    private static int slot(long userId, int mask) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static List<Long> idsWithSlot(int slot, int mask, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 2; ids.size() < count; id++) {
+            if (slot(id, mask) == slot) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.sse.stream;
+
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.TopicSnapshot;
+import com.example.sse.util.JsonCodecs;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.sse.stream.TopicFramesTest.approved;
+import static com.example.sse.stream.TopicFramesTest.snapshot;
+
+/**
+ * Versioning and Last-Event-ID resume of StreamTopic, driven through
+ * refresh and deliver with connections that capture their frames.
+ */
+public class StreamTopicTest {
+
+    private static final int REPLAY_SIZE = 4;
+
+    private final StreamTopic topic = new StreamTopic("session:s1", "s1", "session", REPLAY_SIZE);
+    private Capture live;
+    private TopicSnapshot next;
+
+    @Before
+    public void setUp() throws IOException {
+        live = new Capture(100L);
+    }
+
+    // === Versions ===
+
+    @Test
+    public void testUnchangedRefreshKeepsEventId() throws Exception {
+        String first = refresh(approved(1, 100));
+        Assert.assertEquals(refresh(approved(1, 100)), first);
+        Assert.assertEquals(1, live.frames.size());
+
+        Assert.assertNotEquals(first, refresh(approved(1, 100), approved(2, 100)));
+    }
+
+    // === Resume ===
+
+    @Test
+    public void testUpToDateClientGetsNothing() throws Exception {
+        String id = refresh(approved(1, 100));
+
+        Assert.assertTrue(resume(id).frames.isEmpty());
+    }
+
+    @Test
+    public void testClientThatMissedAppendsGetsDelta() throws Exception {
+        String seen = refresh(approved(1, 100));
+        refresh(approved(1, 100), approved(2, 100));
+        refresh(approved(1, 100), approved(2, 100), approved(3, 100));
+
+        String delta = resume(seen).only();
+        Assert.assertTrue(delta.contains("\nevent: delta\n"));
+        Assert.assertFalse(delta.contains("\"knwlg_session_qna_id\":1,"));
+        Assert.assertTrue(delta.contains("\"knwlg_session_qna_id\":2,"));
+        Assert.assertTrue(delta.contains("\"knwlg_session_qna_id\":3,"));
+    }
+
+    @Test
+    public void testDeltaAcrossWindowSlide() throws Exception {
+        String seen = refresh(approved(1, 100), approved(2, 100));
+        // 1 drops off the front as 3 arrives - still only an append
+        refresh(approved(2, 100), approved(3, 100));
+
+        String delta = resume(seen).only();
+        Assert.assertTrue(delta.contains("\nevent: delta\n"));
+        Assert.assertTrue(delta.contains("\"knwlg_session_qna_id\":3,"));
+        Assert.assertFalse(delta.contains("\"knwlg_session_qna_id\":2,"));
+    }
+
+    @Test
+    public void testChangeOtherThanAppendGetsSnapshot() throws Exception {
+        String seen = refresh(approved(1, 100), approved(2, 100));
+        // 2 deleted, then an append on top - the deletion still forces a snapshot
+        refresh(approved(1, 100));
+        refresh(approved(1, 100), approved(3, 100));
+
+        assertSnapshot(resume(seen).only());
+    }
+
+    @Test
+    public void testRingWrap() throws Exception {
+        List<String> ids = new ArrayList<>();
+        List<CommentData> comments = new ArrayList<>();
+        for (int i = 1; i <= REPLAY_SIZE * 2 + 1; i++) {
+            comments.add(approved(i, 100));
+            ids.add(refresh(comments.toArray(new CommentData[0])));
+        }
+
+        // Versions whose slots were overwritten by the wrap need a snapshot
+        for (int v = 1; v <= REPLAY_SIZE * 2 + 1 - REPLAY_SIZE; v++) {
+            assertSnapshot(resume(ids.get(v - 1)).only());
+        }
+        // The newest versions still resume from their slot
+        for (int v = REPLAY_SIZE * 2 + 2 - REPLAY_SIZE; v < REPLAY_SIZE * 2 + 1; v++) {
+            String delta = resume(ids.get(v - 1)).only();
+            Assert.assertTrue(delta.contains("\nevent: delta\n"));
+            Assert.assertFalse(delta.contains("\"knwlg_session_qna_id\":" + v + ","));
+            Assert.assertTrue(delta.contains("\"knwlg_session_qna_id\":" + (v + 1) + ","));
+        }
+    }
+
+    @Test
+    public void testForeignOrMalformedIdGetsSnapshot() throws Exception {
+        String id = refresh(approved(1, 100));
+        refresh(approved(1, 100), approved(2, 100));
+        String version = id.substring(id.lastIndexOf('-'));
+
+        assertSnapshot(resume("otherepoch" + version).only());
+        assertSnapshot(resume(id.substring(0, id.lastIndexOf('-')) + "-x").only());
+        assertSnapshot(resume("garbage").only());
+        // A version this topic has not reached yet
+        assertSnapshot(resume(id.substring(0, id.lastIndexOf('-')) + "-99").only());
+    }
+
+    @Test
+    public void testNoReplayBufferAlwaysSendsSnapshot() throws Exception {
+        StreamTopic unbuffered = new StreamTopic("session:s1", "s1", "session", 0);
+        unbuffered.getSubscribers().add(live.connection);
+        next = snapshot(List.of(approved(1, 100)), Map.of());
+        unbuffered.refresh((typeId, type, previous) -> next, JsonCodecs.mapper());
+        String seen = eventId(live.last());
+        next = snapshot(List.of(approved(1, 100), approved(2, 100)), Map.of());
+        unbuffered.refresh((typeId, type, previous) -> next, JsonCodecs.mapper());
+
+        Capture resumed = new Capture(100L);
+        resumed.connection.setLastEventId(seen);
+        unbuffered.deliver(resumed.connection);
+        assertSnapshot(resumed.only());
+    }
+
+    /**
+     * Refresh the topic with these comments and return the event id now current.
+     */
+    private String refresh(CommentData... comments) {
+        if (!topic.getSubscribers().contains(live.connection)) {
+            topic.getSubscribers().add(live.connection);
+        }
+        next = snapshot(Arrays.asList(comments), Map.of());
+        topic.refresh((typeId, type, previous) -> next, JsonCodecs.mapper());
+        return eventId(live.last());
+    }
+
+    /**
+     * A client reconnecting with lastEventId, holding what its first delivery wrote.
+     */
+    private Capture resume(String lastEventId) throws IOException {
+        Capture client = new Capture(100L);
+        client.connection.setLastEventId(lastEventId);
+        topic.deliver(client.connection);
+        return client;
+    }
+
+    private static void assertSnapshot(String frame) {
+        Assert.assertFalse(frame.contains("\nevent: delta\n"));
+        Assert.assertTrue(frame.contains("data: {\"comment_data\":["));
+    }
+
+    private static String eventId(String frame) {
+        Assert.assertTrue(frame.startsWith("id: "));
+        return frame.substring(4, frame.indexOf('\n'));
+    }
+
+    /**
+     * SSEConnection over an always-ready output stream that keeps every write as one frame.
+     */
+    private static final class Capture {
+        final List<String> frames = new ArrayList<>();
+        final SSEConnection connection;
+
+        Capture(long userId) throws IOException {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(int b) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    frames.add(new String(b, off, len, StandardCharsets.UTF_8));
+                }
+            };
+            ServletResponse response = (ServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {ServletResponse.class},
+                    (proxy, method, args) -> method.getName().equals("getOutputStream") ? out : null);
+            AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {AsyncContext.class},
+                    (proxy, method, args) -> method.getName().equals("getResponse") ? response : null);
+            connection = new SSEConnection(1L, userId, "session:s1", asyncContext,
+                    new SlowConsumerPolicy(SlowConsumerPolicy.Action.COALESCE, 16, 30000));
+        }
+
+        String last() {
+            Assert.assertFalse(frames.isEmpty());
+            return frames.get(frames.size() - 1);
+        }
+
+        String only() {
+            Assert.assertEquals(1, frames.size());
+            return frames.get(0);
+        }
+    }
+}
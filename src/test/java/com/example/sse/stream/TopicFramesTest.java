@@ -0,0 +1,170 @@
+package com.example.sse.stream;
+
+import com.example.sse.model.DataModels.CommentData;
+import com.example.sse.model.DataModels.SurveyData;
+import com.example.sse.model.DataModels.TopicSnapshot;
+import com.example.sse.util.JsonCodecs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frame assembly, overlay sharing and the append-only/delta logic of
+ * TopicFrames.
+ */
+public class TopicFramesTest {
+
+    private static final ObjectMapper MAPPER = JsonCodecs.mapper();
+
+    private static final List<SurveyData> SURVEYS = List.of(
+            new SurveyData(10L, 1, 0, 0L),
+            new SurveyData(11L, 1, 1, 0L));
+
+    // === Per-subscriber frames ===
+
+    @Test
+    public void testUserWithoutOverlayGetsTheSharedFrame() throws Exception {
+        TopicFrames frames = build(snapshot(List.of(approved(1, 100), approved(2, 101)), Map.of()), "e-1", null);
+
+        Assert.assertSame(frames.sharedFrame(), frames.frameFor(7L));
+        String frame = text(frames.frameFor(7L));
+        Assert.assertTrue(frame.startsWith("id: e-1\ndata: {\"comment_data\":["));
+        Assert.assertTrue(frame.endsWith("\"session_status\":\"live\"}\n\n"));
+    }
+
+    @Test
+    public void testOwnPendingCommentOnlyInOwnFrame() throws Exception {
+        TopicFrames frames = build(snapshot(List.of(approved(1, 100), pending(2, 7)), Map.of()), "e-1", null);
+
+        Assert.assertTrue(text(frames.frameFor(7L)).contains("\"knwlg_session_qna_id\":2"));
+        Assert.assertFalse(text(frames.frameFor(8L)).contains("\"knwlg_session_qna_id\":2"));
+        Assert.assertSame(frames.frameFor(7L), frames.frameFor(7L));
+    }
+
+    @Test
+    public void testAnswerOverlayIsSharedPerAnswerMap() throws Exception {
+        Map<Long, Map<Long, Long>> answers = Map.of(
+                7L, Map.of(10L, 500L),
+                8L, Map.of(10L, 500L),
+                9L, Map.of(11L, 501L));
+        TopicFrames frames = build(snapshot(List.of(approved(1, 100)), answers), "e-1", null);
+
+        byte[] frame7 = frames.frameFor(7L);
+        Assert.assertSame(frame7, frames.frameFor(8L));
+        Assert.assertNotSame(frame7, frames.frameFor(9L));
+        Assert.assertTrue(text(frame7).contains("\"survey_id\":10,\"is_show\":1,\"is_answer_show\":0,\"is_answered\":500"));
+        Assert.assertTrue(text(frame7).contains("\"survey_id\":11,\"is_show\":1,\"is_answer_show\":1,\"is_answered\":0"));
+        Assert.assertNotSame(frames.sharedFrame(), frame7);
+    }
+
+    @Test
+    public void testUnchangedCommentsKeepTheirFragments() throws Exception {
+        CommentData first = approved(1, 100);
+        TopicFrames previous = build(snapshot(List.of(first), Map.of()), "e-1", null);
+
+        // Same instance keeps its bytes even if mutated; a new instance is serialized again
+        first.setComment("edited in place");
+        TopicFrames sameInstance = build(snapshot(List.of(first), Map.of()), "e-2", previous);
+        Assert.assertFalse(text(sameInstance.sharedFrame()).contains("edited in place"));
+
+        TopicFrames newInstance = build(snapshot(List.of(approved(1, 100)), Map.of()), "e-2", previous);
+        Assert.assertTrue(text(newInstance.sharedFrame()).contains("comment 1"));
+    }
+
+    // === Change detection ===
+
+    @Test
+    public void testSameContent() throws Exception {
+        Map<Long, Map<Long, Long>> answers = Map.of(7L, Map.of(10L, 500L));
+        TopicFrames previous = build(snapshot(List.of(approved(1, 100)), answers), "e-1", null);
+
+        Assert.assertTrue(build(snapshot(List.of(approved(1, 100)), answers), "e-2", previous)
+                .hasSameContent(previous));
+        Assert.assertFalse(build(snapshot(List.of(approved(1, 100), approved(2, 100)), answers), "e-2", previous)
+                .hasSameContent(previous));
+        Assert.assertFalse(build(snapshot(List.of(approved(1, 100)), Map.of(7L, Map.of(10L, 501L))), "e-2", previous)
+                .hasSameContent(previous));
+    }
+
+    @Test
+    public void testAppendOnly() throws Exception {
+        TopicFrames previous = build(snapshot(List.of(approved(1, 100), approved(2, 100)), Map.of()), "e-1", null);
+
+        Assert.assertTrue(build(snapshot(List.of(approved(1, 100), approved(2, 100), approved(3, 100)), Map.of()),
+                "e-2", previous).isAppendOnlySince(previous));
+        // Window slid: 1 dropped off the front, 3 and 4 appended
+        Assert.assertTrue(build(snapshot(List.of(approved(2, 100), approved(3, 100), approved(4, 100)), Map.of()),
+                "e-2", previous).isAppendOnlySince(previous));
+        // Whole window replaced by newer comments
+        Assert.assertTrue(build(snapshot(List.of(approved(5, 100)), Map.of()), "e-2", previous)
+                .isAppendOnlySince(previous));
+    }
+
+    @Test
+    public void testNotAppendOnly() throws Exception {
+        TopicFrames previous = build(snapshot(List.of(approved(1, 100), approved(2, 100)), Map.of()), "e-1", null);
+
+        CommentData rejected = approved(2, 100);
+        rejected.setCommentApproveStatus(2);
+        Assert.assertFalse(build(snapshot(List.of(approved(1, 100), rejected), Map.of()), "e-2", previous)
+                .isAppendOnlySince(previous));
+        // 2 deleted
+        Assert.assertFalse(build(snapshot(List.of(approved(1, 100), approved(3, 100)), Map.of()), "e-2", previous)
+                .isAppendOnlySince(previous));
+        Assert.assertFalse(build(snapshot(List.of(), Map.of()), "e-2", previous).isAppendOnlySince(previous));
+    }
+
+    @Test
+    public void testDeltaFrameCarriesOnlyNewerVisibleComments() throws Exception {
+        TopicFrames frames = build(snapshot(
+                List.of(approved(1, 100), approved(2, 100), pending(3, 7), approved(4, 100)), Map.of()), "e-3", null);
+
+        String delta = text(frames.deltaFrameFor(8L, 2L));
+        Assert.assertTrue(delta.startsWith("id: e-3\nevent: delta\ndata: {\"comment_data\":[{"));
+        Assert.assertFalse(delta.contains("\"knwlg_session_qna_id\":2,"));
+        Assert.assertFalse(delta.contains("\"knwlg_session_qna_id\":3,"));
+        Assert.assertTrue(delta.contains("\"knwlg_session_qna_id\":4,"));
+        Assert.assertTrue(text(frames.deltaFrameFor(7L, 2L)).contains("\"knwlg_session_qna_id\":3,"));
+        // An id that fell out of the window still anchors the delta
+        Assert.assertTrue(text(frames.deltaFrameFor(8L, 0L)).contains("\"knwlg_session_qna_id\":1,"));
+        Assert.assertEquals(4L, frames.lastCommentId());
+    }
+
+    static TopicFrames build(TopicSnapshot snapshot, String eventId, TopicFrames previous) throws Exception {
+        return TopicFrames.build(snapshot, MAPPER, eventId, previous);
+    }
+
+    static TopicSnapshot snapshot(List<CommentData> comments, Map<Long, Map<Long, Long>> answers) {
+        return new TopicSnapshot(new ArrayList<>(comments), SURVEYS, answers, 0L, 0L, "live");
+    }
+
+    static CommentData approved(long id, long userId) {
+        CommentData comment = comment(id, userId);
+        comment.setCommentApproveStatus(1);
+        return comment;
+    }
+
+    static CommentData pending(long id, long userId) {
+        CommentData comment = comment(id, userId);
+        comment.setCommentApproveStatus(0);
+        return comment;
+    }
+
+    private static CommentData comment(long id, long userId) {
+        CommentData comment = new CommentData();
+        comment.setId(id);
+        comment.setUserMasterId(userId);
+        comment.setComment("comment " + id);
+        comment.setStatus("active");
+        return comment;
+    }
+
+    private static String text(byte[] frame) {
+        return new String(frame, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.sse.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * CLOSED / OPEN / HALF_OPEN transitions of CircuitBreaker.
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MS = 50;
+    private static final long SLOW_NANOS = 100_000_000L;
+    private static final long FAST_NANOS = 1_000_000L;
+
+    // window 10, minimum 4 calls, 50% failure or slow rate, 100ms slow, 2 trial calls
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 50, 100, OPEN_MS, 2);
+
+    // === CLOSED ===
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            call(false);
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertTrue(breaker.isCallPermitted());
+    }
+
+    @Test
+    public void testStaysClosedBelowFailureRate() {
+        for (int i = 0; i < 10; i++) {
+            call(i % 3 != 2); // 3 of 10 failed, never half of the first 4
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        call(true);
+        call(true);
+        call(false);
+        call(false);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(1L, breaker.stats().get("times_opened"));
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        call(true);
+        call(true);
+        slowCall();
+        slowCall();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        call(false);
+        for (int i = 0; i < 3; i++) {
+            call(true);
+        }
+        Assert.assertEquals(25.0, breaker.stats().get("failure_rate"));
+
+        for (int i = 0; i < 10; i++) {
+            call(true);
+        }
+        Assert.assertEquals(0.0, breaker.stats().get("failure_rate"));
+        Assert.assertEquals(10, breaker.stats().get("recorded_calls"));
+    }
+
+    // === OPEN ===
+
+    @Test
+    public void testOpenRejectsUntilDurationPassed() throws Exception {
+        open();
+
+        Assert.assertFalse(breaker.isCallPermitted());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+        Assert.assertEquals(1L, breaker.stats().get("not_permitted"));
+
+        Thread.sleep(OPEN_MS + 20);
+        Assert.assertTrue(breaker.isCallPermitted());
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testStragglerWhileOpenIsIgnored() {
+        open();
+        breaker.onSuccess(FAST_NANOS);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    // === HALF_OPEN ===
+
+    @Test
+    public void testHalfOpenLimitsTrialCalls() throws Exception {
+        halfOpen();
+
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+
+        // A released permission frees its trial slot
+        breaker.releasePermission();
+        Assert.assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterTrialsSucceed() throws Exception {
+        halfOpen();
+        breaker.onSuccess(FAST_NANOS);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(FAST_NANOS);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(0, breaker.stats().get("recorded_calls"));
+    }
+
+    @Test
+    public void testHalfOpenReopensOnFailure() throws Exception {
+        halfOpen();
+        breaker.onError(FAST_NANOS);
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+        Assert.assertEquals(2L, breaker.stats().get("times_opened"));
+    }
+
+    @Test
+    public void testHalfOpenReopensOnSlowSuccess() throws Exception {
+        halfOpen();
+        breaker.onSuccess(SLOW_NANOS);
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean success) {
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        if (success) {
+            breaker.onSuccess(FAST_NANOS);
+        } else {
+            breaker.onError(FAST_NANOS);
+        }
+    }
+
+    private void slowCall() {
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(SLOW_NANOS);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    /**
+     * Opens the breaker, waits out the open duration and takes the first trial permission.
+     */
+    private void halfOpen() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MS + 20);
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.sse.util;
+
+import com.example.sse.exception.ServiceException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Verified-token cache of JWTUtil: positive entries live until the token's
+ * exp (at most the cache TTL), rejected tokens for the negative TTL.
+ */
+public class JWTUtilTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private static final long CACHE_TTL_MS = 300_000;
+    private static final long NEGATIVE_TTL_MS = 300_000;
+
+    private final JWTUtil jwt = new JWTUtil(SECRET, 100, CACHE_TTL_MS, NEGATIVE_TTL_MS);
+
+    // === Valid tokens ===
+
+    @Test
+    public void testValidTokenIsVerifiedOnce() throws Exception {
+        String token = token(7L, new Date(System.currentTimeMillis() + 60_000));
+
+        Claims first = jwt.validateToken(token);
+        Assert.assertSame(first, jwt.validateToken(token));
+        Assert.assertEquals(Long.valueOf(7L), jwt.getUserId(first));
+        Assert.assertEquals(1L, jwt.getCacheStats().get("verifications"));
+    }
+
+    @Test
+    public void testCachedTokenExpiresWithItsExpClaim() throws Exception {
+        // exp has second precision - land it on a boundary a little over a second out
+        long exp = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = token(7L, new Date(exp));
+
+        jwt.validateToken(token);
+        jwt.validateToken(token);
+        Assert.assertEquals(1L, jwt.getCacheStats().get("verifications"));
+
+        Thread.sleep(exp - System.currentTimeMillis() + 50);
+        assertRejected(token, "expired");
+        Assert.assertEquals(2L, jwt.getCacheStats().get("verifications"));
+    }
+
+    @Test
+    public void testCacheTtlCapsTokensWithoutExp() throws Exception {
+        JWTUtil shortTtl = new JWTUtil(SECRET, 100, 500, NEGATIVE_TTL_MS);
+        String token = token(7L, null);
+
+        shortTtl.validateToken(token);
+        shortTtl.validateToken(token);
+        Assert.assertEquals(1L, shortTtl.getCacheStats().get("verifications"));
+
+        Thread.sleep(600);
+        shortTtl.validateToken(token);
+        Assert.assertEquals(2L, shortTtl.getCacheStats().get("verifications"));
+    }
+
+    // === Rejected tokens ===
+
+    @Test
+    public void testRejectedTokenIsNegativelyCached() {
+        String forged = Jwts.builder()
+                .setSubject("7")
+                .signWith(Keys.hmacShaKeyFor("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        String error = assertRejected(forged, "Invalid token");
+        Assert.assertEquals(error, assertRejected(forged, "Invalid token"));
+        Assert.assertEquals(1L, jwt.getCacheStats().get("verifications"));
+        Assert.assertEquals(1L, jwt.getCacheStats().get("rejections"));
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() {
+        String token = token(7L, new Date(System.currentTimeMillis() - 1000));
+
+        assertRejected(token, "expired");
+    }
+
+    @Test
+    public void testNegativeCachingCanBeDisabled() {
+        JWTUtil noNegative = new JWTUtil(SECRET, 100, CACHE_TTL_MS, 0);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                noNegative.validateToken("not.a.jwt");
+                Assert.fail("accepted a malformed token");
+            } catch (Exception e) {
+                Assert.assertTrue(e instanceof ServiceException);
+            }
+        }
+        Assert.assertEquals(2L, noNegative.getCacheStats().get("verifications"));
+    }
+
+    @Test
+    public void testDigestIsStableAndUrlSafe() {
+        String digest = JWTUtil.tokenDigest("a.b.c");
+
+        Assert.assertEquals(digest, JWTUtil.tokenDigest("a.b.c"));
+        Assert.assertNotEquals(digest, JWTUtil.tokenDigest("a.b.d"));
+        Assert.assertEquals(43, digest.length());
+        Assert.assertTrue(digest.matches("[A-Za-z0-9_-]+"));
+    }
+
+    private static String token(long userId, Date expiration) {
+        return Jwts.builder()
+                .setSubject(Long.toString(userId))
+                .setExpiration(expiration)
+                .signWith(KEY)
+                .compact();
+    }
+
+    /**
+     * Validates a token that must fail and returns the error message.
+     */
+    private String assertRejected(String token, String messagePart) {
+        try {
+            jwt.validateToken(token);
+        } catch (Exception e) {
+            Assert.assertTrue(e instanceof ServiceException);
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(messagePart));
+            return e.getMessage();
+        }
+        throw new AssertionError("token was accepted");
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.sse.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalescing, waiter deadlines and cancellation of the shared load in
+ * SingleFlight's blocking form.
+ */
+public class SingleFlightTest {
+
+    private static final long WAIT_MS = 5000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.load("k", () -> {
+            loads.incrementAndGet();
+            awaitLatch(release);
+            return "value";
+        }), executor);
+        waitUntilInFlight(flight);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> flight.load("k", () -> "other:" + loads.incrementAndGet()), executor);
+        Thread.sleep(50);
+        release.countDown();
+
+        Assert.assertEquals("value", leader.get(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("value", follower.get(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    public void testKeyIsReleasedAfterLoad() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(WAIT_MS);
+        AtomicInteger loads = new AtomicInteger();
+
+        Assert.assertEquals(1, (int) flight.load("k", loads::incrementAndGet));
+        Assert.assertEquals(2, (int) flight.load("k", loads::incrementAndGet));
+    }
+
+    @Test
+    public void testFollowersGetTheLoadersException() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.load("k", () -> {
+            awaitLatch(release);
+            throw new IllegalStateException("boom");
+        }), executor);
+        waitUntilInFlight(flight);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flight.load("k", () -> "fresh"), executor);
+        Thread.sleep(50);
+        release.countDown();
+
+        Assert.assertTrue(failure(leader) instanceof IllegalStateException);
+        Assert.assertTrue(failure(follower) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testFollowerGivesUpAtItsOwnDeadline() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.load("k", () -> {
+            awaitLatch(release);
+            return "value";
+        }), executor);
+        waitUntilInFlight(flight);
+
+        long start = System.nanoTime();
+        try {
+            Deadline.after(100).call(() -> flight.load("k", () -> "fresh"));
+            Assert.fail("Follower should have timed out");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+        // The leader has no deadline, so the load is still going and completes
+        release.countDown();
+        Assert.assertEquals("value", leader.get(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testLoaderRunsUnderTheSharedLoadDeadline() {
+        SingleFlight<String, Long> flight = new SingleFlight<>(3000);
+        Deadline caller = Deadline.after(100);
+
+        long remaining = caller.call(() -> flight.load("k", () -> Deadline.current().remainingMs()));
+        Assert.assertTrue("Loader deadline was " + remaining + "ms", remaining > 1000);
+        Assert.assertSame(caller, caller.call(Deadline::current));
+    }
+
+    @Test
+    public void testTimedOutCallerCancelsTheSharedStatement() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        BlockingStatement statement = new BlockingStatement();
+        long cancelledBefore = Deadline.cancelledStatements();
+
+        CompletableFuture<String> caller = Deadline.after(100).supplyAsync(
+                () -> flight.load("k", statement::execute), executor);
+
+        Throwable error = failure(caller);
+        Assert.assertTrue(error instanceof TimeoutException);
+        Assert.assertTrue("Statement was not cancelled", statement.cancelled.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(Deadline.cancelledStatements() > cancelledBefore);
+        waitUntilIdle(flight);
+    }
+
+    @Test
+    public void testLoadIsCancelledOnlyWhenTheLastWaiterGivesUp() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        BlockingStatement statement = new BlockingStatement();
+
+        CompletableFuture<String> leader = Deadline.after(100).supplyAsync(
+                () -> flight.load("k", statement::execute), executor);
+        waitUntilInFlight(flight);
+        CompletableFuture<String> follower = Deadline.after(600).supplyAsync(
+                () -> flight.load("k", () -> "fresh"), executor);
+
+        Assert.assertTrue(failure(leader) instanceof TimeoutException);
+        Assert.assertFalse("Cancelled while a waiter was left",
+                statement.cancelled.await(200, TimeUnit.MILLISECONDS));
+
+        Assert.assertTrue(failure(follower) instanceof TimeoutException);
+        Assert.assertTrue("Statement was not cancelled", statement.cancelled.await(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWaiterWithoutDeadlineKeepsTheLoadAlive() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        BlockingStatement statement = new BlockingStatement();
+
+        CompletableFuture<String> leader = Deadline.after(100).supplyAsync(
+                () -> flight.load("k", statement::execute), executor);
+        waitUntilInFlight(flight);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> flight.load("k", () -> "fresh"), executor);
+
+        Assert.assertTrue(failure(leader) instanceof TimeoutException);
+        Assert.assertFalse(statement.cancelled.await(300, TimeUnit.MILLISECONDS));
+
+        statement.finish.countDown();
+        Assert.assertEquals("done", follower.get(WAIT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCallerAfterAbandonedLoadStartsAFreshOne() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(WAIT_MS);
+        BlockingStatement statement = new BlockingStatement();
+
+        CompletableFuture<String> abandoned = Deadline.after(100).supplyAsync(
+                () -> flight.load("k", statement::execute), executor);
+        Assert.assertTrue(failure(abandoned) instanceof TimeoutException);
+        Assert.assertTrue(statement.cancelled.await(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        Assert.assertEquals("fresh", flight.load("k", () -> "fresh"));
+    }
+
+    /**
+     * Statement registered with the loader's deadline that blocks until it is
+     * cancelled (failing the load) or finished.
+     */
+    private static final class BlockingStatement {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        private final Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "cancel" -> {
+                        cancelled.countDown();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+
+        String execute() {
+            Deadline deadline = Deadline.current();
+            Assert.assertNotNull(deadline);
+            if (!deadline.register(statement)) {
+                throw new IllegalStateException("Deadline already passed");
+            }
+            try {
+                while (cancelled.getCount() > 0) {
+                    if (awaitLatch(finish, 10)) {
+                        return "done";
+                    }
+                }
+                throw new IllegalStateException("Statement cancelled");
+            } finally {
+                deadline.unregister(statement);
+            }
+        }
+    }
+
+    private static void waitUntilInFlight(SingleFlight<?, ?> flight) throws InterruptedException {
+        long until = System.currentTimeMillis() + WAIT_MS;
+        while (flight.inFlightCount() == 0 && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(1, flight.inFlightCount());
+    }
+
+    private static void waitUntilIdle(SingleFlight<?, ?> flight) throws InterruptedException {
+        long until = System.currentTimeMillis() + WAIT_MS;
+        while (flight.inFlightCount() > 0 && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(0, flight.inFlightCount());
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        awaitLatch(latch, WAIT_MS);
+    }
+
+    private static boolean awaitLatch(CountDownLatch latch, long timeoutMs) {
+        try {
+            return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(WAIT_MS, TimeUnit.MILLISECONDS);
+            Assert.fail("Expected a failure");
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            return cause;
+        }
+    }
+}